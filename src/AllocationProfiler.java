@@ -0,0 +1,146 @@
+/* The AllocationProfiler class measures how many bytes the hot paths allocate per call and checks them against
+budgets, so a change that brings back garbage (and the GC pauses that come with it) shows up as a failed run
+e.g. "java AllocationProfiler" prints each operation's bytes per call and exits with status 1 if any is over budget
+
+Each operation is warmed up first so the JIT has compiled it (and removed whatever allocations escape analysis can),
+then run many times between two reads of the thread's allocation counter. Scoring hands and shuffling should
+allocate nothing at all. The other budgets are roughly the current cost with some headroom */
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+
+public final class AllocationProfiler {
+    // Calls measured per operation, after as many calls again to warm up (whole rounds are far slower, so fewer)
+    private static final int MEASURED_CALLS = 200000;
+    private static final int MEASURED_ROUNDS = 5000;
+
+    // Bytes each operation is allowed to allocate per call
+    private static final long SCORE_BUDGET = 0;
+    private static final long SHUFFLE_BUDGET = 0;
+    private static final long DEAL_BUDGET = 300;
+    private static final long PLAY_BUDGET = 500;
+    private static final long ROUND_BUDGET = 10000;
+
+    // Seats at the table used for play() and full rounds
+    private static final int NUM_SEATS = 6;
+
+    // Thread allocation counters are a HotSpot extension of the standard ThreadMXBean
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Static utility class, no instances
+    private AllocationProfiler() {
+    }
+
+    public static void main(String[] args) {
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.out.println("This JVM can't count allocated bytes per thread");
+            return;
+        }
+
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        Constants.isSilent = true;
+
+        SplittableRandom random = new SplittableRandom(1);
+        TableConfig config = TableConfig.DEFAULT.withSeats(NUM_SEATS);
+        boolean isOverBudget = false;
+
+        // A 7 card hand, scored over and over
+        Hand hand = new Hand();
+        Deck cards = new Deck(1);
+        cards.shuffle(random);
+
+        for (int i = 0; i < Constants.TOTAL_CARDS; i++) {
+            hand.addCard(cards.deal());
+        }
+
+        isOverBudget |= check("Hand.getScore()", SCORE_BUDGET, MEASURED_CALLS, () -> hand.getScore());
+
+        // Shuffling one deck in place
+        Deck deck = new Deck(Constants.NUM_CASINO_DECKS);
+
+        isOverBudget |= check("Deck.shuffle()", SHUFFLE_BUDGET, MEASURED_CALLS, () -> deck.shuffle(random));
+
+        // A fresh deck for a round, dealt out to a full table
+        isOverBudget |= check("new Deck() + deal()", DEAL_BUDGET, MEASURED_CALLS, () -> {
+            Deck roundDeck = new Deck(Constants.NUM_CASINO_DECKS);
+
+            for (int i = 0; i < 2 * NUM_SEATS + Constants.TOTAL_CARDS - 2; i++) {
+                roundDeck.deal();
+            }
+        });
+
+        // An AI checking on the flop: its context, its Strategy's decision, and carrying it out
+        List<Player> players = newPlayers(config);
+        Table table = new Table(new ArrayList<>(players), 0, 2, config, 1);
+        Player player = players.get(0);
+        List<Player> opponents = players.subList(1, players.size());
+
+        for (int i = 0; i < 3; i++) {
+            Card card = cards.deal();
+
+            for (Player seat : players) {
+                seat.addCard(card);
+            }
+        }
+
+        isOverBudget |= check("Player.play()", PLAY_BUDGET, MEASURED_CALLS, () -> player.play(player.getBet(),
+                false, config.getBigBlind(), Integer.MAX_VALUE, table.getPot(), opponents, config.getBigBlind(), 0,
+                random));
+
+        // One whole hand at a table of AI players, dealing included
+        List<Player> roundPlayers = newPlayers(config);
+        long[] seeds = {0};
+
+        isOverBudget |= check("one headless round", ROUND_BUDGET, MEASURED_ROUNDS, () -> {
+            for (Player seat : roundPlayers) {
+                seat.setBankroll(config.getStartingBank());
+            }
+
+            new Table(new ArrayList<>(roundPlayers), (int) (seeds[0] % NUM_SEATS), 2, config, seeds[0]++).playRound();
+        });
+
+        if (isOverBudget) {
+            System.out.println("Allocation budget exceeded");
+            System.exit(1);
+        }
+
+        System.out.println("Every operation is within its allocation budget");
+    }
+
+    // Private helper methods!
+    // Prints an operation's bytes per call, returns true if it's over budget
+    private static boolean check(String name, long budget, int numCalls, Runnable operation) {
+        for (int i = 0; i < numCalls; i++) {
+            operation.run();
+        }
+
+        long thread = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(thread);
+
+        for (int i = 0; i < numCalls; i++) {
+            operation.run();
+        }
+
+        double bytesPerCall = (double) (THREADS.getThreadAllocatedBytes(thread) - before) / numCalls;
+        boolean isOverBudget = bytesPerCall > budget;
+
+        System.out.printf("%-22s %10.1f bytes/call (budget %d)%s%n", name, bytesPerCall, budget,
+                isOverBudget ? "  OVER BUDGET" : "");
+
+        return isOverBudget;
+    }
+
+    // AI players with the table's starting bankroll
+    private static List<Player> newPlayers(TableConfig config) {
+        List<Player> players = new ArrayList<>();
+
+        for (int seat = 0; seat < NUM_SEATS; seat++) {
+            players.add(new Player("AI " + seat, config.getStartingBank(), DefaultStrategy.INSTANCE));
+        }
+
+        return players;
+    }
+}
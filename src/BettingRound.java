@@ -0,0 +1,343 @@
+/* The BettingRound class is the betting state machine of one hand: whose turn it is, how much each seat has put in,
+and when a street's betting is done. Table drives it, and it can also be run on its own (see main)
+
+Everything lives in primitive arrays indexed by seat that are allocated once and reused for every hand, so no action
+allocates anything. The rules are the usual no-limit ones:
+1. Betting goes around until every player still in has acted since the last full raise and matched the bet
+2. Re-raises are unlimited, but a raise has to be at least as big as the last one (the big blind if nobody raised)
+3. A player can always go all in for less, but an all in that's smaller than a full raise doesn't let players who
+already acted raise again, they can only call or fold
+At a pot-limit table (e.g. Pot-Limit Omaha) a raise is also capped: after calling, it can add at most the pot */
+import java.util.SplittableRandom;
+
+
+public class BettingRound {
+    // No seat, e.g. the actor once a street's betting is over
+    public static final int NONE = -1;
+
+    private final int[] stacks;
+
+    // Chips put in on the current street and over the whole hand
+    private final int[] streetBets;
+    private final int[] handBets;
+
+    private final boolean[] folded;
+
+    // Whether a seat has acted since the last full raise, reset for everyone else whenever someone makes one
+    private final boolean[] acted;
+
+    // Whether raises are capped at the pot, see getMaxRaiseTo()
+    private final boolean isPotLimit;
+
+    private int numSeats;
+    private int bigBlind;
+    private int pot;
+
+    // The street bet everyone has to match, and the smallest amount a raise can add to it
+    private int currentBet;
+    private int minRaise;
+
+    // Players who haven't folded, and those of them who still have chips to bet with
+    private int numInHand;
+    private int numCanAct;
+
+    private int actor;
+    private int lastAggressor;
+
+    // Constructor for no-limit betting
+    public BettingRound(int maxSeats) {
+        this(maxSeats, false);
+    }
+
+    // Constructor, all memory is allocated here
+    public BettingRound(int maxSeats, boolean isPotLimit) {
+        this.isPotLimit = isPotLimit;
+
+        stacks = new int[maxSeats];
+        streetBets = new int[maxSeats];
+        handBets = new int[maxSeats];
+        folded = new boolean[maxSeats];
+        acted = new boolean[maxSeats];
+    }
+
+    /* Micro benchmark: plays random legal actions through the engine and reports how many it handles per second
+    Optional arguments: number of hands and seats, e.g. "java BettingRound 10000000 6" */
+    public static void main(String[] args) {
+        int numHands = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+        int numSeats = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+
+        BettingRound betting = new BettingRound(numSeats);
+        int[] stacks = new int[numSeats];
+        SplittableRandom random = new SplittableRandom(1);
+
+        // Warm up the JIT before timing
+        play(betting, stacks, random, numHands / 10);
+
+        long start = System.nanoTime();
+        long actions = play(betting, stacks, random, numHands);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d actions in %d hands in %.2f seconds (%.0f actions/second)%n", actions, numHands,
+                seconds, actions / seconds);
+    }
+
+    /* Starts a new hand and posts the blinds, players short of a blind post what they have and are all in
+
+    Parameter stacks: each seat's chips before the blinds, seats with no chips sit the hand out
+    Parameter smallBlindSeat: the seat posting the small blind, the next seat posts the big blind */
+    public void startHand(int[] stacks, int numSeats, int smallBlindSeat, int smallBlind, int bigBlind) {
+        this.numSeats = numSeats;
+        this.bigBlind = bigBlind;
+
+        System.arraycopy(stacks, 0, this.stacks, 0, numSeats);
+
+        pot = 0;
+        numInHand = 0;
+        numCanAct = 0;
+
+        for (int seat = 0; seat < numSeats; seat++) {
+            handBets[seat] = 0;
+            folded[seat] = stacks[seat] <= 0;
+
+            if (!folded[seat]) {
+                numInHand++;
+                numCanAct++;
+            }
+        }
+
+        startStreet();
+
+        int bigBlindSeat = (smallBlindSeat + 1) % numSeats;
+
+        put(smallBlindSeat, Math.min(smallBlind, this.stacks[smallBlindSeat]));
+        put(bigBlindSeat, Math.min(bigBlind, this.stacks[bigBlindSeat]));
+
+        // Everyone owes the full big blind, even if the big blind player was short
+        currentBet = bigBlind;
+        lastAggressor = bigBlindSeat;
+
+        // The big blind still gets to act when everyone just calls
+        actor = nextToAct(bigBlindSeat);
+    }
+
+    /* Starts the next street's betting with the first seat from firstSeat on that still has to act
+    Table passes the small blind's seat, or the big blind's when heads-up, since the button acts last after the flop */
+    public void nextStreet(int firstSeat) {
+        startStreet();
+
+        actor = nextToAct((firstSeat - 1 + numSeats) % numSeats);
+    }
+
+    // Folds the actor's hand
+    public void fold() {
+        folded[actor] = true;
+        numInHand--;
+        numCanAct--;
+
+        advance();
+    }
+
+    // Checks or calls, going all in if the actor can't cover the whole bet
+    public void call() {
+        put(actor, Math.min(getToCall(), stacks[actor]));
+        acted[actor] = true;
+
+        advance();
+    }
+
+    /* Raises the street bet to total, throws an IllegalStateException if that's not allowed
+    The raise has to add at least getMinRaise() unless the actor is going all in, and there has to be a raise left */
+    public void raiseTo(int total) {
+        int amount = total - streetBets[actor];
+        int raise = total - currentBet;
+
+        if (!canRaise() || raise <= 0 || total > getMaxRaiseTo() || (raise < minRaise && amount < stacks[actor])) {
+            throw new IllegalStateException("Seat " + actor + " can't raise to " + total);
+        }
+
+        put(actor, amount);
+        currentBet = total;
+        acted[actor] = true;
+
+        // A full raise reopens the betting for everyone, a short all in doesn't
+        if (raise >= minRaise) {
+            minRaise = raise;
+            lastAggressor = actor;
+
+            for (int seat = 0; seat < numSeats; seat++) {
+                if (seat != actor) {
+                    acted[seat] = false;
+                }
+            }
+        }
+
+        advance();
+    }
+
+    /* Whether the actor may raise: they have more than the call, nobody has closed the action to them, and there's
+    still someone with chips left to raise against */
+    public boolean canRaise() {
+        return actor != NONE && !acted[actor] && stacks[actor] > getToCall() && numCanAct > 1;
+    }
+
+    // Getter methods
+    // The seat that has to act next, NONE once the street's betting is over
+    public int getActor() {
+        return actor;
+    }
+
+    // The last seat to make a full raise on this street (the big blind counts pre-flop), NONE if nobody has
+    public int getLastAggressor() {
+        return lastAggressor;
+    }
+
+    public int getToCall() {
+        return currentBet - streetBets[actor];
+    }
+
+    public int getCurrentBet() {
+        return currentBet;
+    }
+
+    // The smallest amount a raise has to add to the current bet
+    public int getMinRaise() {
+        return minRaise;
+    }
+
+    // The smallest total the actor can raise to, getMaxRaiseTo() if they can only go all in
+    public int getMinRaiseTo() {
+        return Math.min(currentBet + minRaise, getMaxRaiseTo());
+    }
+
+    /* The biggest total the actor can raise to: all in, or at a pot-limit table the bet after calling and then
+    raising by the whole pot (which includes the call), whichever is smaller */
+    public int getMaxRaiseTo() {
+        int allIn = streetBets[actor] + stacks[actor];
+
+        return isPotLimit ? Math.min(allIn, currentBet + pot + getToCall()) : allIn;
+    }
+
+    public int getPot() {
+        return pot;
+    }
+
+    public int getStack(int seat) {
+        return stacks[seat];
+    }
+
+    public int getStreetBet(int seat) {
+        return streetBets[seat];
+    }
+
+    public int getHandBet(int seat) {
+        return handBets[seat];
+    }
+
+    public boolean hasFolded(int seat) {
+        return folded[seat];
+    }
+
+    public boolean isAllIn(int seat) {
+        return !folded[seat] && stacks[seat] == 0;
+    }
+
+    public int getNumInHand() {
+        return numInHand;
+    }
+
+    // The street's betting is over once nobody has to act
+    public boolean isStreetOver() {
+        return actor == NONE;
+    }
+
+    // Private helper methods!
+    private void startStreet() {
+        currentBet = 0;
+        minRaise = bigBlind;
+        lastAggressor = NONE;
+
+        for (int seat = 0; seat < numSeats; seat++) {
+            streetBets[seat] = 0;
+            acted[seat] = false;
+        }
+    }
+
+    // Moves chips from a seat's stack into the pot
+    private void put(int seat, int amount) {
+        stacks[seat] -= amount;
+        streetBets[seat] += amount;
+        handBets[seat] += amount;
+        pot += amount;
+
+        if (stacks[seat] == 0 && amount > 0) {
+            numCanAct--;
+        }
+    }
+
+    private void advance() {
+        actor = nextToAct(actor);
+    }
+
+    /* Returns the first seat after the given one that still has to act, or NONE if the street is over
+    A seat has to act if it's in the hand with chips left, and it either owes chips or hasn't acted yet
+    (unless everyone else is all in, in which case there's nobody left to bet against) */
+    private int nextToAct(int after) {
+        if (numInHand < 2) {
+            return NONE;
+        }
+
+        for (int i = 1; i <= numSeats; i++) {
+            int seat = (after + i) % numSeats;
+
+            if (folded[seat] || stacks[seat] == 0) {
+                continue;
+            }
+
+            if (streetBets[seat] < currentBet || (!acted[seat] && numCanAct > 1)) {
+                return seat;
+            }
+        }
+
+        return NONE;
+    }
+
+    // Plays hands of random legal actions for the benchmark, returns the number of actions taken
+    private static long play(BettingRound betting, int[] stacks, SplittableRandom random, int numHands) {
+        long actions = 0;
+
+        for (int hand = 0; hand < numHands; hand++) {
+            for (int seat = 0; seat < stacks.length; seat++) {
+                stacks[seat] = 50 + random.nextInt(200);
+            }
+
+            betting.startHand(stacks, stacks.length, hand % stacks.length, 1, 2);
+
+            for (int street = 0; street < 4 && betting.getNumInHand() > 1; street++) {
+                if (street > 0) {
+                    betting.nextStreet(hand % stacks.length);
+                }
+
+                while (!betting.isStreetOver()) {
+                    int roll = random.nextInt(10);
+
+                    if (roll == 0 && betting.getToCall() > 0) {
+                        betting.fold();
+                    }
+
+                    else if (roll < 3 && betting.canRaise()) {
+                        betting.raiseTo(Math.min(betting.getMinRaiseTo() + random.nextInt(4) * betting.getMinRaise(),
+                                betting.getMaxRaiseTo()));
+                    }
+
+                    else {
+                        betting.call();
+                    }
+
+                    actions++;
+                }
+            }
+        }
+
+        return actions;
+    }
+}
@@ -0,0 +1,74 @@
+/* The BlindSchedule class is a tournament's blind structure: a list of levels that go up every few hands
+Each level's blinds are about 1.5x the last one's, rounded so the big blind stays a nice even number */
+
+
+public final class BlindSchedule {
+    // How much the big blind grows from one level to the next
+    private static final double GROWTH = 1.5;
+
+    private final int[] smallBlinds;
+    private final int[] bigBlinds;
+    private final int handsPerLevel;
+
+    // Constructor, the last level lasts forever
+    public BlindSchedule(int[] smallBlinds, int[] bigBlinds, int handsPerLevel) {
+        if (smallBlinds.length == 0 || smallBlinds.length != bigBlinds.length || handsPerLevel <= 0) {
+            throw new IllegalArgumentException("A schedule needs matching blinds for at least one level");
+        }
+
+        this.smallBlinds = smallBlinds.clone();
+        this.bigBlinds = bigBlinds.clone();
+        this.handsPerLevel = handsPerLevel;
+    }
+
+    // The usual structure: start at the given big blind and multiply it by GROWTH every level
+    public static BlindSchedule standard(int startingBigBlind, int numLevels, int handsPerLevel) {
+        int[] smallBlinds = new int[numLevels];
+        int[] bigBlinds = new int[numLevels];
+        double bigBlind = startingBigBlind;
+
+        for (int level = 0; level < numLevels; level++) {
+            // Round to an even number (2 significant figures) so the small blind is exactly half
+            int magnitude = (int) Math.pow(10, Math.max(0, (int) Math.log10(bigBlind) - 1));
+            int rounded = Math.max(2, (int) Math.round(bigBlind / magnitude) * magnitude);
+
+            bigBlinds[level] = rounded + rounded % 2;
+            smallBlinds[level] = bigBlinds[level] / 2;
+            bigBlind *= GROWTH;
+        }
+
+        return new BlindSchedule(smallBlinds, bigBlinds, handsPerLevel);
+    }
+
+    // Getter methods
+    // The level played on the given hand, hands count from 0
+    public int getLevel(int hand) {
+        return Math.min(hand / handsPerLevel, smallBlinds.length - 1);
+    }
+
+    public int getSmallBlind(int level) {
+        return smallBlinds[level];
+    }
+
+    public int getBigBlind(int level) {
+        return bigBlinds[level];
+    }
+
+    public int getNumLevels() {
+        return smallBlinds.length;
+    }
+
+    public int getHandsPerLevel() {
+        return handsPerLevel;
+    }
+
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+
+        for (int level = 0; level < smallBlinds.length; level++) {
+            string.append(level > 0 ? ", " : "").append(smallBlinds[level]).append('/').append(bigBlinds[level]);
+        }
+
+        return string.append(" (").append(handsPerLevel).append(" hands per level)").toString();
+    }
+}
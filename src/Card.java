@@ -8,6 +8,15 @@ public class Card {
     // Suit of card
     private final int suit;
 
+    // One shared instance per card index, Cards never change so decks can hand these out instead of new ones
+    private static final Card[] CARDS = new Card[HandEvaluator.NUM_CARDS];
+
+    static {
+        for (int index = 0; index < CARDS.length; index++) {
+            CARDS[index] = new Card(HandEvaluator.rankOf(index), HandEvaluator.suitOf(index));
+        }
+    }
+
     // Constructor
     public Card(int rank, int suit) {
         this.rank = rank;
@@ -20,6 +29,11 @@ public class Card {
         suit = copy.getSuit();
     }
 
+    // Returns the shared Card for an index (see getIndex())
+    public static Card of(int index) {
+        return CARDS[index];
+    }
+
     // Getter methods
     public int getRank() {
         return rank;
@@ -29,6 +43,11 @@ public class Card {
         return suit;
     }
 
+    // Compact int form of the card used by HandEvaluator, from 0 (2 of Clubs) to 51 (Ace of Spades)
+    public int getIndex() {
+        return HandEvaluator.index(rank, suit);
+    }
+
     public String getRankAsString() {
         return Constants.RANKS[rank];
     }
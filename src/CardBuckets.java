@@ -0,0 +1,594 @@
+/* The CardBuckets class is a card abstraction for one street: every hole card + board situation, up to suit swaps
+(see HandIndexer), mapped to one of a few buckets of situations that play alike. Strategy tables can then have one
+entry per bucket instead of one per situation. main() builds one and saves it, load() reads it back, and getBucket()
+looks a situation up with one HandIndexer.index() and one array read
+
+Situations are grouped by their equity histogram: the chance of beating one random holding on the river (HS),
+counted over every turn and river still to come, in NUM_BINS bins. Two hands with the same average can play very
+differently (a flush draw is mostly a miss with a few big hits, a weak pair is always middling), which the histogram
+keeps apart. The distance between two histograms is the earth mover's distance, for one dimension just the sum of
+the gaps between their cumulative histograms, so each situation is stored as its cumulative histogram
+
+Building a file:
+1. Work is split by board: all 1,326 hole card pairs share a board's run-outs, so every full board is scored once,
+   with every holding's strength sorted so each pair's HS is a walk through the list (see BoardWork)
+2. Mini-batch k-means: each round scores a few random boards, then nudges each situation's nearest center toward it
+   by 1 / (situations that center has taken so far), so memory only ever holds one batch
+3. Every situation is put in its nearest center's bucket, and buckets are numbered by average equity (0 = weakest)
+Boards are scored across a ForkJoinPool, a task per board (or per few boards when assigning), and only the boards that
+are different up to suit swaps are dealt (1,755 flops, 16,432 turns, 134,459 rivers)
+
+File format: magic, board cards (3-5), bucket count, situations, then one bucket byte per situation by its index */
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+public final class CardBuckets {
+    // Identifies bucket files
+    public static final int MAGIC = 0x424B5431;
+
+    // Bins of each equity histogram, 0-2%, 2-4%, ... 98-100%
+    private static final int NUM_BINS = 50;
+
+    // Hole card pairs of a deck, and the opponent holdings left once a full board and the hole cards are out
+    private static final int NUM_PAIRS = HandEvaluator.NUM_CARDS * (HandEvaluator.NUM_CARDS - 1) / 2;
+    private static final int NUM_OPPONENTS = 45 * 44 / 2;
+
+    // Boards scored in each round of mini-batch k-means
+    private static final int BATCH_BOARDS = 16;
+
+    // Situations sampled from the first batch to pick the starting centers from (k-means++)
+    private static final int SEED_SAMPLES = 4000;
+
+    // Bits of a sorted holding entry that hold the holding, the strength is above them
+    private static final int HOLDING_BITS = 11;
+
+    // Boards each assignment task deals one after another, reusing its arrays
+    private static final int BOARDS_PER_TASK = 16;
+
+    // The two cards of each pair number (second * (second - 1) / 2 + first, for cards first < second)
+    private static final byte[] FIRST_CARD = new byte[NUM_PAIRS];
+    private static final byte[] SECOND_CARD = new byte[NUM_PAIRS];
+
+    static {
+        for (int second = 1, pair = 0; second < HandEvaluator.NUM_CARDS; second++) {
+            for (int first = 0; first < second; first++, pair++) {
+                FIRST_CARD[pair] = (byte) first;
+                SECOND_CARD[pair] = (byte) second;
+            }
+        }
+    }
+
+    private final int numBoardCards;
+    private final int numBuckets;
+    private final HandIndexer indexer;
+    private final byte[] buckets;
+
+    // Private constructor, use load() or main() instead
+    private CardBuckets(int numBoardCards, int numBuckets, byte[] buckets) {
+        this.numBoardCards = numBoardCards;
+        this.numBuckets = numBuckets;
+        this.buckets = buckets;
+
+        indexer = new HandIndexer(2, numBoardCards);
+    }
+
+    /* Arguments: the street (flop, turn, or river), then optionally the bucket count, where to save the file, how
+    many rounds of mini-batch k-means to run, and how many threads to use
+    e.g. "java CardBuckets flop 50 flop_buckets.bin 200 32" */
+    public static void main(String[] args) throws IOException {
+        String street = args.length > 0 ? args[0] : "flop";
+        int numBoardCards = boardCards(street);
+        int numBuckets = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        String path = args.length > 2 ? args[2] : String.format(Constants.BUCKETS_FILE, street.toLowerCase());
+        int numRounds = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        int numThreads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        if (numBuckets < 1 || numBuckets > 256) {
+            throw new IllegalArgumentException("The bucket count has to be 1-256, it's saved as one byte");
+        }
+
+        HandIndexer boards = new HandIndexer(numBoardCards);
+        HandIndexer situations = new HandIndexer(2, numBoardCards);
+
+        System.out.printf("%d boards, %d situations, %d buckets, running on %d threads%n", boards.size(),
+                situations.size(), numBuckets, numThreads);
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+
+        try {
+            float[] centers = cluster(boards, numBoardCards, numBuckets, numRounds, pool, new SplittableRandom(1));
+            System.out.printf("Clustered in %.1f seconds%n", (System.nanoTime() - start) / 1e9);
+
+            byte[] buckets = new byte[Math.toIntExact(situations.size())];
+            pool.invoke(new AssignTask(boards, 0, boards.size(), numBoardCards, centers, situations, buckets));
+
+            new CardBuckets(numBoardCards, numBuckets, buckets).save(path);
+        }
+
+        finally {
+            pool.shutdown();
+        }
+
+        System.out.printf("Finished in %.1f seconds, saved to %s%n", (System.nanoTime() - start) / 1e9, path);
+    }
+
+    // Loads a file saved by main()
+    public static CardBuckets load(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " isn't a CardBuckets file");
+            }
+
+            int numBoardCards = in.readInt();
+            int numBuckets = in.readInt();
+            long numSituations = in.readLong();
+
+            if (numBoardCards < 3 || numBoardCards > 5
+                    || numSituations != new HandIndexer(2, numBoardCards).size()) {
+                throw new IOException(path + " doesn't match this version's situation numbering");
+            }
+
+            byte[] buckets = new byte[(int) numSituations];
+            in.readFully(buckets);
+
+            return new CardBuckets(numBoardCards, numBuckets, buckets);
+        }
+    }
+
+    /* Returns the bucket of a situation, 0 (weakest) to getNumBuckets() - 1
+    Parameter cards: the two hole cards followed by the board, getNumBoardCards() of them, as HandEvaluator indices */
+    public int getBucket(int[] cards) {
+        return buckets[(int) indexer.index(cards)] & 0xFF;
+    }
+
+    // Getter methods
+    // The street the file covers, as how many board cards it has (3 = flop, 4 = turn, 5 = river)
+    public int getNumBoardCards() {
+        return numBoardCards;
+    }
+
+    public int getNumBuckets() {
+        return numBuckets;
+    }
+
+    // Private helper methods!
+    // Board cards on a street, by name
+    private static int boardCards(String street) {
+        switch (street.toLowerCase()) {
+            case "flop":
+                return 3;
+
+            case "turn":
+                return 4;
+
+            case "river":
+                return 5;
+
+            default:
+                throw new IllegalArgumentException("Unknown street \"" + street + "\", expected flop, turn, or river");
+        }
+    }
+
+    private void save(String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(numBoardCards);
+            out.writeInt(numBuckets);
+            out.writeLong(buckets.length);
+            out.write(buckets);
+        }
+    }
+
+    /* Mini-batch k-means over the cumulative histograms of random boards' situations, returns the centers (NUM_BINS
+    floats each) ordered by average equity, weakest first */
+    private static float[] cluster(HandIndexer boards, int numBoardCards, int numBuckets, int numRounds,
+                                   ForkJoinPool pool, SplittableRandom random) {
+        float[] centers = null;
+        long[] taken = new long[numBuckets];
+
+        for (int round = 0; round <= numRounds; round++) {
+            List<BoardWork> batch = new ArrayList<>();
+
+            for (int i = 0; i < BATCH_BOARDS; i++) {
+                BoardWork work = new BoardWork(boards, numBoardCards, centers);
+                work.deal(random.nextLong(boards.size()));
+                batch.add(work);
+            }
+
+            pool.invoke(new RecursiveAction() {
+                protected void compute() {
+                    invokeAll(batch);
+                }
+            });
+
+            // The first batch only picks where the centers start
+            if (centers == null) {
+                centers = seedCenters(batch, numBuckets, random);
+                continue;
+            }
+
+            for (BoardWork work : batch) {
+                for (int pair = 0; pair < NUM_PAIRS; pair++) {
+                    int center = work.nearest[pair];
+
+                    if (center < 0) {
+                        continue;
+                    }
+
+                    float rate = 1f / ++taken[center];
+
+                    for (int bin = 0; bin < NUM_BINS; bin++) {
+                        int i = center * NUM_BINS + bin;
+                        centers[i] += rate * (work.cdfs[pair * NUM_BINS + bin] - centers[i]);
+                    }
+                }
+            }
+        }
+
+        return sortByEquity(centers, numBuckets);
+    }
+
+    // k-means++: each center after a random first one is a situation picked with chance by its squared distance
+    private static float[] seedCenters(List<BoardWork> batch, int numBuckets, SplittableRandom random) {
+        List<float[]> points = new ArrayList<>();
+
+        for (BoardWork work : batch) {
+            for (int pair = 0; pair < NUM_PAIRS; pair++) {
+                if (work.nearest[pair] != BoardWork.NOT_DEALT) {
+                    points.add(Arrays.copyOfRange(work.cdfs, pair * NUM_BINS, (pair + 1) * NUM_BINS));
+                }
+            }
+        }
+
+        // A random sample is plenty to spread the starting centers out
+        while (points.size() > SEED_SAMPLES) {
+            points.set(random.nextInt(points.size()), points.get(points.size() - 1));
+            points.remove(points.size() - 1);
+        }
+
+        float[] centers = new float[numBuckets * NUM_BINS];
+        double[] closest = new double[points.size()];
+        Arrays.fill(closest, Double.MAX_VALUE);
+
+        float[] next = points.get(random.nextInt(points.size()));
+
+        for (int center = 0; center < numBuckets; center++) {
+            System.arraycopy(next, 0, centers, center * NUM_BINS, NUM_BINS);
+
+            double total = 0;
+
+            for (int i = 0; i < points.size(); i++) {
+                double distance = distance(points.get(i), 0, centers, center);
+                closest[i] = Math.min(closest[i], distance * distance);
+                total += closest[i];
+            }
+
+            double roll = random.nextDouble() * total;
+
+            for (int i = 0; i < points.size() && roll >= 0; i++) {
+                roll -= closest[i];
+                next = points.get(i);
+            }
+        }
+
+        return centers;
+    }
+
+    // Reorders the centers from the lowest average equity to the highest, so bucket numbers mean something
+    private static float[] sortByEquity(float[] centers, int numBuckets) {
+        Integer[] order = new Integer[numBuckets];
+
+        for (int i = 0; i < numBuckets; i++) {
+            order[i] = i;
+        }
+
+        Arrays.sort(order, (a, b) -> Double.compare(averageEquity(centers, a), averageEquity(centers, b)));
+
+        float[] sorted = new float[centers.length];
+
+        for (int i = 0; i < numBuckets; i++) {
+            System.arraycopy(centers, order[i] * NUM_BINS, sorted, i * NUM_BINS, NUM_BINS);
+        }
+
+        return sorted;
+    }
+
+    // The average HS of a cumulative histogram, with each bin counted at its middle
+    private static double averageEquity(float[] centers, int center) {
+        double below = 0;
+
+        for (int bin = 0; bin < NUM_BINS; bin++) {
+            below += centers[center * NUM_BINS + bin];
+        }
+
+        return 1 - (below - .5) / NUM_BINS;
+    }
+
+    // Earth mover's distance between a cumulative histogram at cdfs[from] and a center
+    private static double distance(float[] cdfs, int from, float[] centers, int center) {
+        double distance = 0;
+
+        for (int bin = 0; bin < NUM_BINS; bin++) {
+            distance += Math.abs(cdfs[from + bin] - centers[center * NUM_BINS + bin]);
+        }
+
+        return distance;
+    }
+
+    /* Puts every situation of the boards with indices [from, to) into its nearest center's bucket, splitting the
+    range in half until it's BOARDS_PER_TASK boards or fewer */
+    private static final class AssignTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final HandIndexer boards;
+        private final long from;
+        private final long to;
+        private final int numBoardCards;
+        private final float[] centers;
+        private final HandIndexer situations;
+        private final byte[] buckets;
+
+        // Constructor
+        AssignTask(HandIndexer boards, long from, long to, int numBoardCards, float[] centers,
+                   HandIndexer situations, byte[] buckets) {
+            this.boards = boards;
+            this.from = from;
+            this.to = to;
+            this.numBoardCards = numBoardCards;
+            this.centers = centers;
+            this.situations = situations;
+            this.buckets = buckets;
+        }
+
+        protected void compute() {
+            if (to - from > BOARDS_PER_TASK) {
+                long middle = (from + to) >>> 1;
+
+                invokeAll(new AssignTask(boards, from, middle, numBoardCards, centers, situations, buckets),
+                        new AssignTask(boards, middle, to, numBoardCards, centers, situations, buckets));
+                return;
+            }
+
+            BoardWork work = new BoardWork(boards, numBoardCards, centers);
+            int[] cards = new int[2 + numBoardCards];
+
+            for (long board = from; board < to; board++) {
+                work.deal(board);
+                work.compute();
+                System.arraycopy(work.board, 0, cards, 2, numBoardCards);
+
+                /* Boards that stay the same under a suit swap reach some situations twice, from hole cards that are
+                the same swap apart. Those have the same histogram, so both writes agree */
+                for (int pair = 0; pair < NUM_PAIRS; pair++) {
+                    if (work.nearest[pair] >= 0) {
+                        cards[0] = FIRST_CARD[pair];
+                        cards[1] = SECOND_CARD[pair];
+                        buckets[(int) situations.index(cards)] = (byte) work.nearest[pair];
+                    }
+                }
+            }
+        }
+    }
+
+    /* Works out the cumulative equity histogram of every hole card pair on one board, then its nearest center
+    deal() picks the board, and the same arrays are reused board after board */
+    private static final class BoardWork extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // nearest[] for pairs that clash with the board, and for every pair before there are any centers
+        static final int NOT_DEALT = -1;
+        static final int NO_CENTERS = -2;
+
+        private final HandIndexer boards;
+        private final int numBoardCards;
+        private final float[] centers;
+
+        // The board's cards, then room for the run-out
+        private final int[] board = new int[Constants.TOTAL_CARDS - 2];
+
+        // Each pair's cumulative histogram (NUM_BINS floats), and its nearest center
+        private final float[] cdfs = new float[NUM_PAIRS * NUM_BINS];
+        private final int[] nearest = new int[NUM_PAIRS];
+
+        // Run-outs that landed in each pair's bins, and how many each pair was dealt
+        private final int[] counts = new int[NUM_PAIRS * NUM_BINS];
+        private final int[] numRunOuts = new int[NUM_PAIRS];
+
+        // The holdings on one full board as strength << HOLDING_BITS | pair, then sorted weakest first
+        private final long[] holdings = new long[NUM_PAIRS];
+
+        // Holdings with each card weaker than the one being looked at, and with the same strength
+        private final int[] cardBelow = new int[HandEvaluator.NUM_CARDS];
+        private final int[] cardTied = new int[HandEvaluator.NUM_CARDS];
+
+        /* A pair with a single run-out (on the river) has all of its histogram in one bin, and every such pair in that
+        bin has the same nearest center: nearestByBin[bin], NO_CENTERS until it's worked out */
+        private final int[] nearestByBin = new int[NUM_BINS];
+
+        // Constructor
+        BoardWork(HandIndexer boards, int numBoardCards, float[] centers) {
+            this.boards = boards;
+            this.numBoardCards = numBoardCards;
+            this.centers = centers;
+
+            Arrays.fill(nearestByBin, NO_CENTERS);
+        }
+
+        // Starts over on the board with the given index
+        void deal(long index) {
+            boards.unindex(index, board);
+            Arrays.fill(counts, 0);
+            Arrays.fill(numRunOuts, 0);
+        }
+
+        protected void compute() {
+            long dead = 0;
+
+            for (int i = 0; i < numBoardCards; i++) {
+                dead |= 1L << board[i];
+            }
+
+            // Every run-out of the cards still to come, dealt in increasing order so each set is dealt once
+            runOut(numBoardCards, 0, dead);
+
+            for (int pair = 0; pair < NUM_PAIRS; pair++) {
+                if (numRunOuts[pair] == 0) {
+                    nearest[pair] = NOT_DEALT;
+                    continue;
+                }
+
+                float cumulative = 0;
+
+                for (int bin = 0; bin < NUM_BINS; bin++) {
+                    cumulative += counts[pair * NUM_BINS + bin];
+                    cdfs[pair * NUM_BINS + bin] = cumulative / numRunOuts[pair];
+                }
+
+                if (centers == null) {
+                    nearest[pair] = NO_CENTERS;
+                }
+
+                else if (numRunOuts[pair] == 1) {
+                    int bin = 0;
+
+                    while (cdfs[pair * NUM_BINS + bin] == 0) {
+                        bin++;
+                    }
+
+                    if (nearestByBin[bin] == NO_CENTERS) {
+                        nearestByBin[bin] = nearestCenter(pair);
+                    }
+
+                    nearest[pair] = nearestByBin[bin];
+                }
+
+                else {
+                    nearest[pair] = nearestCenter(pair);
+                }
+            }
+        }
+
+        private void runOut(int numCards, int from, long dead) {
+            if (numCards == board.length) {
+                scoreBoard(dead);
+                return;
+            }
+
+            for (int card = from; card < HandEvaluator.NUM_CARDS; card++) {
+                if ((dead & 1L << card) == 0) {
+                    board[numCards] = card;
+                    runOut(numCards + 1, card + 1, dead | 1L << card);
+                }
+            }
+        }
+
+        /* Scores every holding on the full board, then walks them weakest first: a pair beats the holdings below it
+        and ties the ones level with it, less the ones that share a card with it */
+        private void scoreBoard(long dead) {
+            int one = 0;
+            int two = 0;
+            int three = 0;
+            int four = 0;
+            long suits = 0;
+
+            for (int card : board) {
+                int bit = 1 << (card >> 2);
+
+                suits |= (long) bit << ((card & 3) << 4);
+                four |= three & bit;
+                three |= two & bit;
+                two |= one & bit;
+                one |= bit;
+            }
+
+            int numHoldings = 0;
+
+            for (int second = 1, pair = 0; second < HandEvaluator.NUM_CARDS; second++) {
+                for (int first = 0; first < second; first++, pair++) {
+                    if ((dead & (1L << first | 1L << second)) != 0) {
+                        continue;
+                    }
+
+                    // The board's masks with the pair's two cards added, the way HandEvaluator adds them
+                    int firstBit = 1 << (first >> 2);
+                    int secondBit = 1 << (second >> 2);
+                    int withFirst = two | one & firstBit;
+                    int strength = HandEvaluator.evaluate(one | firstBit | secondBit,
+                            withFirst | (one | firstBit) & secondBit,
+                            three | two & firstBit | withFirst & secondBit,
+                            four | three & firstBit | (three | two & firstBit) & secondBit,
+                            suits | (long) firstBit << ((first & 3) << 4) | (long) secondBit << ((second & 3) << 4));
+                    holdings[numHoldings++] = (long) strength << HOLDING_BITS | pair;
+                }
+            }
+
+            Arrays.sort(holdings, 0, numHoldings);
+            Arrays.fill(cardBelow, 0);
+            int below = 0;
+
+            for (int start = 0, end; start < numHoldings; start = end) {
+                long strength = holdings[start] >>> HOLDING_BITS;
+                end = start;
+
+                while (end < numHoldings && holdings[end] >>> HOLDING_BITS == strength) {
+                    int pair = (int) holdings[end++] & (1 << HOLDING_BITS) - 1;
+                    cardTied[SECOND_CARD[pair]]++;
+                    cardTied[FIRST_CARD[pair]]++;
+                }
+
+                for (int i = start; i < end; i++) {
+                    int pair = (int) holdings[i] & (1 << HOLDING_BITS) - 1;
+                    int first = FIRST_CARD[pair];
+                    int second = SECOND_CARD[pair];
+
+                    // The pair itself shares both cards, so it's taken off twice among the ties and added back once
+                    int wins = below - cardBelow[first] - cardBelow[second];
+                    int ties = end - start - cardTied[first] - cardTied[second] + 1;
+                    double handStrength = (wins + ties / 2.0) / NUM_OPPONENTS;
+
+                    counts[pair * NUM_BINS + Math.min(NUM_BINS - 1, (int) (handStrength * NUM_BINS))]++;
+                    numRunOuts[pair]++;
+                }
+
+                for (int i = start; i < end; i++) {
+                    int pair = (int) holdings[i] & (1 << HOLDING_BITS) - 1;
+                    cardTied[FIRST_CARD[pair]] = 0;
+                    cardTied[SECOND_CARD[pair]] = 0;
+                    cardBelow[FIRST_CARD[pair]]++;
+                    cardBelow[SECOND_CARD[pair]]++;
+                }
+
+                below += end - start;
+            }
+        }
+
+        private int nearestCenter(int pair) {
+            int best = 0;
+            double bestDistance = Double.MAX_VALUE;
+
+            for (int center = 0; center < centers.length / NUM_BINS; center++) {
+                double distance = distance(cdfs, pair * NUM_BINS, centers, center);
+
+                if (distance < bestDistance) {
+                    best = center;
+                    bestDistance = distance;
+                }
+            }
+
+            return best;
+        }
+    }
+}
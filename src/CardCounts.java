@@ -0,0 +1,124 @@
+/* The CardCounts class is what's left of a shoe of one or more decks, as a count of copies per card index instead of
+a list of Cards, so a run-out is looked at once however many copies of it there are and weighted by that number
+With one deck every count is 0 or 1 and every weight comes out as 0 or 1, so single deck code needs no special case
+A short deck is the same, with the cards below its lowest rank never put in */
+
+
+public final class CardCounts {
+    private final int numDecks;
+
+    // Cards with a lower index than this aren't in the shoe (the ranks below the lowest one)
+    private final int lowestCard;
+
+    // Copies of each card index still unseen, and their total
+    private final int[] counts = new int[HandEvaluator.NUM_CARDS];
+    private int total;
+
+    // Constructor, starts out as a full shoe
+    public CardCounts(int numDecks) {
+        this(numDecks, 2);
+    }
+
+    // Second constructor, for decks without the ranks below lowestRank (6 in short deck)
+    public CardCounts(int numDecks, int lowestRank) {
+        if (numDecks < 1) {
+            throw new IllegalArgumentException("A shoe needs at least one deck, not " + numDecks);
+        }
+
+        this.numDecks = numDecks;
+        lowestCard = HandEvaluator.index(lowestRank, Constants.CLUBS);
+        fill();
+    }
+
+    // Puts every copy of every card back
+    public void fill() {
+        for (int card = lowestCard; card < HandEvaluator.NUM_CARDS; card++) {
+            counts[card] = numDecks;
+        }
+
+        total = numDecks * (HandEvaluator.NUM_CARDS - lowestCard);
+    }
+
+    // Takes one copy of a card out, throws an IllegalStateException if there isn't one left
+    public void remove(int card) {
+        if (counts[card] == 0) {
+            throw new IllegalStateException("No copies of card " + card + " left in " + numDecks + " deck(s)");
+        }
+
+        counts[card]--;
+        total--;
+    }
+
+    // Getter methods
+    public int getNumDecks() {
+        return numDecks;
+    }
+
+    public int get(int card) {
+        return counts[card];
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    // Number of card indices with at least one copy left
+    public int getNumDistinct() {
+        int numDistinct = 0;
+
+        for (int card = 0; card < HandEvaluator.NUM_CARDS; card++) {
+            numDistinct += counts[card] > 0 ? 1 : 0;
+        }
+
+        return numDistinct;
+    }
+
+    /* Returns how many ways the two cards can be drawn together: one copy of each, or two copies when they're the
+    same card (0 if there aren't enough left) */
+    public int pairWeight(int first, int second) {
+        return first == second ? counts[first] * (counts[first] - 1) / 2 : counts[first] * counts[second];
+    }
+
+    // Number of distinct pairs (counting a card paired with itself) that can still be drawn, i.e. pairWeight() > 0
+    public int getNumDistinctPairs() {
+        int numDistinct = 0;
+        int numDoubled = 0;
+
+        for (int card = 0; card < HandEvaluator.NUM_CARDS; card++) {
+            numDistinct += counts[card] > 0 ? 1 : 0;
+            numDoubled += counts[card] > 1 ? 1 : 0;
+        }
+
+        return numDistinct * (numDistinct - 1) / 2 + numDoubled;
+    }
+
+    // Returns the biggest pairWeight() of any two cards
+    public int getMaxPairWeight() {
+        int most = 0;
+        int second = 0;
+
+        for (int card = 0; card < HandEvaluator.NUM_CARDS; card++) {
+            if (counts[card] > most) {
+                second = most;
+                most = counts[card];
+            }
+
+            else if (counts[card] > second) {
+                second = counts[card];
+            }
+        }
+
+        return Math.max(most * second, most * (most - 1) / 2);
+    }
+
+    // Returns the biggest count of any one card
+    public int getMaxCount() {
+        int most = 0;
+
+        for (int card = 0; card < HandEvaluator.NUM_CARDS; card++) {
+            most = Math.max(most, counts[card]);
+        }
+
+        return most;
+    }
+}
@@ -0,0 +1,491 @@
+/* The CfrSolver class computes a heads-up strategy with counterfactual regret minimization (CFR+)
+Real Texas Hold 'em is far too big to solve directly, so the solver plays an abstracted version of it:
+1. Betting uses the game's real blinds and streets (Constants.SMALL_BLIND, BIG_BLIND, COMMUNITY_CARDS), but every bet or
+   raise is a fixed size (a big blind on the first two streets, two on the last two) and each street is capped at
+   MAX_BETS bets, like limit poker
+2. Cards are grouped into buckets by hand strength (see HandEvaluator), so hands that play alike share one strategy
+3. A decision point is identified by its street, the number of bets so far on that street, whether the player is
+   facing a bet, and the player's bucket. The earlier betting isn't remembered, which keeps the table tiny and lets
+   CfrStrategy look up a live decision in constant time
+
+Each iteration deals one random hand (chance sampling), then walks the betting tree once per player, exploring
+every action of the player being updated and sampling the opponent's (external sampling)
+The regret and strategy tables are primitive doubles stored off-heap, shared by every worker thread without locks:
+two threads occasionally overwriting each other's update only adds a little noise, which CFR averages out */
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+public class CfrSolver {
+    // Actions, also the order of probabilities in the strategy file
+    public static final int FOLD = 0;
+    public static final int CALL = 1;
+    public static final int RAISE = 2;
+    public static final int NUM_ACTIONS = 3;
+
+    // Most bets allowed on one street (the big blind counts as the first bet pre-flop)
+    public static final int MAX_BETS = 4;
+
+    // Pre-flop + one street for every entry of Constants.COMMUNITY_CARDS
+    public static final int NUM_STREETS = Constants.COMMUNITY_CARDS.length + 1;
+
+    // Identifies strategy files
+    public static final int MAGIC = 0x43465231;
+
+    private final int numBuckets;
+
+    // Pre-flop bucket of each of the 169 starting hand classes
+    private final byte[] preFlopBuckets;
+
+    // NUM_ACTIONS entries per information set, off-heap
+    private final DoubleBuffer regrets;
+    private final DoubleBuffer strategySums;
+
+    private final AtomicLong iterations;
+
+    // Constructor
+    public CfrSolver(int numBuckets) {
+        this.numBuckets = numBuckets;
+
+        preFlopBuckets = preFlopBuckets(numBuckets);
+
+        int size = numInfoSets(numBuckets) * NUM_ACTIONS;
+        regrets = ByteBuffer.allocateDirect(size * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        strategySums = ByteBuffer.allocateDirect(size * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+
+        iterations = new AtomicLong();
+    }
+
+    /* Optional arguments: iterations, buckets per street, threads, and where to save the strategy
+    e.g. "java CfrSolver 2000000 8 4 cfr_strategy.bin"
+    "seed=123" deals with a fixed seed, every run prints the seed it used. On one thread that solves the same strategy
+    again, on more the threads' deals are the same but their updates interleave differently */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ArrayList<String> positional = new ArrayList<>();
+        long seed = System.nanoTime();
+
+        for (String arg : args) {
+            if (arg.startsWith("seed=")) {
+                seed = Long.parseLong(arg.substring(5));
+            }
+
+            else {
+                positional.add(arg);
+            }
+        }
+
+        long numIterations = positional.size() > 0 ? Long.parseLong(positional.get(0)) : 1000000;
+        int numBuckets = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 8;
+        int numThreads = positional.size() > 2 ? Integer.parseInt(positional.get(2))
+                : Runtime.getRuntime().availableProcessors();
+        String path = positional.size() > 3 ? positional.get(3) : Constants.CFR_STRATEGY_FILE;
+
+        CfrSolver solver = new CfrSolver(numBuckets);
+
+        System.out.println("Seed: " + seed);
+
+        long start = System.nanoTime();
+        solver.solve(numIterations, numThreads, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        solver.save(path);
+
+        System.out.printf("Ran %d iterations on %d threads in %.1f seconds (%.0f iterations/second), saved to %s%n",
+                numIterations, numThreads, seconds, numIterations / seconds, path);
+    }
+
+    // Runs numIterations iterations split across numThreads threads, each dealing from its own stream split off seed
+    public void solve(long numIterations, int numThreads, long seed) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        SplittableRandom seeds = new SplittableRandom(seed);
+
+        for (int t = 0; t < numThreads; t++) {
+            SplittableRandom random = seeds.split();
+
+            Thread thread = new Thread(() -> {
+                Worker worker = new Worker(random);
+
+                while (iterations.getAndIncrement() < numIterations) {
+                    iterate(worker);
+                }
+            });
+
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /* Saves the average strategy, which is what converges to equilibrium (the current strategy doesn't)
+    Format: magic, bucket count, MAX_BETS, NUM_STREETS, the 169 pre-flop buckets, then one float per action of
+    every information set */
+    public void save(String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(numBuckets);
+            out.writeInt(MAX_BETS);
+            out.writeInt(NUM_STREETS);
+            out.write(preFlopBuckets);
+
+            double[] probabilities = new double[NUM_ACTIONS];
+
+            for (int infoSet = 0; infoSet < numInfoSets(numBuckets); infoSet++) {
+                averageStrategy(infoSet, probabilities);
+
+                for (double probability : probabilities) {
+                    out.writeFloat((float) probability);
+                }
+            }
+        }
+    }
+
+    // Static helper methods, shared with CfrStrategy so live decisions are abstracted the same way
+    // Number of information sets for a bucket count
+    public static int numInfoSets(int numBuckets) {
+        return NUM_STREETS * (MAX_BETS + 1) * 2 * numBuckets;
+    }
+
+    // Index of an information set, each one has NUM_ACTIONS entries starting at index * NUM_ACTIONS
+    public static int infoSet(int street, int bets, boolean facingBet, int bucket, int numBuckets) {
+        return ((street * (MAX_BETS + 1) + bets) * 2 + (facingBet ? 1 : 0)) * numBuckets + bucket;
+    }
+
+    // Size of every bet or raise on a street
+    public static int betSize(int street) {
+        return street < 2 ? Constants.BIG_BLIND : 2 * Constants.BIG_BLIND;
+    }
+
+    // Whether an action can be taken at a decision point
+    public static boolean isLegal(int action, int bets, boolean facingBet) {
+        if (action == FOLD) {
+            return facingBet;
+        }
+
+        return action == CALL || bets < MAX_BETS;
+    }
+
+    /* Returns the post-flop bucket of a hand, 0 = weakest
+    Buckets split the chance of beating every opponent evenly, so against more than one opponent the same hand
+    lands in a lower bucket, a cheap way to stretch a heads-up strategy to short-handed tables */
+    public static int bucket(double handStrength, int numOpponents, int numBuckets) {
+        double strength = Math.pow(handStrength, Math.max(1, numOpponents));
+
+        return Math.min(numBuckets - 1, (int) (strength * numBuckets));
+    }
+
+    /* Returns the chance that a hand beats one random opponent on the current board, counting ties as half
+    Enumerates every two cards the opponent could hold
+
+    Parameter cards: the two hole cards followed by the board, as HandEvaluator indices
+    Parameter scratch: an array of at least the same size to build opponent hands in, so nothing is allocated */
+    public static double handStrength(int[] cards, int numCards, int[] scratch) {
+        long used = 0;
+
+        for (int i = 0; i < numCards; i++) {
+            used |= 1L << cards[i];
+            scratch[i] = cards[i];
+        }
+
+        int strength = HandEvaluator.evaluate(cards, numCards);
+        double wins = 0;
+        int total = 0;
+
+        for (int first = 0; first < HandEvaluator.NUM_CARDS; first++) {
+            if ((used & 1L << first) != 0) {
+                continue;
+            }
+
+            scratch[0] = first;
+
+            for (int second = first + 1; second < HandEvaluator.NUM_CARDS; second++) {
+                if ((used & 1L << second) != 0) {
+                    continue;
+                }
+
+                scratch[1] = second;
+                int theirs = HandEvaluator.evaluate(scratch, numCards);
+
+                if (strength > theirs) {
+                    wins++;
+                }
+
+                else if (strength == theirs) {
+                    wins += .5;
+                }
+
+                total++;
+            }
+        }
+
+        return wins / total;
+    }
+
+    /* Splits the 169 starting hand classes into buckets with the same number of classes each, weakest first
+    StartingHands.strengthOrder() is deterministic, so every run buckets the same way */
+    public static byte[] preFlopBuckets(int numBuckets) {
+        int[] order = StartingHands.strengthOrder();
+        byte[] buckets = new byte[StartingHands.NUM_CLASSES];
+
+        for (int rank = 0; rank < order.length; rank++) {
+            // order is strongest first, bucket 0 is the weakest
+            buckets[order[order.length - 1 - rank]] = (byte) (rank * numBuckets / order.length);
+        }
+
+        return buckets;
+    }
+
+    // Private helper methods!
+    // One iteration: deal a random hand, then update each player's regrets
+    private void iterate(Worker worker) {
+        worker.deal();
+
+        for (int traverser = 0; traverser < 2; traverser++) {
+            // Player 0 is the small blind and acts first pre-flop
+            traverse(worker, traverser, 0, 1, 0, 0, Constants.SMALL_BLIND, Constants.BIG_BLIND, 0);
+        }
+    }
+
+    /* Walks the betting tree from one decision point, returns the traverser's expected winnings from there
+
+    Parameter street: 0 = pre-flop, then one per Constants.COMMUNITY_CARDS entry
+    Parameter bets: bets made on this street so far
+    Parameter toAct: the player making this decision (0 or 1)
+    Parameter numActions: decisions already made on this street
+    Parameter first, second: how much each player has put into the pot
+    Parameter depth: decisions made so far this hand, picks the worker's scratch arrays */
+    private double traverse(Worker worker, int traverser, int street, int bets, int toAct, int numActions,
+                            int first, int second, int depth) {
+        int mine = toAct == 0 ? first : second;
+        int theirs = toAct == 0 ? second : first;
+        boolean facingBet = mine < theirs;
+
+        int offset = infoSet(street, bets, facingBet, worker.buckets[toAct][street], numBuckets) * NUM_ACTIONS;
+        double[] strategy = worker.strategies[depth];
+        currentStrategy(offset, bets, facingBet, strategy);
+
+        // The opponent's decision is sampled, and their average strategy gets credit for what they'd play
+        if (toAct != traverser) {
+            double roll = worker.random.nextDouble();
+            int sampled = CALL;
+
+            for (int action = 0; action < NUM_ACTIONS; action++) {
+                if (strategy[action] > 0) {
+                    strategySums.put(offset + action, strategySums.get(offset + action) + strategy[action]);
+                }
+            }
+
+            for (int action = 0; action < NUM_ACTIONS; action++) {
+                roll -= strategy[action];
+
+                if (strategy[action] > 0 && roll < 0) {
+                    sampled = action;
+                    break;
+                }
+            }
+
+            return act(worker, traverser, street, bets, toAct, numActions, first, second, sampled, depth);
+        }
+
+        // The traverser's decision: try every action, then update how much each one would have been better
+        double[] values = worker.values[depth];
+        double nodeValue = 0;
+
+        for (int action = 0; action < NUM_ACTIONS; action++) {
+            if (isLegal(action, bets, facingBet)) {
+                values[action] = act(worker, traverser, street, bets, toAct, numActions, first, second, action, depth);
+                nodeValue += strategy[action] * values[action];
+            }
+        }
+
+        for (int action = 0; action < NUM_ACTIONS; action++) {
+            if (isLegal(action, bets, facingBet)) {
+                // CFR+: regrets never go below zero, so good actions recover quickly after a bad stretch
+                double regret = regrets.get(offset + action) + values[action] - nodeValue;
+                regrets.put(offset + action, Math.max(0, regret));
+            }
+        }
+
+        return nodeValue;
+    }
+
+    // Applies an action and continues the walk, returns the traverser's expected winnings
+    private double act(Worker worker, int traverser, int street, int bets, int toAct, int numActions,
+                       int first, int second, int action, int depth) {
+        int mine = toAct == 0 ? first : second;
+        int theirs = toAct == 0 ? second : first;
+
+        if (action == FOLD) {
+            // The folding player loses what they put in, the other player wins it
+            return toAct == traverser ? -mine : mine;
+        }
+
+        if (action == RAISE) {
+            int raised = theirs + betSize(street);
+
+            return traverse(worker, traverser, street, bets + 1, 1 - toAct, numActions + 1,
+                    toAct == 0 ? raised : first, toAct == 0 ? second : raised, depth + 1);
+        }
+
+        // Calling matches the bet, checking changes nothing
+        boolean facingBet = mine < theirs;
+        first = Math.max(first, second);
+        second = first;
+
+        /* The street continues if this was the first check, or the small blind just completing pre-flop
+        (the big blind still gets their option) */
+        if (numActions == 0 && (!facingBet || street == 0)) {
+            return traverse(worker, traverser, street, bets, 1 - toAct, numActions + 1, first, second, depth + 1);
+        }
+
+        // Street's over: deal the next one, where the big blind acts first
+        if (street < NUM_STREETS - 1) {
+            return traverse(worker, traverser, street + 1, 0, 1, 0, first, second, depth + 1);
+        }
+
+        // Showdown, both players have put in the same amount
+        int traverserStrength = worker.strengths[traverser];
+        int opponentStrength = worker.strengths[1 - traverser];
+
+        if (traverserStrength == opponentStrength) {
+            return 0;
+        }
+
+        return traverserStrength > opponentStrength ? first : -first;
+    }
+
+    // Regret matching: play each legal action in proportion to its positive regret (uniformly if there's none)
+    private void currentStrategy(int offset, int bets, boolean facingBet, double[] strategy) {
+        double total = 0;
+
+        for (int action = 0; action < NUM_ACTIONS; action++) {
+            strategy[action] = isLegal(action, bets, facingBet) ? Math.max(0, regrets.get(offset + action)) : 0;
+            total += strategy[action];
+        }
+
+        normalize(strategy, total, bets, facingBet);
+    }
+
+    // Fills probabilities with the average strategy of an information set
+    private void averageStrategy(int infoSet, double[] probabilities) {
+        // Recover bets and facingBet from the index, the inverse of infoSet()
+        int state = infoSet / numBuckets;
+        boolean facingBet = state % 2 == 1;
+        int bets = state / 2 % (MAX_BETS + 1);
+
+        double total = 0;
+
+        for (int action = 0; action < NUM_ACTIONS; action++) {
+            probabilities[action] = isLegal(action, bets, facingBet) ?
+                    strategySums.get(infoSet * NUM_ACTIONS + action) : 0;
+            total += probabilities[action];
+        }
+
+        normalize(probabilities, total, bets, facingBet);
+    }
+
+    // Divides by the total, or spreads evenly over the legal actions if the total is 0
+    private static void normalize(double[] probabilities, double total, int bets, boolean facingBet) {
+        int numLegal = 0;
+
+        for (int action = 0; action < NUM_ACTIONS; action++) {
+            if (isLegal(action, bets, facingBet)) {
+                numLegal++;
+            }
+        }
+
+        for (int action = 0; action < NUM_ACTIONS; action++) {
+            if (!isLegal(action, bets, facingBet)) {
+                probabilities[action] = 0;
+            }
+
+            else {
+                probabilities[action] = total > 0 ? probabilities[action] / total : 1.0 / numLegal;
+            }
+        }
+    }
+
+    // Per-thread state: the dealt hand, its buckets, and scratch arrays so iterations don't allocate
+    private class Worker {
+        private final SplittableRandom random;
+
+        // Card indices, shuffled partially each deal
+        private final int[] deck;
+
+        // buckets[player][street] and each player's final seven-card strength
+        private final int[][] buckets;
+        private final int[] strengths;
+
+        // Scratch space, one array per tree depth so recursive calls don't overwrite each other
+        private final double[][] strategies;
+        private final double[][] values;
+
+        private final int[] cards;
+        private final int[] scratch;
+
+        private Worker(SplittableRandom random) {
+            this.random = random;
+
+            deck = new int[HandEvaluator.NUM_CARDS];
+
+            for (int i = 0; i < deck.length; i++) {
+                deck[i] = i;
+            }
+
+            buckets = new int[2][NUM_STREETS];
+            strengths = new int[2];
+
+            // At most MAX_BETS raises and two checks or calls per street
+            strategies = new double[NUM_STREETS * (MAX_BETS + 2)][NUM_ACTIONS];
+            values = new double[NUM_STREETS * (MAX_BETS + 2)][NUM_ACTIONS];
+
+            cards = new int[Constants.TOTAL_CARDS];
+            scratch = new int[Constants.TOTAL_CARDS];
+        }
+
+        // Deals two hole cards to each player plus a full board, and buckets both hands on every street
+        private void deal() {
+            int numDealt = 4 + Constants.TOTAL_CARDS - 2;
+
+            // Partial Fisher-Yates shuffle, only the dealt cards need to be random
+            for (int i = 0; i < numDealt; i++) {
+                int j = i + random.nextInt(deck.length - i);
+                int swap = deck[i];
+                deck[i] = deck[j];
+                deck[j] = swap;
+            }
+
+            for (int player = 0; player < 2; player++) {
+                cards[0] = deck[player * 2];
+                cards[1] = deck[player * 2 + 1];
+
+                buckets[player][0] = preFlopBuckets[StartingHands.classOf(cards[0], cards[1])];
+
+                // The board starts at deck[4], each street reveals Constants.COMMUNITY_CARDS[street - 1] more
+                int numCards = 2;
+
+                for (int street = 1; street < NUM_STREETS; street++) {
+                    for (int i = 0; i < Constants.COMMUNITY_CARDS[street - 1]; i++) {
+                        cards[numCards] = deck[numCards + 2];
+                        numCards++;
+                    }
+
+                    buckets[player][street] = bucket(handStrength(cards, numCards, scratch), 1, numBuckets);
+                }
+
+                strengths[player] = HandEvaluator.evaluate(cards, numCards);
+            }
+        }
+    }
+}
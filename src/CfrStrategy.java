@@ -0,0 +1,310 @@
+/* The CfrStrategy class plays the strategy computed by CfrSolver
+Each live decision is mapped onto the solver's abstraction (street, bets on this street, facing a bet or not, and the
+hand's bucket), and the move is drawn from that spot's stored probabilities
+Post-flop buckets come from the same hand strength the solver uses, CfrSolver.handStrength(), but rather than scoring
+every opponent holding on each decision, every holding on a board is scored once, sorted, and walked weakest first
+(like CardBuckets does on the river). The seats at a table and the decisions of a street all share that board, so
+after the first one a bucket is a lookup. The last few boards are kept, enough for every table of a Simulator
+
+Like the solver, this only knows Texas Hold 'em from a single deck, so other games are rejected */
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+public class CfrStrategy implements Strategy {
+    // Hole card pairs of a deck, numbered second * (second - 1) / 2 + first for cards first < second
+    private static final int NUM_PAIRS = HandEvaluator.NUM_CARDS * (HandEvaluator.NUM_CARDS - 1) / 2;
+
+    // Bits of a sorted holding entry that hold its two cards (6 bits each), the strength is above them
+    private static final int HOLDING_BITS = 12;
+    private static final int CARD_BITS = 6;
+
+    // Boards whose strengths are kept, more than the tables a Simulator usually runs at once
+    private static final int BOARD_CACHE_SIZE = 256;
+
+    private final int numBuckets;
+    private final byte[] preFlopBuckets;
+
+    // CfrSolver.NUM_ACTIONS probabilities per information set
+    private final float[] probabilities;
+
+    /* Board cards (one bit per card index) --> every pair's chance of beating one random holding on that board, by
+    pair number (NaN for pairs that clash with the board). Guarded by its own lock, like the scratch arrays below */
+    private final Map<Long, double[]> boards = new LinkedHashMap<Long, double[]>(16, .75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Long, double[]> eldest) {
+            return size() > BOARD_CACHE_SIZE;
+        }
+    };
+
+    // Reused by every board scored: the hand being scored (hole cards first), and the sorted holdings
+    private final int[] hand = new int[Constants.TOTAL_CARDS];
+    private final long[] holdings = new long[NUM_PAIRS];
+
+    // Holdings with each card weaker than the ones being looked at, and with the same strength
+    private final int[] cardBelow = new int[HandEvaluator.NUM_CARDS];
+    private final int[] cardTied = new int[HandEvaluator.NUM_CARDS];
+
+    // Private constructor, use load() instead
+    private CfrStrategy(int numBuckets, byte[] preFlopBuckets, float[] probabilities) {
+        this.numBuckets = numBuckets;
+        this.preFlopBuckets = preFlopBuckets;
+        this.probabilities = probabilities;
+    }
+
+    // Loads a strategy file saved by CfrSolver.save()
+    public static CfrStrategy load(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != CfrSolver.MAGIC) {
+                throw new IOException(path + " isn't a CfrSolver strategy file");
+            }
+
+            int numBuckets = in.readInt();
+
+            // The file has to match the abstraction this code uses
+            if (in.readInt() != CfrSolver.MAX_BETS || in.readInt() != CfrSolver.NUM_STREETS) {
+                throw new IOException(path + " was solved with different betting rules");
+            }
+
+            byte[] preFlopBuckets = new byte[StartingHands.NUM_CLASSES];
+            in.readFully(preFlopBuckets);
+
+            float[] probabilities = new float[CfrSolver.numInfoSets(numBuckets) * CfrSolver.NUM_ACTIONS];
+
+            for (int i = 0; i < probabilities.length; i++) {
+                probabilities[i] = in.readFloat();
+            }
+
+            return new CfrStrategy(numBuckets, preFlopBuckets, probabilities);
+        }
+    }
+
+    // Throws an IllegalArgumentException outside Texas Hold 'em, which the strategy wasn't solved for
+    public Decision decide(DecisionContext context) {
+        double[] strengths;
+
+        synchronized (boards) {
+            strengths = boardStrengths(context);
+        }
+
+        return decide(context, strengths);
+    }
+
+    /* Looks up every board of the batch under one lock rather than one per decision, scoring each new board once even
+    if several contexts are on it, then decides each context from its board's strengths */
+    public Decision[] decideAll(List<DecisionContext> contexts) {
+        double[][] strengths = new double[contexts.size()][];
+
+        synchronized (boards) {
+            for (int i = 0; i < strengths.length; i++) {
+                strengths[i] = boardStrengths(contexts.get(i));
+            }
+        }
+
+        Decision[] decisions = new Decision[strengths.length];
+
+        for (int i = 0; i < decisions.length; i++) {
+            decisions[i] = decide(contexts.get(i), strengths[i]);
+        }
+
+        return decisions;
+    }
+
+    // Private helper methods!
+    // Picks a move, given the strengths of every holding on the context's board (null pre-flop)
+    private Decision decide(DecisionContext context, double[] strengths) {
+        int street = street(context.getBoard().size());
+        boolean facingBet = context.getCallCost() > context.getBet();
+
+        int offset = CfrSolver.infoSet(street, bets(context, street, facingBet), facingBet,
+                bucket(context, strengths), numBuckets) * CfrSolver.NUM_ACTIONS;
+
+        // Draw a move from the stored probabilities
+        double roll = context.getRandom().nextDouble();
+        int action = CfrSolver.CALL;
+
+        for (int i = 0; i < CfrSolver.NUM_ACTIONS; i++) {
+            roll -= probabilities[offset + i];
+
+            if (probabilities[offset + i] > 0 && roll < 0) {
+                action = i;
+                break;
+            }
+        }
+
+        if (action == CfrSolver.RAISE && context.canRaise()) {
+            return Decision.raise(betSize(context, street));
+        }
+
+        return action == CfrSolver.FOLD ? Decision.FOLD : Decision.CALL;
+    }
+
+    // Converts a board size into the solver's street number (0 = pre-flop)
+    private static int street(int boardSize) {
+        int street = 0;
+        int numCards = 0;
+
+        while (numCards < boardSize) {
+            numCards += Constants.COMMUNITY_CARDS[street];
+            street++;
+        }
+
+        return street;
+    }
+
+    /* Estimates how many bets have been made on this street, since the context only knows the current bet
+    Pre-flop every raise of a bet size (in big blinds) above the big blind is one bet. Later streets count as one bet if
+    there's one to call */
+    private static int bets(DecisionContext context, int street, boolean facingBet) {
+        int bets;
+
+        if (street == 0) {
+            bets = 1 + Math.max(0, context.getCallCost() - context.getBigBlind()) / betSize(context, street);
+        }
+
+        else {
+            bets = facingBet ? 1 : 0;
+        }
+
+        return Math.min(bets, CfrSolver.MAX_BETS);
+    }
+
+    // The solver's bet size, which assumes Constants.BIG_BLIND, scaled to the table's big blind
+    private static int betSize(DecisionContext context, int street) {
+        return Math.max(1, CfrSolver.betSize(street) * context.getBigBlind() / Constants.BIG_BLIND);
+    }
+
+    // Returns the hand's bucket, the same way the solver buckets dealt hands
+    private int bucket(DecisionContext context, double[] strengths) {
+        Card first = context.getHoleCards().get(0);
+        Card second = context.getHoleCards().get(1);
+
+        if (context.isPreFlop()) {
+            return preFlopBuckets[StartingHands.classOf(first, second)];
+        }
+
+        double handStrength = strengths[pairIndex(first.getIndex(), second.getIndex())];
+
+        return CfrSolver.bucket(handStrength, context.getNumOpponents(), numBuckets);
+    }
+
+    /* Returns the strength of every pair on the context's board, scoring the board if it isn't kept already, or null
+    pre-flop. Callers hold the boards lock */
+    private double[] boardStrengths(DecisionContext context) {
+        if (context.getVariant() != GameVariant.HOLDEM) {
+            throw new IllegalArgumentException("CfrSolver strategies only play " + GameVariant.HOLDEM + ", not "
+                    + context.getVariant());
+        }
+
+        if (context.isPreFlop()) {
+            return null;
+        }
+
+        long board = 0;
+
+        for (Card card : context.getBoard()) {
+            board |= 1L << card.getIndex();
+        }
+
+        double[] strengths = boards.get(board);
+
+        if (strengths == null) {
+            strengths = scoreBoard(context.getBoard());
+            boards.put(board, strengths);
+        }
+
+        return strengths;
+    }
+
+    /* Scores every holding on a board, then walks them weakest first: a pair beats the holdings below it and ties the
+    ones level with it, less the ones that share a card with it. Gives the same answers as CfrSolver.handStrength() */
+    private double[] scoreBoard(List<Card> board) {
+        int numCards = 2 + board.size();
+        long dead = 0;
+
+        for (int i = 2; i < numCards; i++) {
+            hand[i] = board.get(i - 2).getIndex();
+            dead |= 1L << hand[i];
+        }
+
+        int numHoldings = 0;
+
+        for (int second = 1; second < HandEvaluator.NUM_CARDS; second++) {
+            for (int first = 0; first < second; first++) {
+                if ((dead & (1L << first | 1L << second)) != 0) {
+                    continue;
+                }
+
+                hand[0] = first;
+                hand[1] = second;
+                holdings[numHoldings++] = (long) HandEvaluator.evaluate(hand, numCards) << HOLDING_BITS
+                        | first << CARD_BITS | second;
+            }
+        }
+
+        Arrays.sort(holdings, 0, numHoldings);
+        Arrays.fill(cardBelow, 0);
+
+        // Every holding the opponent could have once the board and the player's two cards are out
+        int numUnseen = HandEvaluator.NUM_CARDS - numCards;
+        double numOpponents = numUnseen * (numUnseen - 1) / 2;
+
+        double[] strengths = new double[NUM_PAIRS];
+        Arrays.fill(strengths, Double.NaN);
+        int below = 0;
+
+        for (int start = 0, end; start < numHoldings; start = end) {
+            long strength = holdings[start] >>> HOLDING_BITS;
+            end = start;
+
+            while (end < numHoldings && holdings[end] >>> HOLDING_BITS == strength) {
+                cardTied[firstCard(holdings[end])]++;
+                cardTied[secondCard(holdings[end])]++;
+                end++;
+            }
+
+            for (int i = start; i < end; i++) {
+                int first = firstCard(holdings[i]);
+                int second = secondCard(holdings[i]);
+
+                // The pair itself shares both cards, so it's taken off twice among the ties and added back once
+                int wins = below - cardBelow[first] - cardBelow[second];
+                int ties = end - start - cardTied[first] - cardTied[second] + 1;
+                strengths[pairIndex(first, second)] = (wins + ties / 2.0) / numOpponents;
+            }
+
+            // The group is weaker than every holding still to come
+            for (int i = start; i < end; i++) {
+                cardTied[firstCard(holdings[i])]--;
+                cardTied[secondCard(holdings[i])]--;
+                cardBelow[firstCard(holdings[i])]++;
+                cardBelow[secondCard(holdings[i])]++;
+            }
+
+            below = end;
+        }
+
+        return strengths;
+    }
+
+    private static int firstCard(long holding) {
+        return (int) holding >>> CARD_BITS & (1 << CARD_BITS) - 1;
+    }
+
+    private static int secondCard(long holding) {
+        return (int) holding & (1 << CARD_BITS) - 1;
+    }
+
+    // The pair number of two cards, in either order
+    private static int pairIndex(int first, int second) {
+        int low = Math.min(first, second);
+        int high = Math.max(first, second);
+
+        return high * (high - 1) / 2 + low;
+    }
+}
@@ -19,9 +19,6 @@ public final class Constants {
     // Number of cards dealt to the community each turn
     public static final int[] COMMUNITY_CARDS = {3, 1, 1};
 
-    // Used to check scoring probabilities in the Player class
-    public static final Deck SAMPLE_DECK = new Deck(Constants.NUM_SAMPLE_DECKS);
-
     // The number of cards in a player's best hand
     public static final int HAND_SIZE = 5;
 
@@ -31,9 +28,6 @@ public final class Constants {
     // Should be 6-8, set to 1 for simplicity
     public static final int NUM_CASINO_DECKS = 1;
 
-    // The number of decks necessary for a probability sample
-    public static final int NUM_SAMPLE_DECKS = 1;
-
     // These constants control each player's bankroll
     public static final int PLAYER_STARTING_BANK = 100;
     public static final int MIN_OPP_BANKROLL = 80;
@@ -46,6 +40,24 @@ public final class Constants {
     // How often should the AI randomly bluff?
     public static final double AI_BLUFF = .25;
 
+    // How much post-flop decisions go by effective hand strength (see HandPotential), 0 = not at all
+    public static final double AI_POTENTIAL = 0;
+
+    // If this file exists, the AI plays with the parameters saved there (by the Trainer) instead of the ones above
+    public static final String AI_PARAMETERS_FILE = "ai_parameters.properties";
+
+    // Where CfrSolver saves the strategy that CfrStrategy plays
+    public static final String CFR_STRATEGY_FILE = "cfr_strategy.bin";
+
+    // Where CardBuckets saves a street's buckets by default, e.g. flop_buckets.bin
+    public static final String BUCKETS_FILE = "%s_buckets.bin";
+
+    // Where PreFlopEquity saves the starting hand equity matrix the AI plays pre-flop
+    public static final String PRE_FLOP_EQUITY_FILE = "preflop_equity.bin";
+
+    // The same for short deck, computed with "java PreFlopEquity preflop_equity_short_deck.bin 4 short_deck"
+    public static final String SHORT_DECK_PRE_FLOP_EQUITY_FILE = "preflop_equity_short_deck.bin";
+
     // The following are utility constants/variables, used to supplement other class methods:
     // Associated values of face-cards
     public static final int JACK = 11;
@@ -64,6 +76,10 @@ public final class Constants {
                                           "Jack", "Queen", "King", "Ace"};
     public static final String[] SUITS = {"Clubs", "Diamonds", "Hearts", "Spades"};
 
+    /* Set by the headless Simulator so AI-only tables don't type out every single move
+    Not final for the same reason as NAMES below */
+    public static boolean isSilent = false;
+
     // Global scanner, gets the user's name, bets, etc.
     public static final Scanner SCAN = new Scanner(System.in);
 
@@ -191,6 +207,10 @@ public final class Constants {
 
     // Types out game text slowly for style
     public static void typeText(String text) {
+        if (isSilent) {
+            return;
+        }
+
         for (char c : text.toCharArray()) {
             System.out.print(c);
 
@@ -0,0 +1,42 @@
+// The Decision class represents the move a Strategy picked for a Player: fold, call (or check), or raise by an amount
+
+
+public final class Decision {
+    // Every move a player can make during a betting round
+    public enum Action {
+        FOLD, CALL, RAISE
+    }
+
+    // Folding and calling don't carry an amount, so one shared instance of each is enough
+    public static final Decision FOLD = new Decision(Action.FOLD, 0);
+    public static final Decision CALL = new Decision(Action.CALL, 0);
+
+    private final Action action;
+
+    // How much the bet is raised by, only meaningful when action == RAISE
+    private final int raise;
+
+    // Private constructor, use the constants above or raise() instead
+    private Decision(Action action, int raise) {
+        this.action = action;
+        this.raise = raise;
+    }
+
+    // Shorthand for creating a raise, e.g. Decision.raise(Constants.AI_RAISE)
+    public static Decision raise(int raise) {
+        return new Decision(Action.RAISE, raise);
+    }
+
+    // Getter methods
+    public Action getAction() {
+        return action;
+    }
+
+    public int getRaise() {
+        return raise;
+    }
+
+    public String toString() {
+        return action == Action.RAISE ? "RAISE " + raise : action.toString();
+    }
+}
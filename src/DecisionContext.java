@@ -0,0 +1,143 @@
+/* The DecisionContext class is everything a Strategy may look at when a Player has to act, built by the Player right
+before each decision. The cards, bets, and opponent reads are a snapshot, so strategies can't change game state
+through them. The rest isn't: the seat's random numbers and the Player's equity caches (EquitySession, HandPotential)
+are live objects that strategies draw from and fill in as they go, so a context is only good for the one decision it
+was built for, on the thread making it */
+import java.util.List;
+import java.util.SplittableRandom;
+
+
+public final class DecisionContext {
+    // The game being played, e.g. short deck changes which starting hands are worth playing
+    private final GameVariant variant;
+
+    // The player's two unique cards and the community cards dealt so far
+    private final List<Card> holeCards;
+    private final List<Card> board;
+
+    // Betting state at the moment of the decision
+    private final int pot;
+    private final int callCost;
+    private final int bet;
+    private final int bankroll;
+    private final int bigBlind;
+
+    /* One entry per opponent who hasn't folded: the fraction of starting hands they're estimated to be playing
+    (see PlayerStats.getRangeWidth()), 1 = any two cards */
+    private final double[] opponentRanges;
+
+    // How often, on average, those opponents fold when they're raised
+    private final double opponentFoldToRaise;
+
+    private final boolean canRaise;
+
+    /* Tournaments only: the extra chance of winning (0-1) a call needs because losing chips costs more prize money
+    than winning them gains, see IcmCalculator.riskPremium(). Always 0 in cash games */
+    private final double riskPremium;
+
+    /* The seat's random numbers, split off the Table's: strategies draw every random move from it (never
+    Math.random()), so a hand replays exactly from its Table's seed */
+    private final SplittableRandom random;
+
+    // The deciding player's hand strength work so far this hand, reused across decisions (see EquitySession)
+    private final EquitySession equitySession;
+
+    // The deciding player's strength and potential against one random holding, worked out on request
+    private final HandPotential handPotential;
+
+    // Constructor, copies the card arrays (into immutable Lists) so the snapshot can't change after it's handed out
+    public DecisionContext(GameVariant variant, Card[] holeCards, Card[] board, int pot, int callCost, int bet,
+                           int bankroll, int bigBlind, double[] opponentRanges, double opponentFoldToRaise,
+                           boolean canRaise, double riskPremium, SplittableRandom random,
+                           EquitySession equitySession, HandPotential handPotential) {
+        this.variant = variant;
+        this.holeCards = List.of(holeCards);
+        this.board = List.of(board);
+        this.pot = pot;
+        this.callCost = callCost;
+        this.bet = bet;
+        this.bankroll = bankroll;
+        this.bigBlind = bigBlind;
+        this.opponentRanges = opponentRanges.clone();
+        this.opponentFoldToRaise = opponentFoldToRaise;
+        this.canRaise = canRaise;
+        this.riskPremium = riskPremium;
+        this.random = random;
+        this.equitySession = equitySession;
+        this.handPotential = handPotential;
+    }
+
+    // Getter methods
+    public GameVariant getVariant() {
+        return variant;
+    }
+
+    public List<Card> getHoleCards() {
+        return holeCards;
+    }
+
+    public List<Card> getBoard() {
+        return board;
+    }
+
+    public int getPot() {
+        return pot;
+    }
+
+    // The total bet every player has to match this turn
+    public int getCallCost() {
+        return callCost;
+    }
+
+    // How much the deciding player has already put in this round
+    public int getBet() {
+        return bet;
+    }
+
+    public int getBankroll() {
+        return bankroll;
+    }
+
+    // The table's big blind, so strategies can size bets to the stakes being played
+    public int getBigBlind() {
+        return bigBlind;
+    }
+
+    // Players who haven't folded, not counting the one deciding
+    public int getNumOpponents() {
+        return opponentRanges.length;
+    }
+
+    public double getOpponentRange(int opponent) {
+        return opponentRanges[opponent];
+    }
+
+    public double getOpponentFoldToRaise() {
+        return opponentFoldToRaise;
+    }
+
+    public boolean canRaise() {
+        return canRaise;
+    }
+
+    public double getRiskPremium() {
+        return riskPremium;
+    }
+
+    public SplittableRandom getRandom() {
+        return random;
+    }
+
+    public EquitySession getEquitySession() {
+        return equitySession;
+    }
+
+    public HandPotential getHandPotential() {
+        return handPotential;
+    }
+
+    // Pre-flop = no community cards yet
+    public boolean isPreFlop() {
+        return board.isEmpty();
+    }
+}
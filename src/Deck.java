@@ -1,5 +1,6 @@
 // The Deck class represents a full deck of playing Cards, and includes the ability to be shuffled
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 
 
 public class Deck {
@@ -8,14 +9,20 @@ public class Deck {
 
     // Constructor
     public Deck(int num_decks) {
-        deck = new ArrayList<>();
+        this(num_decks, 2);
+    }
+
+    // Second constructor, leaves out every rank below lowestRank (6 for a 36 card short deck)
+    public Deck(int num_decks, int lowestRank) {
+        deck = new ArrayList<>(num_decks * HandEvaluator.NUM_CARDS);
 
-        // Use multiple decks, like a casino
+        /* Use multiple decks, like a casino
+        Cards never change, so every deck shares the same Card objects instead of creating 52 new ones per round */
         for (int i = 0; i < num_decks; i++) {
             // Loops add each unique card to the deck
-            for (int rank = 2; rank <= Constants.ACE; rank++) {
+            for (int rank = lowestRank; rank <= Constants.ACE; rank++) {
                 for (int suit = 0; suit <= Constants.SPADES; suit++) {
-                    deck.add(new Card(rank, suit));
+                    deck.add(Card.of(HandEvaluator.index(rank, suit)));
                 }
             }
         }
@@ -36,18 +43,16 @@ public class Deck {
             deck.subList(0, amount).clear();
     }
 
-    // Shuffles deck
-    public void shuffle() {
-        int numCards = deck.size();
-        for (int i = 0; i < numCards; i++)
-            swap(i, (int)(Math.random() * numCards));
+    /* Shuffles deck (Fisher-Yates, so every order is equally likely)
+    Parameter random: the table's random numbers, so the same seed always deals the same cards */
+    public void shuffle(SplittableRandom random) {
+        for (int i = deck.size() - 1; i > 0; i--)
+            swap(i, random.nextInt(i + 1));
     }
 
     // Swaps two cards, helper for shuffle method
     private void swap (int i, int j) {
-        // Create new cards to avoid confusing pointers
-        Card current = new Card(deck.get(i));
-        deck.set(i, new Card(deck.get(j)));
-        deck.set(j, current);
+        // Cards can't change, so moving the references around is enough
+        deck.set(i, deck.set(j, deck.get(i)));
     }
 }
@@ -0,0 +1,311 @@
+/* The DefaultStrategy class is the original AI play style described in the README:
+Pre-flop, consult the starting hand equity matrix (or the lookup table if it hasn't been computed)
+Post-flop, average the fraction of hands this one beats, only as closely as the move needs (see EquitySession),
+optionally mixed with its effective hand strength against one random holding from the turn on (see HandPotential),
+and never folding a flush or straight draw that the pot odds pay for (see DrawAnalyzer)
+In Omaha, every street uses the post-flop rules, with the chance of beating a random holding sampled instead
+Short deck plays like Texas Hold 'em, with its own equity matrix and the hand rankings of a 36 card deck
+In both cases, bluff (call/raise) at a random rate determined by the StrategyParameters (Constants.AI_BLUFF by default) */
+import java.util.List;
+import java.util.SplittableRandom;
+
+
+public class DefaultStrategy implements Strategy {
+    /* Pre-flop calls are given up once ICM says they need this much more chance of winning than the pot odds do
+    (the lookup table was built for chips, where a marginal call is only a few percent ahead) */
+    private static final double MAX_PRE_FLOP_RISK_PREMIUM = .1;
+
+    // Pre-flop raises need this many times the hand's fair share of the pot (1 / players in the hand)
+    private static final double PRE_FLOP_RAISE_SHARE = 1.25;
+
+    // Random run-outs and opponent holdings dealt to estimate an Omaha hand's chance of winning
+    private static final int OMAHA_SAMPLES = 400;
+
+    /* The strategy has no state besides its parameters, so every AI player can share one instance
+    Uses the Trainer's parameters if they've been saved, otherwise the hand-picked defaults */
+    public static final DefaultStrategy INSTANCE =
+            new DefaultStrategy(StrategyParameters.loadOrDefault(Constants.AI_PARAMETERS_FILE));
+
+    private final StrategyParameters parameters;
+
+    // Constructor
+    public DefaultStrategy(StrategyParameters parameters) {
+        this.parameters = parameters;
+    }
+
+    // Getter methods
+    public StrategyParameters getParameters() {
+        return parameters;
+    }
+
+    public Decision decide(DecisionContext context) {
+        if (context.getHoleCards().size() == OmahaEvaluator.HOLE_CARDS) {
+            return decideOmaha(context);
+        }
+
+        if (context.isPreFlop()) {
+            return decidePreFlop(context);
+        }
+
+        return decidePostFlop(context);
+    }
+
+    // Private helper methods!
+    // AI decision process pre-flop
+    private Decision decidePreFlop(DecisionContext context) {
+        // Get pre-flop Cards and data, sorted high to low so the order matches the lookup table
+        Card high = context.getHoleCards().get(0);
+        Card low = context.getHoleCards().get(1);
+
+        if (high.getRank() < low.getRank()) {
+            high = context.getHoleCards().get(1);
+            low = context.getHoleCards().get(0);
+        }
+
+        // Consult the equity matrix (or the lookup table) to determine the AI's next move
+        String move = getPreFlopMove(context, high, low);
+
+        // random < bluff --> AI bluffs at a random rate, drawn from the Table's random numbers so hands replay
+        SplittableRandom random = context.getRandom();
+
+        if (context.canRaise() && (move.equals("RAISE") || random.nextDouble() < getRaiseBluff(context))) {
+            return Decision.raise(getRaise(context));
+        }
+
+        // Near the money in a tournament, marginal calls cost more prize money than they win
+        else if (context.getRiskPremium() > MAX_PRE_FLOP_RISK_PREMIUM && !move.equals("RAISE")) {
+            return Decision.FOLD;
+        }
+
+        // Call if the hand is good enough, if there's no need to fold, or to randomly bluff
+        else if (move.equals("CALL") || context.getCallCost() == context.getBet()
+                || random.nextDouble() < parameters.getBluff()) {
+            return Decision.CALL;
+        }
+
+        return Decision.FOLD;
+    }
+
+    // AI decision process post-flop
+    private Decision decidePostFlop(DecisionContext context) {
+        // HandEvaluator works on card indices, the first two spots are the player's unique cards
+        int[] cards = new int[Constants.TOTAL_CARDS];
+        int numKnown = 0;
+
+        for (Card card : context.getHoleCards()) {
+            cards[numKnown++] = card.getIndex();
+        }
+
+        for (Card card : context.getBoard()) {
+            cards[numKnown++] = card.getIndex();
+        }
+
+        /* What percent of hands are worse than this one, on average over the cards still to come?
+        Only as closely as the move needs: the EquitySession counts run-outs until the low and high ends of its
+        bounds lead to the same move, carrying on from whatever it already counted earlier in the hand */
+        EquitySession session = context.getEquitySession();
+        session.deal(cards, numKnown);
+
+        /* With a potential parameter, part of the percentile on the turn and river is the chance of being ahead of one
+        random holding at the river instead, which tells a draw apart from a made hand of the same average (see
+        HandPotential). It's left out on the flop, where working it out takes milliseconds. Otherwise it's only known
+        to be from 0 to 1 until it's needed: once the run-outs are all counted and the move still isn't settled, or to
+        size a raise */
+        double potential = context.getBoard().size() > Constants.COMMUNITY_CARDS[0] ? parameters.getPotential() : 0;
+        double lowStrength = 0;
+        double highStrength = potential > 0 ? 1 : 0;
+
+        /* A draw getting the right price to see the next card is worth a call whatever its average says, and that's
+        a few table lookups to check (see DrawAnalyzer). Then the run-outs only have to settle whether to raise */
+        boolean drawCalls = context.getBet() < context.getCallCost() && isDrawPriced(context, cards, numKnown);
+
+        while (true) {
+            Decision.Action lowAction = getPostFlopAction(context, blend(session.getLowerBound(), lowStrength,
+                    potential), drawCalls);
+            boolean isSettled = lowAction == getPostFlopAction(context, blend(session.getUpperBound(), highStrength,
+                    potential), drawCalls);
+
+            if (isSettled && (lowAction != Decision.Action.RAISE || lowStrength == highStrength)) {
+                break;
+            }
+
+            else if (isSettled || session.isExact()) {
+                HandPotential handPotential = context.getHandPotential();
+                handPotential.compute(cards, numKnown);
+
+                lowStrength = handPotential.getEffectiveStrength();
+                highStrength = lowStrength;
+            }
+
+            else {
+                session.sample();
+            }
+        }
+
+        // A settled fold or call is the same move whatever the effective strength, so the average stands in for it
+        double effectiveStrength = lowStrength == highStrength ? lowStrength : session.getEstimate();
+        Decision decision = decideFromPercentile(context, blend(session.getEstimate(), effectiveStrength, potential));
+
+        return drawCalls && decision.getAction() == Decision.Action.FOLD ? Decision.CALL : decision;
+    }
+
+    // Mixes the average percentile with the effective hand strength, exactly the percentile when weight is 0
+    private static double blend(double percentile, double effectiveStrength, double weight) {
+        return (1 - weight) * percentile + weight * effectiveStrength;
+    }
+
+    /* Returns whether the chance of hitting a flush or straight on the next card pays for the call by the pot odds
+    (less the ICM risk premium in a tournament, like every other call) */
+    private static boolean isDrawPriced(DecisionContext context, int[] cards, int numKnown) {
+        int draws = DrawAnalyzer.analyze(cards, numKnown, context.getVariant());
+
+        if (DrawAnalyzer.outs(draws) == 0) {
+            return false;
+        }
+
+        double hitChance = DrawAnalyzer.nextCardChance(draws, numKnown, context.getVariant())
+                - context.getRiskPremium();
+        int toCall = context.getCallCost() - context.getBet();
+
+        return hitChance * (context.getPot() + toCall) >= toCall;
+    }
+
+    /* AI decision process in Omaha, on every street
+    There's no starting hand table for four cards, so pre-flop is played like the rest of the hand */
+    private Decision decideOmaha(DecisionContext context) {
+        int[] cards = new int[OmahaEvaluator.HOLE_CARDS + Constants.TOTAL_CARDS - 2];
+        int numKnown = 0;
+
+        for (Card card : context.getHoleCards()) {
+            cards[numKnown++] = card.getIndex();
+        }
+
+        for (Card card : context.getBoard()) {
+            cards[numKnown++] = card.getIndex();
+        }
+
+        double winChance = new OmahaEvaluator().winChance(cards, context.getBoard().size(), OMAHA_SAMPLES,
+                context.getRandom());
+
+        return decideFromPercentile(context, winChance);
+    }
+
+    // Raises, bluffs, folds, or calls by the pot odds once the fraction of hands this one beats is known
+    private Decision decideFromPercentile(DecisionContext context, double scorePercentile) {
+        int optimalRaise = getOptimalRaise(context, scorePercentile);
+        SplittableRandom random = context.getRandom();
+
+        if (context.canRaise() && optimalRaise > 0) {
+            return Decision.raise(optimalRaise);
+        }
+
+        /* Remember to bluff on occasion
+        Separate statement since the raise amount is different */
+        else if (context.canRaise() && random.nextDouble() < getRaiseBluff(context)) {
+            return Decision.raise(getRaise(context));
+        }
+
+        // If the optimal bet is lower than the current bet, the natural move is to fold if forced to do that or call
+        else if (optimalRaise < 0 && context.getBet() < context.getCallCost()) {
+            return Decision.FOLD;
+        }
+
+        // Implies that it's worth matching the bet --> call
+        return Decision.CALL;
+    }
+
+    /* Returns the move the post-flop numbers alone lead to (no bluffing) if the hand beats scorePercentile of hands
+    It only gets better as scorePercentile rises, so two percentiles that give the same move agree on everything
+    between them
+    Parameter drawCalls: whether a draw already pays for the call (see isDrawPriced()), which makes a fold a call */
+    private static Decision.Action getPostFlopAction(DecisionContext context, double scorePercentile,
+                                                     boolean drawCalls) {
+        int optimalRaise = getOptimalRaise(context, scorePercentile);
+
+        if (context.canRaise() && optimalRaise > 0) {
+            return Decision.Action.RAISE;
+        }
+
+        else if (optimalRaise < 0 && context.getBet() < context.getCallCost() && !drawCalls) {
+            return Decision.Action.FOLD;
+        }
+
+        return Decision.Action.CALL;
+    }
+
+    // Returns how much the pot odds say to raise by (negative = the current bet is already too much)
+    private static int getOptimalRaise(DecisionContext context, double scorePercentile) {
+        /* If one opponent has a .95 lose rate, 2 have .95^2 = .9025...
+        Each opponent's chance is narrowed to the hands their stats say they're playing, see getWinChance() */
+        double probOfWinning = 1;
+
+        for (int i = 0; i < context.getNumOpponents(); i++) {
+            probOfWinning *= getWinChance(scorePercentile, context.getOpponentRange(i));
+        }
+
+        // In a tournament, chips lost are worth more than chips won, so count only the edge left after ICM
+        probOfWinning = Math.max(0, probOfWinning - context.getRiskPremium());
+
+        int bet = context.getBet();
+
+        /* For a bet to make sense, pot * prob > bet --> ideal bet = pot * prob
+        Also make sure that the AI doesn't try to bet more money than it has access to */
+        return (int) Math.min(context.getBankroll() + bet - context.getCallCost(),
+                context.getPot() * probOfWinning - bet);
+    }
+
+    /* Returns "RAISE", "CALL", or "FOLD" for a starting hand
+    With an equity matrix, the hand's chance of beating every opponent's range (narrowed by their stats like
+    post-flop) is compared with its fair share of the pot to raise, and with the pot odds to call
+    A short deck table without its own matrix uses the lookup table, whose hands of 6s and up are all still there */
+    private static String getPreFlopMove(DecisionContext context, Card high, Card low) {
+        PreFlopEquity equity = PreFlopEquity.getDefault(context.getVariant());
+
+        if (equity == null) {
+            String[] potentialMoves = Constants.preFlopLookupTable.get(List.of(high.getRank(), low.getRank()));
+
+            // The hand's value depends, weather the suits match --> index 0 for match, 1 for differences
+            return high.getSuit() == low.getSuit() ? potentialMoves[0] : potentialMoves[1];
+        }
+
+        int handClass = StartingHands.classOf(high, low);
+        double probOfWinning = 1;
+
+        for (int i = 0; i < context.getNumOpponents(); i++) {
+            probOfWinning *= equity.getEquityVsTop(handClass, context.getOpponentRange(i));
+        }
+
+        int toCall = context.getCallCost() - context.getBet();
+
+        if (probOfWinning >= PRE_FLOP_RAISE_SHARE / (context.getNumOpponents() + 1)) {
+            return "RAISE";
+        }
+
+        if (probOfWinning * (context.getPot() + toCall) >= toCall) {
+            return "CALL";
+        }
+
+        return "FOLD";
+    }
+
+    /* Returns the chance of beating one opponent who only plays the best rangeWidth fraction of hands
+    If this hand beats scorePercentile of all hands, it beats the part of the opponent's range below it:
+    (scorePercentile - (1 - rangeWidth)) / rangeWidth, which is just scorePercentile against any two cards */
+    private static double getWinChance(double scorePercentile, double rangeWidth) {
+        double winChance = (scorePercentile - (1 - rangeWidth)) / rangeWidth;
+
+        return Math.max(0, Math.min(1, winChance));
+    }
+
+    /* Returns the fixed raise size, which was tuned at Constants.BIG_BLIND and so is scaled to the table's big blind
+    Identical to parameters.getRaise() at the default stakes */
+    private int getRaise(DecisionContext context) {
+        return Math.max(1, parameters.getRaise() * context.getBigBlind() / Constants.BIG_BLIND);
+    }
+
+    /* Returns how often to bluff with a raise: the usual bluff rate, scaled up against opponents who fold to raises
+    more often than an unknown player would (and down against ones who don't) */
+    private double getRaiseBluff(DecisionContext context) {
+        return Math.min(1, parameters.getBluff() * context.getOpponentFoldToRaise() / PlayerStats.PRIOR_FOLD_TO_RAISE);
+    }
+}
@@ -0,0 +1,207 @@
+/* The DrawAnalyzer class finds a Texas Hold 'em (or short deck) hand's flush and straight draws, and exactly how many
+of the cards the player can't see complete them, without dealing out a single run-out
+Every rank is one bit of a 13-bit mask like in HandEvaluator, so a straight draw is two table lookups: which ranks would
+turn the mask into a straight, and whether the board alone would make that straight too (a card that helps everyone
+isn't an out). Flush draws come from four counts packed into one int
+
+The answer packs the outs into the low bits and the kinds of draw above them, so nothing is created along the way */
+
+
+public final class DrawAnalyzer {
+    // Straight draws, from worst to best
+    public static final int NO_STRAIGHT_DRAW = 0;
+    public static final int GUTSHOT = 1;
+
+    // Two ranks complete it, which is just as many outs with either open end or two gutshots (e.g. 9 7 6 5 3)
+    public static final int OPEN_ENDED = 2;
+
+    // Where each part of a result sits
+    private static final int OUTS_MASK = 0xFF;
+    private static final int STRAIGHT_DRAW_SHIFT = 8;
+    private static final int FLUSH_DRAW = 1 << 10;
+
+    private static final int HOLE_CARDS = 2;
+    private static final int NUM_RANKS = 13;
+    private static final int NUM_SUITS = 4;
+
+    // The ranks in a short deck (6s and up), and its lowest straight, A-6-7-8-9
+    private static final int SHORT_DECK_RANKS = 0b1111111110000;
+    private static final int LOW_STRAIGHT = 0b1000011110000;
+
+    /* STRAIGHTS[mask] = 1 + the rank index of the highest card in the best straight, 0 if there's no straight
+    (the same as HandEvaluator's), and SHORT_STRAIGHTS for a short deck, where A-6-7-8-9 is 9 high */
+    private static final byte[] STRAIGHTS = new byte[1 << NUM_RANKS];
+    private static final byte[] SHORT_STRAIGHTS = new byte[1 << NUM_RANKS];
+
+    // COMPLETIONS[mask] = the ranks that would give mask a better straight than it has, one bit each
+    private static final short[] COMPLETIONS = new short[1 << NUM_RANKS];
+    private static final short[] SHORT_COMPLETIONS = new short[1 << NUM_RANKS];
+
+    static {
+        for (int mask = 0; mask < 1 << NUM_RANKS; mask++) {
+            for (int high = NUM_RANKS - 1; high >= 4; high--) {
+                int straight = 0b11111 << (high - 4);
+
+                if ((mask & straight) == straight) {
+                    STRAIGHTS[mask] = (byte) (high + 1);
+
+                    // 6-7-8-9-10 is the lowest straight with every card in a short deck
+                    if (high >= 8) {
+                        SHORT_STRAIGHTS[mask] = (byte) (high + 1);
+                    }
+
+                    break;
+                }
+            }
+
+            // The wheel (A-2-3-4-5) is 5 high, and A-6-7-8-9 stands in for the 5-9 straight in a short deck
+            if (STRAIGHTS[mask] == 0 && (mask & 0b1000000001111) == 0b1000000001111) {
+                STRAIGHTS[mask] = 4;
+            }
+
+            if (SHORT_STRAIGHTS[mask] == 0 && (mask & LOW_STRAIGHT) == LOW_STRAIGHT) {
+                SHORT_STRAIGHTS[mask] = 8;
+            }
+        }
+
+        for (int mask = 0; mask < 1 << NUM_RANKS; mask++) {
+            for (int rank = 0; rank < NUM_RANKS; rank++) {
+                int withRank = mask | 1 << rank;
+
+                if (STRAIGHTS[withRank] > STRAIGHTS[mask]) {
+                    COMPLETIONS[mask] |= 1 << rank;
+                }
+
+                if ((SHORT_DECK_RANKS & 1 << rank) != 0 && SHORT_STRAIGHTS[withRank] > SHORT_STRAIGHTS[mask]) {
+                    SHORT_COMPLETIONS[mask] |= 1 << rank;
+                }
+            }
+        }
+    }
+
+    // Static utility class, no instances
+    private DrawAnalyzer() {
+    }
+
+    /* Returns the hand's draws, read with outs(), straightDraw(), and hasFlushDraw()
+    A hand that already has a straight isn't drawing to one, and one with a flush isn't drawing at all. On the river
+    there's nothing left to draw to, so the answer is no draws and no outs
+
+    Parameter cards: the two hole cards followed by the community cards dealt so far (see Card.getIndex())
+    Parameter numKnown: how many entries of cards are dealt
+    Parameter variant: GameVariant.HOLDEM or GameVariant.SHORT_DECK, which decides the straights and the deck */
+    public static int analyze(int[] cards, int numKnown, GameVariant variant) {
+        if (numKnown >= Constants.TOTAL_CARDS) {
+            return 0;
+        }
+
+        // Every card's rank in one mask, the board's alone in another, and how many of each rank and suit are known
+        int handRanks = 0;
+        int boardRanks = 0;
+        long rankCounts = 0;
+        int suitCounts = 0;
+        int holeSuits = 0;
+
+        for (int i = 0; i < numKnown; i++) {
+            int rank = HandEvaluator.rankOf(cards[i]) - 2;
+            int suit = HandEvaluator.suitOf(cards[i]);
+
+            handRanks |= 1 << rank;
+            rankCounts += 1L << (rank * 4);
+            suitCounts += 1 << (suit * 4);
+
+            if (i < HOLE_CARDS) {
+                holeSuits |= 1 << suit;
+            }
+
+            else {
+                boardRanks |= 1 << rank;
+            }
+        }
+
+        // Four of a suit, at least one of them in the player's hand, is a flush draw
+        int flushSuit = -1;
+
+        for (int suit = 0; suit < NUM_SUITS; suit++) {
+            int count = suitCounts >>> (suit * 4) & 0xF;
+
+            if (count >= Constants.HAND_SIZE) {
+                return 0;
+            }
+
+            else if (count == Constants.HAND_SIZE - 1 && (holeSuits & 1 << suit) != 0) {
+                flushSuit = suit;
+            }
+        }
+
+        boolean isShortDeck = variant == GameVariant.SHORT_DECK;
+        byte[] straights = isShortDeck ? SHORT_STRAIGHTS : STRAIGHTS;
+        int outRanks = 0;
+
+        if (straights[handRanks] == 0) {
+            int completions = (isShortDeck ? SHORT_COMPLETIONS : COMPLETIONS)[handRanks];
+
+            // Only ranks that make the player a better straight than the board makes with them on its own
+            while (completions != 0) {
+                int rankBit = completions & -completions;
+                completions ^= rankBit;
+
+                if (straights[handRanks | rankBit] > straights[boardRanks | rankBit]) {
+                    outRanks |= rankBit;
+                }
+            }
+        }
+
+        // Every copy of an out rank the player hasn't seen, plus every unseen card of the flush suit
+        int numDecks = variant.getNumDecks();
+        int outs = 0;
+
+        for (int ranks = outRanks; ranks != 0; ranks &= ranks - 1) {
+            int rank = Integer.numberOfTrailingZeros(ranks);
+            outs += NUM_SUITS * numDecks - (int) (rankCounts >>> (rank * 4) & 0xF);
+        }
+
+        if (flushSuit >= 0) {
+            int ranksInDeck = Integer.bitCount(isShortDeck ? SHORT_DECK_RANKS : (1 << NUM_RANKS) - 1);
+            outs += ranksInDeck * numDecks - (Constants.HAND_SIZE - 1);
+
+            // The flush suit's cards of an out rank were counted twice, once for each draw
+            int overlap = Integer.bitCount(outRanks) * numDecks;
+
+            for (int i = 0; i < numKnown; i++) {
+                if (HandEvaluator.suitOf(cards[i]) == flushSuit
+                        && (outRanks & 1 << (HandEvaluator.rankOf(cards[i]) - 2)) != 0) {
+                    overlap--;
+                }
+            }
+
+            outs -= overlap;
+        }
+
+        int straightDraw = Math.min(Integer.bitCount(outRanks), OPEN_ENDED);
+
+        return outs | straightDraw << STRAIGHT_DRAW_SHIFT | (flushSuit >= 0 ? FLUSH_DRAW : 0);
+    }
+
+    // Returns how many of the unseen cards complete one of the draws
+    public static int outs(int draws) {
+        return draws & OUTS_MASK;
+    }
+
+    // Returns the straight draw, e.g. DrawAnalyzer.GUTSHOT
+    public static int straightDraw(int draws) {
+        return draws >>> STRAIGHT_DRAW_SHIFT & 0b11;
+    }
+
+    public static boolean hasFlushDraw(int draws) {
+        return (draws & FLUSH_DRAW) != 0;
+    }
+
+    /* Returns the chance that the next card is an out, counting every card the player hasn't seen as still in the deck
+    (the chance of hitting by the river is higher, but drawing the second card usually costs another bet) */
+    public static double nextCardChance(int draws, int numKnown, GameVariant variant) {
+        int ranksInDeck = HandEvaluator.rankOf(HandEvaluator.NUM_CARDS - 1) - variant.getLowestRank() + 1;
+
+        return (double) outs(draws) / (ranksInDeck * NUM_SUITS * variant.getNumDecks() - numKnown);
+    }
+}
@@ -0,0 +1,367 @@
+/* The EquitySession class works out one player's hand strength for the length of a hand, a little at a time, so
+a decision only pays for as much of it as it needs and later decisions carry on from there
+The answer is the same fraction DefaultStrategy has always averaged: the seven card percentile over the run-outs
+still to come, or the exact chance of beating one random holding once the board is full (see StrengthDistribution)
+
+Run-outs (and, on the river, opponent holdings) are counted in one fixed random order, so the ones counted so far are
+a random sample of them and the answer is known to lie within Hoeffding-Serfling bounds of their average. A strategy
+keeps calling sample() until both ends of the bounds lead to the same move: a clear-cut spot stops after a few dozen
+run-outs, a close one counts all of them and gets the exact answer
+
+With Constants.NUM_CASINO_DECKS decks, each distinct run-out is still looked at once, weighted by how many copies of
+it are left in the shoe (see CardCounts), so a multi-deck decision costs the same as a single deck one
+In short deck (see setVariant()) there are only 36 cards, so less than half as many run-outs to count, each scored by
+ShortDeckEvaluator and ranked among short deck hands
+
+Each Player owns one, reset with the rest of the hand. Another decision on the same street picks up where the last
+stopped, and the flop's run-outs are also summed by turn card, so the turn starts with every river the flop counted
+On the river, the Table scores every holding once for all its seats (see RiverBoard), and the answer is exact at once */
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+public final class EquitySession {
+    // Run-outs counted between two looks at the bounds
+    private static final int BATCH_SIZE = 16;
+
+    // The chance that a stopped answer's bounds are wrong, shared between every look at them on a street
+    private static final double MAX_ERROR_RATE = .01;
+
+    // Seeds the order run-outs are counted in, fixed so the same hand always takes the same amount of work
+    private static final long ORDER_SEED = 0x5EED;
+
+    // Every pair of card indices (first << 6 | second, a card can pair with another copy of itself), shuffled once
+    private static final int[] PAIRS = shuffledPairs();
+
+    // The hand being worked on: hole cards then community cards, plus a copy for trying opponent holdings
+    private final int[] cards = new int[Constants.TOTAL_CARDS];
+    private final int[] holding = new int[Constants.TOTAL_CARDS];
+
+    // The copies of each card the player can't see, i.e. everything but their own cards and the board
+    private CardCounts remaining = new CardCounts(Constants.NUM_CASINO_DECKS);
+
+    // Whether hands are scored and ranked the short deck way
+    private boolean isShortDeck;
+
+    // The cards known on this street (one bit per card index), 0 = nothing yet, and how many community cards are left
+    private long knownCards;
+    private int numMissing;
+
+    // Where this street is in PAIRS, how many of its distinct run-outs have been counted out of how many
+    private int cursor;
+    private int numSamples;
+    private int population;
+
+    // The counted run-outs' percentiles, each times its number of copies
+    private double weightedSum;
+
+    /* The average and the most copies of one run-out this street (both 1 with one deck), which scale the bounds
+    ln(2 * looks at the bounds this street can take / MAX_ERROR_RATE) is the rest of their width */
+    private double meanWeight;
+    private double maxWeight;
+    private double logTerm;
+
+    // Percentiles of seven card hands dealt from the table's deck(s), null until the first deal of a variant
+    private StrengthDistribution distribution;
+
+    // The player's strength once the board is full, which every opponent holding is compared with
+    private int riverStrength;
+
+    // The Table's scored holdings on the river (see RiverBoard), null until it's dealt
+    private RiverBoard riverBoard;
+
+    private double lowerBound;
+    private double upperBound;
+
+    /* The cards known on the flop, and for each turn card the weighted percentiles and number of distinct rivers
+    counted on the flop */
+    private long flopCards;
+    private final double[] turnSums = new double[HandEvaluator.NUM_CARDS];
+    private final int[] turnCounts = new int[HandEvaluator.NUM_CARDS];
+
+    // Forgets everything, used when a new hand is dealt
+    public void reset() {
+        knownCards = 0;
+        flopCards = 0;
+        riverBoard = null;
+    }
+
+    /* Hands over the river's holdings, scored once for the whole Table, which turns the river's count into a lookup
+    Only used while it's the board being dealt, and with one deck (where it's exactly the count it stands in for) */
+    public void setRiverBoard(RiverBoard riverBoard) {
+        this.riverBoard = riverBoard;
+    }
+
+    // Switches to a game's deck and hand rankings, forgetting the hand if they change (e.g. GameVariant.SHORT_DECK)
+    public void setVariant(GameVariant variant) {
+        boolean shortDeck = variant == GameVariant.SHORT_DECK;
+
+        if (shortDeck != isShortDeck) {
+            isShortDeck = shortDeck;
+            remaining = new CardCounts(variant.getNumDecks(), variant.getLowestRank());
+            distribution = null;
+            reset();
+        }
+    }
+
+    /* Moves the session to the cards dealt so far, keeping what was counted if it's the same street as before
+    Afterwards the bounds are whatever is already known, call sample() to narrow them
+
+    Parameter cards: the hole cards followed by the community cards dealt so far
+    Parameter numKnown: how many entries of cards are dealt, 5 (the flop) to 7 (the river) */
+    public void deal(int[] cards, int numKnown) {
+        long known = 0;
+
+        for (int i = 0; i < numKnown; i++) {
+            known |= 1L << cards[i];
+        }
+
+        int missing = Constants.TOTAL_CARDS - numKnown;
+
+        // Another decision on the same street
+        if (known == knownCards && missing == numMissing) {
+            return;
+        }
+
+        System.arraycopy(cards, 0, this.cards, 0, numKnown);
+        remaining.fill();
+
+        for (int i = 0; i < numKnown; i++) {
+            remaining.remove(cards[i]);
+        }
+
+        // Carry on from the flop if this is the same hand's flop plus a turn card: its counted rivers are a sample too
+        boolean isAfterFlop = missing == 1 && flopCards != 0 && knownCards == flopCards && numMissing == 2
+                && (known & flopCards) == flopCards;
+
+        if (isAfterFlop) {
+            int turn = this.cards[Constants.TOTAL_CARDS - 2];
+
+            numSamples = turnCounts[turn];
+            weightedSum = turnSums[turn];
+        }
+
+        else {
+            cursor = 0;
+            numSamples = 0;
+            weightedSum = 0;
+        }
+
+        // The turn has one card to come, the flop two, and the river has the opponents' two hole cards
+        if (missing == 1) {
+            population = remaining.getNumDistinct();
+            meanWeight = (double) remaining.getTotal() / population;
+            maxWeight = remaining.getMaxCount();
+        }
+
+        else {
+            population = remaining.getNumDistinctPairs();
+            meanWeight = remaining.getTotal() * (remaining.getTotal() - 1) / 2.0 / population;
+            maxWeight = remaining.getMaxPairWeight();
+        }
+
+        if (missing == 2) {
+            flopCards = known;
+            Arrays.fill(turnSums, 0);
+            Arrays.fill(turnCounts, 0);
+        }
+
+        else if (missing == 0) {
+            riverStrength = evaluate(this.cards);
+            System.arraycopy(cards, 0, holding, 0, Constants.TOTAL_CARDS);
+
+            // Every holding on this board is already scored, so all of them count at once
+            if (riverBoard != null && remaining.getNumDecks() == 1
+                    && riverBoard.getBoardCards() == (known & ~(1L << cards[0] | 1L << cards[1]))) {
+                numSamples = population;
+                weightedSum = riverBoard.percentile(cards[0], cards[1]) * population;
+            }
+        }
+
+        knownCards = known;
+        numMissing = missing;
+
+        // Looked up on the first deal after the variant is picked, not on every street
+        if (distribution == null) {
+            distribution = isShortDeck ? StrengthDistribution.shortDeck()
+                    : StrengthDistribution.sevenCard(remaining.getNumDecks());
+        }
+
+        logTerm = Math.log(2.0 * ((population + BATCH_SIZE - 1) / BATCH_SIZE) / MAX_ERROR_RATE);
+        updateBounds();
+    }
+
+    // Counts up to BATCH_SIZE more run-outs and narrows the bounds, does nothing once the answer is exact
+    public void sample() {
+        int target = Math.min(population, numSamples + BATCH_SIZE);
+
+        while (numSamples < target) {
+            int pair = PAIRS[cursor++];
+            int first = pair >>> 6;
+            int second = pair & 63;
+
+            if (numMissing == 1) {
+                sampleRiver(first, second);
+            }
+
+            else if (remaining.pairWeight(first, second) > 0) {
+                if (numMissing == 2) {
+                    sampleTurnAndRiver(first, second);
+                }
+
+                else {
+                    sampleHolding(first, second);
+                }
+            }
+        }
+
+        updateBounds();
+    }
+
+    /* Returns the exact fraction of hands this one beats, averaged over every way the rest of the community could
+    come (the bounded answer's limit, for callers that always want the full count) */
+    public double averagePercentile(int[] cards, int numKnown) {
+        deal(cards, numKnown);
+
+        while (!isExact()) {
+            sample();
+        }
+
+        return getEstimate();
+    }
+
+    // Getter methods
+    // The weighted average of the run-outs counted so far, .5 before any
+    public double getEstimate() {
+        return numSamples == 0 ? .5 : Math.min(1, weightedSum / (numSamples * meanWeight));
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    // How many distinct run-outs this street has counted, and how many there are
+    public int getNumSamples() {
+        return numSamples;
+    }
+
+    public int getPopulation() {
+        return population;
+    }
+
+    // Every run-out has been counted, so the estimate is the answer
+    public boolean isExact() {
+        return numSamples == population;
+    }
+
+    // Private helper methods!
+    /* On the flop, one (turn, river) run-out, also kept as a sample of each of its cards being the turn
+    As the turn's sample, it's weighted by the copies of the other card left once that one's been dealt */
+    private void sampleTurnAndRiver(int first, int second) {
+        cards[Constants.TOTAL_CARDS - 2] = first;
+        cards[Constants.TOTAL_CARDS - 1] = second;
+
+        double percentile = distribution.percentile(evaluate(cards));
+
+        if (first == second) {
+            turnSums[first] += percentile * (remaining.get(first) - 1);
+            turnCounts[first]++;
+        }
+
+        else {
+            turnSums[first] += percentile * remaining.get(second);
+            turnSums[second] += percentile * remaining.get(first);
+            turnCounts[first]++;
+            turnCounts[second]++;
+        }
+
+        weightedSum += percentile * remaining.pairWeight(first, second);
+        numSamples++;
+    }
+
+    // On the turn, a pair only counts if it's the turn card and a river, so the order carries on from the flop's
+    private void sampleRiver(int first, int second) {
+        int turn = cards[Constants.TOTAL_CARDS - 2];
+        int river = first == turn ? second : second == turn ? first : -1;
+
+        if (river < 0 || remaining.get(river) == 0) {
+            return;
+        }
+
+        cards[Constants.TOTAL_CARDS - 1] = river;
+        weightedSum += remaining.get(river) * distribution.percentile(evaluate(cards));
+        numSamples++;
+    }
+
+    // On the river, one opponent holding: a win, a tie (half), or a loss
+    private void sampleHolding(int first, int second) {
+        holding[0] = first;
+        holding[1] = second;
+
+        int other = evaluate(holding);
+        double result = other < riverStrength ? 1 : other == riverStrength ? .5 : 0;
+
+        weightedSum += result * remaining.pairWeight(first, second);
+        numSamples++;
+    }
+
+    // The strength of a full seven card hand, short deck or not
+    private int evaluate(int[] hand) {
+        return isShortDeck ? ShortDeckEvaluator.evaluate(hand, Constants.TOTAL_CARDS)
+                : HandEvaluator.evaluate(hand, Constants.TOTAL_CARDS);
+    }
+
+    /* Hoeffding's bound with Serfling's correction for counting without replacement, which shrinks to nothing as
+    the last run-outs are counted: the answer is within the error of the average except MAX_ERROR_RATE of the time
+    Each run-out counts as its percentile times its copies over the average copies, which can reach
+    maxWeight / meanWeight instead of 1, so the bounds widen by that much with more than one deck */
+    private void updateBounds() {
+        double estimate = getEstimate();
+
+        if (isExact()) {
+            lowerBound = estimate;
+            upperBound = estimate;
+        }
+
+        else if (numSamples == 0) {
+            lowerBound = 0;
+            upperBound = 1;
+        }
+
+        else {
+            double error = maxWeight / meanWeight
+                    * Math.sqrt((1 - (numSamples - 1.0) / population) * logTerm / (2 * numSamples));
+
+            lowerBound = Math.max(0, estimate - error);
+            upperBound = Math.min(1, estimate + error);
+        }
+    }
+
+    // Every pair of card indices, each card with itself included, in a fixed random order
+    private static int[] shuffledPairs() {
+        int[] pairs = new int[HandEvaluator.NUM_CARDS * (HandEvaluator.NUM_CARDS + 1) / 2];
+        int n = 0;
+
+        for (int first = 0; first < HandEvaluator.NUM_CARDS; first++) {
+            for (int second = first; second < HandEvaluator.NUM_CARDS; second++) {
+                pairs[n++] = first << 6 | second;
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(ORDER_SEED);
+
+        for (int i = pairs.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int pair = pairs[i];
+
+            pairs[i] = pairs[j];
+            pairs[j] = pair;
+        }
+
+        return pairs;
+    }
+}
@@ -0,0 +1,66 @@
+/* The GameVariant enum lists the poker games a Table can run on the same engine
+Each one decides how many hole cards are dealt, whether raises are capped at the size of the pot, and which cards
+are in the deck, picked with "variant=holdem", "variant=omaha", or "variant=short_deck" like any other TableConfig
+setting */
+
+
+public enum GameVariant {
+    // No-limit Texas Hold 'em: two hole cards, and a hand is the best five of all seven cards
+    HOLDEM("Texas Hold 'em", 2, false, 2),
+
+    // Pot-Limit Omaha: four hole cards, and a hand is exactly two of them with exactly three of the board
+    OMAHA("Pot-Limit Omaha", 4, true, 2),
+
+    /* Short deck (6+) Hold 'em: the 2s through 5s are taken out, leaving 36 cards. A-6-7-8-9 is the lowest straight,
+    and flushes are harder to make than full houses so they beat them (see ShortDeckEvaluator) */
+    SHORT_DECK("Short Deck Hold 'em", 2, false, 6);
+
+    private final String displayName;
+    private final int numHoleCards;
+    private final boolean isPotLimit;
+    private final int lowestRank;
+
+    // Constructor
+    GameVariant(String displayName, int numHoleCards, boolean isPotLimit, int lowestRank) {
+        this.displayName = displayName;
+        this.numHoleCards = numHoleCards;
+        this.isPotLimit = isPotLimit;
+        this.lowestRank = lowestRank;
+    }
+
+    // Returns the variant with the given name, ignoring case, e.g. "omaha"
+    public static GameVariant parse(String name) {
+        for (GameVariant variant : values()) {
+            if (variant.name().equalsIgnoreCase(name.trim())) {
+                return variant;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown variant \"" + name + "\", expected holdem, omaha, or short_deck");
+    }
+
+    // Getter methods
+    public int getNumHoleCards() {
+        return numHoleCards;
+    }
+
+    // Whether a raise can add at most the pot (after calling), instead of any amount up to all in
+    public boolean isPotLimit() {
+        return isPotLimit;
+    }
+
+    // The lowest rank in the deck (2-14), 6 in short deck
+    public int getLowestRank() {
+        return lowestRank;
+    }
+
+    /* Decks the Table shuffles together: Constants.NUM_CASINO_DECKS, except short deck which is always dealt from one
+    (how it's played, and all ShortDeckEvaluator's tables cover) */
+    public int getNumDecks() {
+        return this == SHORT_DECK ? 1 : Constants.NUM_CASINO_DECKS;
+    }
+
+    public String toString() {
+        return displayName;
+    }
+}
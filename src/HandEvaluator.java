@@ -0,0 +1,310 @@
+/* The HandEvaluator class scores 5-7 card hands quickly, without creating any objects
+Cards are passed around as int indices (see Card.getIndex()), and every rank is tracked as one bit of a 13-bit mask,
+so finding pairs, flushes, and straights is a handful of bit operations instead of sorting and hashing Cards
+
+A strength packs the hand category into the top bits and up to five tie-breaking ranks (4 bits each) below it,
+so comparing two hands is just comparing two ints (bigger = better)
+
+With more than one deck the same card can show up twice. Those hands take a slower path that counts every copy:
+five of a kind beats everything, and a flush can hold a pair (A A K Q J of one suit beats A K Q J 9) */
+
+
+public final class HandEvaluator {
+    // Hand categories, from worst to best
+    public static final int HIGH_CARD = 0;
+    public static final int PAIR = 1;
+    public static final int TWO_PAIR = 2;
+    public static final int THREE_OF_A_KIND = 3;
+    public static final int STRAIGHT = 4;
+    public static final int FLUSH = 5;
+    public static final int FULL_HOUSE = 6;
+    public static final int FOUR_OF_A_KIND = 7;
+    public static final int STRAIGHT_FLUSH = 8;
+    public static final int FIVE_OF_A_KIND = 9;
+
+    // The category sits above the five 4-bit tie-breakers
+    private static final int CATEGORY_SHIFT = 20;
+
+    // Every strength is below this, so strengths can index an array
+    public static final int NUM_STRENGTHS = (FIVE_OF_A_KIND + 1) << CATEGORY_SHIFT;
+
+    // Number of distinct card indices in a single deck
+    public static final int NUM_CARDS = 52;
+
+    // Number of distinct ranks, and the mask with a bit for each of them
+    private static final int NUM_RANKS = 13;
+    private static final int ALL_RANKS = (1 << NUM_RANKS) - 1;
+
+    /* STRAIGHTS[mask] = 1 + the rank index of the highest card in the best straight, 0 if there's no straight
+    Precomputed for all 8192 rank masks so straight checks are a single array lookup */
+    private static final byte[] STRAIGHTS = new byte[1 << NUM_RANKS];
+
+    static {
+        for (int mask = 0; mask <= ALL_RANKS; mask++) {
+            // Try the highest straights (Ace high) first, down to 6 high
+            for (int high = NUM_RANKS - 1; high >= 4; high--) {
+                int straight = 0b11111 << (high - 4);
+
+                if ((mask & straight) == straight) {
+                    STRAIGHTS[mask] = (byte) (high + 1);
+                    break;
+                }
+            }
+
+            // The wheel (A-2-3-4-5) is the lowest straight, it's 5 high
+            if (STRAIGHTS[mask] == 0 && (mask & 0b1000000001111) == 0b1000000001111) {
+                STRAIGHTS[mask] = 4;
+            }
+        }
+    }
+
+    // Static utility class, no instances
+    private HandEvaluator() {
+    }
+
+    // Returns the index of a card, from 0 (2 of Clubs) to 51 (Ace of Spades)
+    public static int index(int rank, int suit) {
+        return (rank - 2) * 4 + suit;
+    }
+
+    public static int rankOf(int index) {
+        return (index >> 2) + 2;
+    }
+
+    public static int suitOf(int index) {
+        return index & 3;
+    }
+
+    // Returns the category of a strength, e.g. HandEvaluator.FLUSH
+    public static int category(int strength) {
+        return strength >>> CATEGORY_SHIFT;
+    }
+
+    // Returns a strength with its category swapped for another one, keeping the tie-breaking ranks
+    public static int withCategory(int strength, int category) {
+        return category << CATEGORY_SHIFT | strength & (1 << CATEGORY_SHIFT) - 1;
+    }
+
+    /* Returns the strength of the best 5-card hand among the first numCards entries of cards
+    Works for 5, 6, or 7 cards. Duplicate cards (multiple decks) count as extra copies, see evaluateWithCopies() */
+    public static int evaluate(int[] cards, int numCards) {
+        // Four 13-bit suit masks packed 16 bits apart
+        long suits = 0;
+
+        // Every card index seen so far, to notice a second copy of one
+        long seen = 0;
+
+        // Ranks seen at least once, twice, three, and four times
+        int one = 0;
+        int two = 0;
+        int three = 0;
+        int four = 0;
+
+        for (int i = 0; i < numCards; i++) {
+            int card = cards[i];
+            int bit = 1 << (card >> 2);
+
+            if ((seen & 1L << card) != 0) {
+                return evaluateWithCopies(cards, numCards);
+            }
+
+            seen |= 1L << card;
+            suits |= (long) bit << ((card & 3) << 4);
+
+            four |= three & bit;
+            three |= two & bit;
+            two |= one & bit;
+            one |= bit;
+        }
+
+        return evaluate(one, two, three, four, suits);
+    }
+
+    /* Converts a strength to the score format Hand.getScore() has always used (see Hand.bestHand())
+    Each category gets a band of 15 points, e.g. pairs are 15 + pair rank (2-14) + kickers / 100, 100^2, ... */
+    public static double toScore(int strength) {
+        int category = category(strength);
+
+        /* Straight flushes skip a band so that a royal flush is still exactly 134
+        (five of a kind, multiple decks only, then takes the next band up from 135) */
+        double score = category == STRAIGHT_FLUSH ? 120 : category * 15;
+        double scale = 1;
+
+        // Tie-breaking ranks are stored highest first, 4 bits each
+        for (int shift = CATEGORY_SHIFT - 4; shift >= 0; shift -= 4) {
+            int rank = (strength >>> shift) & 0xF;
+
+            if (rank != 0) {
+                score += (rank + 1) / scale;
+            }
+
+            scale *= 100;
+        }
+
+        return score;
+    }
+
+    /* Same as above, for callers that build the masks themselves one card at a time (e.g. enumerating boards)
+    Parameter one, two, three, four: 13-bit masks of the ranks seen at least once, twice, three, and four times
+    Parameter suits: a 13-bit rank mask per suit, packed 16 bits apart (suit s at bit 16 * s) */
+    public static int evaluate(int one, int two, int three, int four, long suits) {
+        int flush = 0;
+
+        for (int shift = 0; shift < 64; shift += 16) {
+            int suit = (int) (suits >>> shift) & ALL_RANKS;
+
+            if (Integer.bitCount(suit) >= Constants.HAND_SIZE) {
+                flush = suit;
+                break;
+            }
+        }
+
+        if (flush != 0 && STRAIGHTS[flush] != 0) {
+            return strength(STRAIGHT_FLUSH, STRAIGHTS[flush], 1);
+        }
+
+        if (four != 0) {
+            int quads = Integer.highestOneBit(four);
+
+            // Four of a kind ties are always broken by a single high card...
+            return strength(FOUR_OF_A_KIND, topRanks(rank(quads), one & ~quads, 1), 2);
+        }
+
+        if (three != 0) {
+            int trips = Integer.highestOneBit(three);
+
+            // A second set of trips can be used as the pair
+            int pair = two & ~trips;
+
+            if (pair != 0) {
+                return strength(FULL_HOUSE, rank(trips) << 4 | rank(Integer.highestOneBit(pair)), 2);
+            }
+        }
+
+        if (flush != 0) {
+            return strength(FLUSH, topRanks(0, flush, Constants.HAND_SIZE), Constants.HAND_SIZE);
+        }
+
+        if (STRAIGHTS[one] != 0) {
+            return strength(STRAIGHT, STRAIGHTS[one], 1);
+        }
+
+        if (three != 0) {
+            int trips = Integer.highestOneBit(three);
+
+            return strength(THREE_OF_A_KIND, topRanks(rank(trips), one & ~trips, 2), 3);
+        }
+
+        if (Integer.bitCount(two) >= 2) {
+            int highPair = Integer.highestOneBit(two);
+            int lowPair = Integer.highestOneBit(two & ~highPair);
+            int pairs = rank(highPair) << 4 | rank(lowPair);
+
+            return strength(TWO_PAIR, topRanks(pairs, one & ~highPair & ~lowPair, 1), 3);
+        }
+
+        if (two != 0) {
+            return strength(PAIR, topRanks(rank(two), one & ~two, 3), 4);
+        }
+
+        // If there's no ranked hands, use high card
+        return strength(HIGH_CARD, topRanks(0, one, Constants.HAND_SIZE), Constants.HAND_SIZE);
+    }
+
+    // Private helper methods!
+    /* evaluate() for hands holding two or more copies of a card
+    The rank masks go up to five copies, and each suit counts its cards instead of its distinct ranks, so a pair in a
+    suit still makes a flush. Everything but five of a kind and flushes is the same as with one deck */
+    private static int evaluateWithCopies(int[] cards, int numCards) {
+        long suits = 0;
+
+        // Cards of each suit, 8 bits apart
+        int suitCounts = 0;
+
+        int one = 0;
+        int two = 0;
+        int three = 0;
+        int four = 0;
+        int five = 0;
+
+        for (int i = 0; i < numCards; i++) {
+            int card = cards[i];
+            int bit = 1 << (card >> 2);
+
+            suits |= (long) bit << ((card & 3) << 4);
+            suitCounts += 1 << ((card & 3) << 3);
+
+            five |= four & bit;
+            four |= three & bit;
+            three |= two & bit;
+            two |= one & bit;
+            one |= bit;
+        }
+
+        if (five != 0) {
+            return strength(FIVE_OF_A_KIND, rank(Integer.highestOneBit(five)), 1);
+        }
+
+        for (int suit = 0; suit <= Constants.SPADES; suit++) {
+            if ((suitCounts >>> (suit << 3) & 0xFF) < Constants.HAND_SIZE) {
+                continue;
+            }
+
+            int flush = (int) (suits >>> (suit << 4)) & ALL_RANKS;
+
+            if (STRAIGHTS[flush] != 0) {
+                return strength(STRAIGHT_FLUSH, STRAIGHTS[flush], 1);
+            }
+
+            // Four of a kind and full houses still beat a flush
+            boolean isFullHouse = three != 0 && (two & ~Integer.highestOneBit(three)) != 0;
+
+            if (four == 0 && !isFullHouse) {
+                return strength(FLUSH, topSuitCards(cards, numCards, suit), Constants.HAND_SIZE);
+            }
+        }
+
+        // No flush of any kind left to find, so the suits can be left out
+        return evaluate(one, two, three, four, 0);
+    }
+
+    // The five highest ranks among the cards of one suit, counting every copy, packed like topRanks()
+    private static int topSuitCards(int[] cards, int numCards, int suit) {
+        int packed = 0;
+        int numRanks = 0;
+
+        for (int rank = NUM_RANKS - 1; rank >= 0 && numRanks < Constants.HAND_SIZE; rank--) {
+            int card = rank << 2 | suit;
+
+            for (int i = 0; i < numCards && numRanks < Constants.HAND_SIZE; i++) {
+                if (cards[i] == card) {
+                    packed = (packed << 4) | (rank + 1);
+                    numRanks++;
+                }
+            }
+        }
+
+        return packed;
+    }
+
+    // Rank of a single-bit mask, stored 1-13 so that 0 can mean "no card"
+    private static int rank(int bit) {
+        return Integer.numberOfTrailingZeros(bit) + 1;
+    }
+
+    // Appends the numRanks highest ranks of a mask to the 4-bit groups already in packed
+    private static int topRanks(int packed, int mask, int numRanks) {
+        for (int i = 0; i < numRanks; i++) {
+            int bit = Integer.highestOneBit(mask);
+            packed = (packed << 4) | (bit == 0 ? 0 : rank(bit));
+            mask &= ~bit;
+        }
+
+        return packed;
+    }
+
+    // Left-aligns numRanks packed tie-breakers below the category, so every category compares the same way
+    private static int strength(int category, int packed, int numRanks) {
+        return category << CATEGORY_SHIFT | packed << (4 * (Constants.HAND_SIZE - numRanks));
+    }
+}
@@ -0,0 +1,426 @@
+/* The HandIndexer class numbers hands with no gaps, counting two hands as the same when they only differ by which suit
+is which (e.g. AhKh on Qh7c2c and AsKs on Qs7d2d). That's how card abstraction and strategy tables keep one entry per
+situation that actually plays differently: 1,286,792 hole card + flop situations instead of 25,989,600
+
+A hand is dealt in rounds (e.g. 2 hole cards, then 3 on the flop, then 1 on the turn), and which round a card came in
+matters. Each suit's part of the hand is which of its ranks came in each round, and its "shape" is how many came in
+each round. Sorting the suits by shape puts every relabelling of a hand in the same order, and then:
+- The sorted shapes pick a block of indices (every shape combination has its own, see offsets)
+- Each suit's ranks are numbered by the combinatorial number system, one round after another, among the ranks that
+  suit still has left
+- Suits with the same shape can trade places, so together they're numbered as a multiset of their own numbers
+
+index() is a few dozen integer operations and one binary search over at most a few hundred shapes, and allocates
+nothing. unindex() goes the other way, to a representative hand of each index, for enumerating every situation */
+import java.util.Arrays;
+import java.util.TreeSet;
+
+
+public final class HandIndexer {
+    private static final int NUM_RANKS = 13;
+    private static final int NUM_SUITS = 4;
+
+    // Bits each round's card count takes in a suit's shape, and in the packed shapes of all four suits
+    private static final int COUNT_BITS = 4;
+    private static final int SHAPE_BITS = 16;
+
+    // A suit's key (see suitKey()) is its shape above bit 40 and its number below
+    private static final int NUMBER_BITS = 40;
+    private static final long NUMBER_MASK = (1L << NUMBER_BITS) - 1;
+
+    // CHOOSE[n][k] = C(n, k) for the rank counts a suit can have
+    private static final long[][] CHOOSE = new long[NUM_RANKS + 1][NUM_RANKS + 1];
+
+    static {
+        for (int n = 0; n <= NUM_RANKS; n++) {
+            CHOOSE[n][0] = 1;
+
+            for (int k = 1; k <= n; k++) {
+                CHOOSE[n][k] = CHOOSE[n - 1][k - 1] + CHOOSE[n - 1][k];
+            }
+        }
+    }
+
+    private final int[] cardsPerRound;
+    private final int numCards;
+
+    // Every sorted combination of the four suits' shapes, packed 16 bits per suit (largest first), in order
+    private final long[] shapes;
+
+    // Where each combination's indices start, and (at the end) how many indices there are in all
+    private final long[] offsets;
+
+    // How many ways one suit can fill a shape, by the shape packed into 4 bits per round (first round highest)
+    private final long[] suitSizes;
+
+    /* Constructor
+    Parameter cardsPerRound: how many cards each round deals, e.g. {2, 3} for hole cards and the flop, up to 4 rounds */
+    public HandIndexer(int... cardsPerRound) {
+        if (cardsPerRound.length == 0 || cardsPerRound.length > SHAPE_BITS / COUNT_BITS) {
+            throw new IllegalArgumentException("A hand needs 1-" + SHAPE_BITS / COUNT_BITS + " rounds");
+        }
+
+        this.cardsPerRound = cardsPerRound.clone();
+        numCards = Arrays.stream(cardsPerRound).sum();
+
+        suitSizes = new long[1 << COUNT_BITS * cardsPerRound.length];
+
+        for (int shape = 0; shape < suitSizes.length; shape++) {
+            suitSizes[shape] = countSuit(shape);
+        }
+
+        TreeSet<Long> found = new TreeSet<>();
+        addShapes(0, 0, new int[NUM_SUITS], new int[NUM_SUITS], found);
+
+        shapes = new long[found.size()];
+        offsets = new long[found.size() + 1];
+        int i = 0;
+
+        for (long packed : found) {
+            shapes[i] = packed;
+            offsets[i + 1] = offsets[i] + countShapes(packed);
+            i++;
+        }
+    }
+
+    /* Returns the index (0 to size() - 1) of a hand, the same for every hand that only differs by its suits
+    Parameter cards: the hand's HandEvaluator card indices, round by round (e.g. the hole cards first), no repeats */
+    public long index(int[] cards) {
+        // Each suit's shape and number as one key, so sorting these sorts by shape (then by number)
+        long first = suitKey(cards, 0);
+        long second = suitKey(cards, 1);
+        long third = suitKey(cards, 2);
+        long fourth = suitKey(cards, 3);
+
+        // Sorts the four largest first, a fixed sequence of swaps
+        if (first < second) {
+            long swap = first;
+            first = second;
+            second = swap;
+        }
+
+        if (third < fourth) {
+            long swap = third;
+            third = fourth;
+            fourth = swap;
+        }
+
+        if (first < third) {
+            long swap = first;
+            first = third;
+            third = swap;
+        }
+
+        if (second < fourth) {
+            long swap = second;
+            second = fourth;
+            fourth = swap;
+        }
+
+        if (second < third) {
+            long swap = second;
+            second = third;
+            third = swap;
+        }
+
+        long packed = (first >>> NUMBER_BITS) << 3 * SHAPE_BITS | (second >>> NUMBER_BITS) << 2 * SHAPE_BITS
+                | (third >>> NUMBER_BITS) << SHAPE_BITS | fourth >>> NUMBER_BITS;
+
+        return offsets[Arrays.binarySearch(shapes, packed)] + combine(first, second, third, fourth);
+    }
+
+    /* Fills cards with one hand that has the given index, round by round, the inverse of index()
+    Its suits are the canonical ones: the suit with the largest shape is Clubs, the next Diamonds, and so on */
+    public void unindex(long index, int[] cards) {
+        int shape = Arrays.binarySearch(offsets, index);
+        shape = shape >= 0 ? shape : -shape - 2;
+
+        int[] suitShapes = new int[NUM_SUITS];
+
+        for (int suit = 0; suit < NUM_SUITS; suit++) {
+            suitShapes[suit] = (int) (shapes[shape] >>> (NUM_SUITS - 1 - suit) * SHAPE_BITS & 0xFFFF);
+        }
+
+        long[] numbers = split(suitShapes, index - offsets[shape]);
+        int[] filled = new int[cardsPerRound.length];
+
+        for (int suit = 0; suit < NUM_SUITS; suit++) {
+            long number = numbers[suit];
+            int used = 0;
+
+            for (int round = 0; round < cardsPerRound.length; round++) {
+                int count = countIn(suitShapes[suit], round);
+                long size = CHOOSE[NUM_RANKS - Integer.bitCount(used)][count];
+                long colex = number % size;
+                number /= size;
+
+                // The largest position whose C(position, k) fits is the k-th lowest rank left, and so on down
+                for (int k = count; k > 0; k--) {
+                    int position = k - 1;
+
+                    while (CHOOSE[position + 1][k] <= colex) {
+                        position++;
+                    }
+
+                    colex -= CHOOSE[position][k];
+
+                    int rank = nthUnused(used, position);
+                    used |= 1 << rank;
+                    cards[roundStart(round) + filled[round]++] = rank << 2 | suit;
+                }
+            }
+        }
+    }
+
+    // Getter methods
+    // How many different indices there are
+    public long size() {
+        return offsets[shapes.length];
+    }
+
+    // How many cards a hand has in all
+    public int getNumCards() {
+        return numCards;
+    }
+
+    // Private helper methods!
+    // One suit's key: its shape (4 bits per round, first round highest) << NUMBER_BITS | its number
+    private long suitKey(int[] cards, int suit) {
+        long number = 0;
+        long scale = 1;
+        int shape = 0;
+        int used = 0;
+
+        for (int round = 0, start = 0; round < cardsPerRound.length; start += cardsPerRound[round], round++) {
+            int ranks = 0;
+
+            for (int i = start; i < start + cardsPerRound[round]; i++) {
+                if ((cards[i] & 3) == suit) {
+                    ranks |= 1 << (cards[i] >> 2);
+                }
+            }
+
+            // The ranks as positions among the ones this suit has left, numbered in the combinatorial number system
+            int count = Integer.bitCount(ranks);
+            long colex = 0;
+
+            for (int k = 1, rest = ranks; rest != 0; k++, rest &= rest - 1) {
+                int rank = Integer.numberOfTrailingZeros(rest);
+                colex += CHOOSE[rank - Integer.bitCount(used & (1 << rank) - 1)][k];
+            }
+
+            number += colex * scale;
+            scale *= CHOOSE[NUM_RANKS - Integer.bitCount(used)][count];
+            shape = shape << COUNT_BITS | count;
+            used |= ranks;
+        }
+
+        return (long) shape << NUMBER_BITS | number;
+    }
+
+    /* The number of a hand within its shape combination, from its suits' keys sorted largest first: each run of suits
+    with the same shape is a multiset of their numbers (m_1 >= m_2 >= ... >= m_k, numbered sum of C(m_i + k - i,
+    k - i + 1)), and the runs are digits of a mixed radix number */
+    private long combine(long first, long second, long third, long fourth) {
+        long combined = 0;
+
+        for (int start = 0, end; start < NUM_SUITS; start = end) {
+            int shape = (int) (keyAt(start, first, second, third, fourth) >>> NUMBER_BITS);
+            end = start + 1;
+
+            while (end < NUM_SUITS && keyAt(end, first, second, third, fourth) >>> NUMBER_BITS == shape) {
+                end++;
+            }
+
+            int k = end - start;
+            long multiset = 0;
+
+            for (int i = 0; i < k; i++) {
+                multiset += choose((keyAt(start + i, first, second, third, fourth) & NUMBER_MASK) + k - 1 - i, k - i);
+            }
+
+            combined = combined * choose(suitSizes[shape] + k - 1, k) + multiset;
+        }
+
+        return combined;
+    }
+
+    private static long keyAt(int i, long first, long second, long third, long fourth) {
+        return i == 0 ? first : i == 1 ? second : i == 2 ? third : fourth;
+    }
+
+    // Each suit's number from the number of a hand within its shape combination, the inverse of combine()
+    private long[] split(int[] suitShapes, long combined) {
+        long[] numbers = new long[NUM_SUITS];
+
+        for (int end = NUM_SUITS, start; end > 0; end = start) {
+            start = end - 1;
+
+            while (start > 0 && suitShapes[start - 1] == suitShapes[end - 1]) {
+                start--;
+            }
+
+            int k = end - start;
+            long size = suitSizes[suitShapes[start]];
+            long radix = choose(size + k - 1, k);
+            long multiset = combined % radix;
+            combined /= radix;
+
+            for (int i = 0; i < k; i++) {
+                // The largest m with C(m + k - 1 - i, k - i) <= what's left, found by binary search
+                long low = 0;
+                long high = size - 1;
+
+                while (low < high) {
+                    long middle = (low + high + 1) >>> 1;
+
+                    if (choose(middle + k - 1 - i, k - i) <= multiset) {
+                        low = middle;
+                    }
+
+                    else {
+                        high = middle - 1;
+                    }
+                }
+
+                numbers[start + i] = low;
+                multiset -= choose(low + k - 1 - i, k - i);
+            }
+        }
+
+        return numbers;
+    }
+
+    // Adds every sorted combination of suit shapes that deals the right number of cards each round
+    private void addShapes(int round, int suit, int[] counts, int[] used, TreeSet<Long> found) {
+        if (round == cardsPerRound.length) {
+            long[] sorted = new long[NUM_SUITS];
+
+            for (int s = 0; s < NUM_SUITS; s++) {
+                sorted[s] = counts[s];
+            }
+
+            Arrays.sort(sorted);
+            long packed = 0;
+
+            for (int s = NUM_SUITS - 1; s >= 0; s--) {
+                packed = packed << SHAPE_BITS | sorted[s];
+            }
+
+            found.add(packed);
+            return;
+        }
+
+        // How many of this round's cards the earlier suits took, their lowest 4 bits so far
+        int dealt = 0;
+
+        for (int s = 0; s < suit; s++) {
+            dealt += counts[s] & (1 << COUNT_BITS) - 1;
+        }
+
+        int left = cardsPerRound[round] - dealt;
+
+        // The last suit takes whatever's left, if it has the ranks for it
+        if (suit == NUM_SUITS - 1) {
+            if (left <= NUM_RANKS - used[suit]) {
+                nextSuit(round, suit, left, counts, used, found);
+            }
+
+            return;
+        }
+
+        for (int count = 0; count <= Math.min(left, NUM_RANKS - used[suit]); count++) {
+            nextSuit(round, suit, count, counts, used, found);
+        }
+    }
+
+    // Gives one suit count cards of a round, then carries on with the next suit (or the next round)
+    private void nextSuit(int round, int suit, int count, int[] counts, int[] used, TreeSet<Long> found) {
+        counts[suit] = counts[suit] << COUNT_BITS | count;
+        used[suit] += count;
+
+        if (suit == NUM_SUITS - 1) {
+            addShapes(round + 1, 0, counts, used, found);
+        }
+
+        else {
+            addShapes(round, suit + 1, counts, used, found);
+        }
+
+        counts[suit] >>>= COUNT_BITS;
+        used[suit] -= count;
+    }
+
+    // How many hands a sorted combination of suit shapes has: one more than its largest number, when every suit's is
+    private long countShapes(long packed) {
+        long[] keys = new long[NUM_SUITS];
+
+        for (int suit = 0; suit < NUM_SUITS; suit++) {
+            long shape = packed >>> (NUM_SUITS - 1 - suit) * SHAPE_BITS & 0xFFFF;
+            keys[suit] = shape << NUMBER_BITS | suitSizes[(int) shape] - 1;
+        }
+
+        return combine(keys[0], keys[1], keys[2], keys[3]) + 1;
+    }
+
+    // How many ways one suit can be dealt a shape: C(13, n_1) * C(13 - n_1, n_2) * ...
+    private long countSuit(int shape) {
+        long ways = 1;
+        int used = 0;
+
+        for (int round = 0; round < cardsPerRound.length; round++) {
+            int count = countIn(shape, round);
+
+            if (used + count > NUM_RANKS) {
+                return 0;
+            }
+
+            ways *= CHOOSE[NUM_RANKS - used][count];
+            used += count;
+        }
+
+        return ways;
+    }
+
+    // A suit's card count in one round of its shape
+    private int countIn(int shape, int round) {
+        return shape >>> (cardsPerRound.length - 1 - round) * COUNT_BITS & (1 << COUNT_BITS) - 1;
+    }
+
+    // Where a round's cards start in a hand
+    private int roundStart(int round) {
+        int start = 0;
+
+        for (int i = 0; i < round; i++) {
+            start += cardsPerRound[i];
+        }
+
+        return start;
+    }
+
+    // The rank at a position among the ranks not in used (position 0 = the lowest one left)
+    private static int nthUnused(int used, int position) {
+        int rank = 0;
+
+        for (int left = position; ; rank++) {
+            if ((used & 1 << rank) == 0 && left-- == 0) {
+                return rank;
+            }
+        }
+    }
+
+    // n choose k for numbers past CHOOSE's range, 0 when k > n
+    private static long choose(long n, int k) {
+        if (k > n) {
+            return 0;
+        }
+
+        long ways = 1;
+
+        for (int i = 0; i < k; i++) {
+            ways = ways * (n - i) / (i + 1);
+        }
+
+        return ways;
+    }
+}
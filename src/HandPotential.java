@@ -0,0 +1,472 @@
+/* The HandPotential class measures a hand against one random opponent holding the way poker research does, with its
+strength and its potential kept apart instead of mixed into one average:
+HS = the chance of beating the holding right now (ties count half)
+PPot = the chance that a hand behind (or tied) now is ahead by the river, NPot = the chance that one ahead falls behind
+EHS = HS * (1 - NPot) + (1 - HS) * PPot, the chance of being ahead at the end
+E[HS^2] = the average of the river's HS squared over every run-out, which rewards hands that can end far ahead
+
+On the flop, PPot compares every opponent holding with every turn and river, about a million showdowns. Two things
+cut that down:
+- On one final board, a holding that can't make a flush scores by its ranks alone, so the 1,081 holdings collapse
+  into 91 pairs of ranks (each scored once, and counted by how many of its cards are left) plus the few holdings of the
+  board's flush suit that could make a flush, which are scored one at a time
+- The run-outs are split by turn card across the common ForkJoinPool, each task counting into its own totals
+
+Each Player owns one, reset with the rest of the hand, and another look on the same street reuses the answer */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+
+public final class HandPotential {
+    // Where a holding stands against the player's hand, now and at the river
+    private static final int AHEAD = 0;
+    private static final int TIED = 1;
+    private static final int BEHIND = 2;
+    private static final int NUM_STATUSES = 3;
+
+    private static final int NUM_RANKS = 13;
+
+    // Whether hands are scored the short deck way, and the lowest card index in the deck
+    private boolean isShortDeck;
+    private int lowestCard;
+
+    // The hand last worked out: hole cards then community cards, one bit per card, and how many there are
+    private final int[] cards = new int[Constants.TOTAL_CARDS];
+    private long knownCards;
+    private int numKnown;
+
+    /* Now, each holding's status (holdingStatus[lower card * 52 + higher card]), and the status of each pair of ranks
+    for the holdings that don't have a flush yet (rankPairStatus[lower rank * 13 + higher rank]) */
+    private final byte[] holdingStatus = new byte[HandEvaluator.NUM_CARDS * HandEvaluator.NUM_CARDS];
+    private final byte[] rankPairStatus = new byte[NUM_RANKS * NUM_RANKS];
+
+    private double handStrength;
+    private double positivePotential;
+    private double negativePotential;
+    private double ehsSquared;
+
+    // Switches to a game's deck and hand rankings (e.g. GameVariant.SHORT_DECK), forgetting the last answer
+    public void setVariant(GameVariant variant) {
+        isShortDeck = variant == GameVariant.SHORT_DECK;
+        lowestCard = HandEvaluator.index(variant.getLowestRank(), Constants.CLUBS);
+        reset();
+    }
+
+    // Forgets the last answer, used when a new hand is dealt
+    public void reset() {
+        knownCards = 0;
+    }
+
+    /* Works out every number for the cards dealt so far, unless it's the same cards as last time
+
+    Parameter cards: the two hole cards followed by the community cards dealt so far
+    Parameter numKnown: how many entries of cards are dealt, 5 (the flop) to 7 (the river) */
+    public void compute(int[] cards, int numKnown) {
+        long known = 0;
+
+        for (int i = 0; i < numKnown; i++) {
+            known |= 1L << cards[i];
+        }
+
+        if (known == knownCards && numKnown == this.numKnown) {
+            return;
+        }
+
+        System.arraycopy(cards, 0, this.cards, 0, numKnown);
+        knownCards = known;
+        this.numKnown = numKnown;
+
+        long[] now = countNow();
+
+        handStrength = (now[AHEAD] + now[TIED] / 2.0) / (now[AHEAD] + now[TIED] + now[BEHIND]);
+
+        // Nothing left to come on the river
+        if (numKnown == Constants.TOTAL_CARDS) {
+            positivePotential = 0;
+            negativePotential = 0;
+            ehsSquared = handStrength * handStrength;
+            return;
+        }
+
+        // One task per turn card on the flop, and one for all the rivers on the turn
+        List<RunOutCounter> counters = new ArrayList<>();
+
+        if (numKnown == Constants.TOTAL_CARDS - 1) {
+            counters.add(new RunOutCounter(-1));
+        }
+
+        else {
+            for (int turn = lowestCard; turn < HandEvaluator.NUM_CARDS; turn++) {
+                if ((known & 1L << turn) == 0) {
+                    counters.add(new RunOutCounter(turn));
+                }
+            }
+        }
+
+        ForkJoinTask.invokeAll(counters);
+
+        // counts[now * 3 + river] = holdings and run-outs that go from one status to the other
+        long[] counts = new long[NUM_STATUSES * NUM_STATUSES];
+        double sumOfSquares = 0;
+        long numRunOuts = 0;
+
+        for (RunOutCounter counter : counters) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += counter.counts[i];
+            }
+
+            sumOfSquares += counter.sumOfSquares;
+            numRunOuts += counter.numRunOuts;
+        }
+
+        double behind = total(counts, BEHIND);
+        double tied = total(counts, TIED);
+        double ahead = total(counts, AHEAD);
+
+        positivePotential = ratio(counts[BEHIND * NUM_STATUSES + AHEAD] + counts[BEHIND * NUM_STATUSES + TIED] / 2.0
+                + counts[TIED * NUM_STATUSES + AHEAD] / 2.0, behind + tied / 2);
+        negativePotential = ratio(counts[AHEAD * NUM_STATUSES + BEHIND] + counts[TIED * NUM_STATUSES + BEHIND] / 2.0
+                + counts[AHEAD * NUM_STATUSES + TIED] / 2.0, ahead + tied / 2);
+        ehsSquared = sumOfSquares / numRunOuts;
+    }
+
+    // Getter methods
+    // HS, the chance of beating one random holding with the cards out now
+    public double getHandStrength() {
+        return handStrength;
+    }
+
+    // PPot, the chance of going from behind (or tied) to ahead by the river
+    public double getPositivePotential() {
+        return positivePotential;
+    }
+
+    // NPot, the chance of going from ahead (or tied) to behind by the river
+    public double getNegativePotential() {
+        return negativePotential;
+    }
+
+    // EHS, the chance of being ahead of one random holding once the board is full
+    public double getEffectiveStrength() {
+        return handStrength * (1 - negativePotential) + (1 - handStrength) * positivePotential;
+    }
+
+    // E[HS^2], the average squared chance of beating one random holding on the river
+    public double getEhsSquared() {
+        return ehsSquared;
+    }
+
+    // Private helper methods!
+    /* Scores every holding on the board as it is now, fills in holdingStatus and rankPairStatus, and returns how many
+    holdings the player's hand is ahead of, tied with, and behind */
+    private long[] countNow() {
+        long[] now = new long[NUM_STATUSES];
+        int[] holding = new int[Constants.TOTAL_CARDS];
+        int strength = evaluate(cards, numKnown);
+
+        System.arraycopy(cards, 2, holding, 2, numKnown - 2);
+
+        for (int x = lowestCard; x < HandEvaluator.NUM_CARDS; x++) {
+            for (int y = x + 1; y < HandEvaluator.NUM_CARDS; y++) {
+                if ((knownCards & (1L << x | 1L << y)) != 0) {
+                    continue;
+                }
+
+                holding[0] = x;
+                holding[1] = y;
+
+                int status = compare(strength, evaluate(holding, numKnown));
+
+                holdingStatus[x * HandEvaluator.NUM_CARDS + y] = (byte) status;
+                now[status]++;
+            }
+        }
+
+        // A holding without a flush scores like any other of the same ranks, which can't have one either
+        long boardCards = knownCards & ~(1L << cards[0] | 1L << cards[1]);
+        int flushSuit = flushSuit(cards, 2, numKnown);
+
+        for (int first = 0; first < NUM_RANKS; first++) {
+            for (int second = first; second < NUM_RANKS; second++) {
+                if (pickCards(boardCards, flushSuit, first, second, holding)) {
+                    rankPairStatus[first * NUM_RANKS + second] = (byte) compare(strength, evaluate(holding, numKnown));
+                }
+            }
+        }
+
+        return now;
+    }
+
+    // The strength of the first numCards cards, short deck or not
+    private int evaluate(int[] hand, int numCards) {
+        return isShortDeck ? ShortDeckEvaluator.evaluate(hand, numCards) : HandEvaluator.evaluate(hand, numCards);
+    }
+
+    // Where a holding with strength other stands, from the side of a hand with strength mine
+    private static int compare(int mine, int other) {
+        return mine > other ? AHEAD : mine == other ? TIED : BEHIND;
+    }
+
+    // The suit with three or more of the board cards cards[from] to cards[to - 1], -1 if none does
+    private static int flushSuit(int[] cards, int from, int to) {
+        int suitCounts = 0;
+
+        for (int i = from; i < to; i++) {
+            suitCounts += 1 << ((cards[i] & 3) << 3);
+        }
+
+        for (int suit = 0; suit < 4; suit++) {
+            if ((suitCounts >>> (suit << 3) & 0xFF) >= 3) {
+                return suit;
+            }
+        }
+
+        return -1;
+    }
+
+    /* Puts two cards of the given ranks that aren't on the board into holding[0] and holding[1], returns false if
+    there aren't two. Suits other than flushSuit come first, so the cards can only make a flush if nothing else can */
+    private static boolean pickCards(long boardCards, int flushSuit, int first, int second, int[] holding) {
+        for (int i = 0; i < 2; i++) {
+            int rank = i == 0 ? first : second;
+            holding[i] = -1;
+
+            // With no flush suit (-1), this is just every suit in order
+            for (int n = 0; n < 4 && holding[i] < 0; n++) {
+                int card = rank << 2 | (flushSuit + 1 + n) & 3;
+
+                if ((boardCards & 1L << card) == 0 && (i == 0 || card != holding[0])) {
+                    holding[i] = card;
+                }
+            }
+
+            if (holding[i] < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Every holding and run-out that starts from one status, whatever it ends up as
+    private static double total(long[] counts, int now) {
+        return counts[now * NUM_STATUSES + AHEAD] + counts[now * NUM_STATUSES + TIED]
+                + counts[now * NUM_STATUSES + BEHIND];
+    }
+
+    // A potential is 0 when nothing can start from where it's measured (e.g. nothing is behind a royal flush)
+    private static double ratio(double numerator, double denominator) {
+        return denominator == 0 ? 0 : numerator / denominator;
+    }
+
+    private static long choose2(int n) {
+        return (long) n * (n - 1) / 2;
+    }
+
+    /* Counts every run-out that starts with one turn card (or, on the turn, every river), against every holding
+    Reads the HandPotential's hand and statuses, which don't change while it runs, and keeps its own totals */
+    private final class RunOutCounter extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // The turn card, -1 if it's already on the board
+        private final int turn;
+
+        // The totals: counts[now * 3 + river], the river HS squared summed over the run-outs, and how many there were
+        private final long[] counts = new long[NUM_STATUSES * NUM_STATUSES];
+        private double sumOfSquares;
+        private long numRunOuts;
+
+        // The player's hand and one holding, both followed by the full board
+        private final int[] hand = new int[Constants.TOTAL_CARDS];
+        private final int[] holding = new int[Constants.TOTAL_CARDS];
+
+        // Cards of each rank still out, other than the board's flush suit, and whether that suit's card is out
+        private final int[] numOut = new int[NUM_RANKS];
+        private final int[] flushOut = new int[NUM_RANKS];
+
+        // Holdings at the river that are ahead of, tied with, and behind the player's hand on one run-out
+        private final long[] river = new long[NUM_STATUSES];
+
+        // The full board as HandEvaluator's rank masks, so a Hold 'em holding only has to add its own two cards
+        private int boardOne;
+        private int boardTwo;
+        private int boardThree;
+        private int boardFour;
+        private long boardSuits;
+
+        // Constructor
+        RunOutCounter(int turn) {
+            this.turn = turn;
+        }
+
+        protected void compute() {
+            System.arraycopy(cards, 0, hand, 0, numKnown);
+
+            long dead = knownCards;
+
+            if (turn >= 0) {
+                hand[numKnown] = turn;
+                dead |= 1L << turn;
+            }
+
+            // On the flop, a river below the turn card was already counted as that turn's run-out
+            for (int card = turn >= 0 ? turn + 1 : lowestCard; card < HandEvaluator.NUM_CARDS; card++) {
+                if ((dead & 1L << card) == 0) {
+                    hand[Constants.TOTAL_CARDS - 1] = card;
+                    countRunOut(dead | 1L << card);
+                }
+            }
+        }
+
+        // Scores every holding on the full board in hand, dead = every card that's out (the player's included)
+        private void countRunOut(long dead) {
+            int strength = evaluate(hand, Constants.TOTAL_CARDS);
+            int flushSuit = flushSuit(hand, 2, Constants.TOTAL_CARDS);
+            int numFlushCards = 0;
+
+            for (int i = 2; i < Constants.TOTAL_CARDS; i++) {
+                numFlushCards += (hand[i] & 3) == flushSuit ? 1 : 0;
+            }
+
+            for (int rank = 0; rank < NUM_RANKS; rank++) {
+                numOut[rank] = 0;
+                flushOut[rank] = 0;
+
+                for (int suit = 0; suit < 4; suit++) {
+                    int card = rank << 2 | suit;
+
+                    if (card >= lowestCard && (dead & 1L << card) == 0) {
+                        if (suit == flushSuit) {
+                            flushOut[rank] = 1;
+                        }
+
+                        else {
+                            numOut[rank]++;
+                        }
+                    }
+                }
+            }
+
+            System.arraycopy(hand, 2, holding, 2, Constants.TOTAL_CARDS - 2);
+            boardOne = 0;
+            boardTwo = 0;
+            boardThree = 0;
+            boardFour = 0;
+            boardSuits = 0;
+
+            for (int i = 2; i < Constants.TOTAL_CARDS; i++) {
+                addToBoard(hand[i]);
+            }
+
+            long boardCards = dead & ~(1L << hand[0] | 1L << hand[1]);
+            river[AHEAD] = 0;
+            river[TIED] = 0;
+            river[BEHIND] = 0;
+
+            // Holdings that can't make a flush, one score per pair of ranks
+            for (int first = 0; first < NUM_RANKS; first++) {
+                for (int second = first; second < NUM_RANKS; second++) {
+                    long combos = countWithoutFlush(first, second, numFlushCards);
+
+                    if (combos == 0) {
+                        continue;
+                    }
+
+                    pickCards(boardCards, flushSuit, first, second, holding);
+
+                    int status = compare(strength, scoreHolding());
+
+                    counts[rankPairStatus[first * NUM_RANKS + second] * NUM_STATUSES + status] += combos;
+                    river[status] += combos;
+                }
+            }
+
+            // Holdings that could make a flush: two of the flush suit, or one when the board has four or five
+            if (flushSuit >= 0) {
+                for (int x = flushSuit; x < HandEvaluator.NUM_CARDS; x += 4) {
+                    if (x < lowestCard || (dead & 1L << x) != 0) {
+                        continue;
+                    }
+
+                    for (int y = lowestCard; y < HandEvaluator.NUM_CARDS; y++) {
+                        boolean isSuited = (y & 3) == flushSuit;
+
+                        if (y == x || (dead & 1L << y) != 0 || (isSuited ? y < x : numFlushCards == 3)) {
+                            continue;
+                        }
+
+                        holding[0] = Math.min(x, y);
+                        holding[1] = Math.max(x, y);
+
+                        int status = compare(strength, scoreHolding());
+
+                        counts[holdingStatus[holding[0] * HandEvaluator.NUM_CARDS + holding[1]] * NUM_STATUSES
+                                + status]++;
+                        river[status]++;
+                    }
+                }
+            }
+
+            double riverStrength = (river[AHEAD] + river[TIED] / 2.0) / (river[AHEAD] + river[TIED] + river[BEHIND]);
+
+            sumOfSquares += riverStrength * riverStrength;
+            numRunOuts++;
+        }
+
+        // The strength of holding[0] and holding[1] with the full board
+        private int scoreHolding() {
+            if (isShortDeck) {
+                return ShortDeckEvaluator.evaluate(holding, Constants.TOTAL_CARDS);
+            }
+
+            int one = boardOne;
+            int two = boardTwo;
+            int three = boardThree;
+            int four = boardFour;
+            long suits = boardSuits;
+
+            for (int i = 0; i < 2; i++) {
+                int bit = 1 << (holding[i] >> 2);
+
+                suits |= (long) bit << ((holding[i] & 3) << 4);
+                four |= three & bit;
+                three |= two & bit;
+                two |= one & bit;
+                one |= bit;
+            }
+
+            return HandEvaluator.evaluate(one, two, three, four, suits);
+        }
+
+        private void addToBoard(int card) {
+            int bit = 1 << (card >> 2);
+
+            boardSuits |= (long) bit << ((card & 3) << 4);
+            boardFour |= boardThree & bit;
+            boardThree |= boardTwo & bit;
+            boardTwo |= boardOne & bit;
+            boardOne |= bit;
+        }
+
+        // How many holdings of two ranks are out that can't make a flush on a board with numFlushCards of one suit
+        private long countWithoutFlush(int first, int second, int numFlushCards) {
+            // With four or five on the board, a single card of the suit makes a flush
+            if (numFlushCards >= 4) {
+                return first == second ? choose2(numOut[first]) : (long) numOut[first] * numOut[second];
+            }
+
+            int numFirst = numOut[first] + flushOut[first];
+            int numSecond = numOut[second] + flushOut[second];
+
+            // Two cards of one rank are never both of the flush suit
+            if (first == second) {
+                return choose2(numFirst);
+            }
+
+            // With three, it takes both cards (and with fewer there's no flush suit, so flushOut is all 0)
+            return (long) numFirst * numSecond - flushOut[first] * flushOut[second];
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/* The HandRange class is a weighted set of two-card hands, parsed from the usual range notation
+Every one of the 1326 possible hands gets a weight from 0 (never holds it) to 1 (always holds it), so "AKs:.5" means
+the player shows up with ace-king suited half as often as with the hands at full weight
+
+Supported tokens, separated by commas:
+"AKs", "AKo", "AK" = a suited, offsuit, or any ace-king
+"QQ+", "A2s+", "KTo+" = that hand and every better one with the same top card (or every bigger pair)
+"22-55", "A2s-A5s" = everything from one hand to the other
+"AhKd" = one specific hand
+"20%" or "top 20%" = the strongest 20% of hands (ranked by StartingHands.strengthOrder())
+"any" or "random" = every hand
+Any token can end in ":weight", e.g. "QQ+:.75". When tokens overlap the later one wins */
+import java.util.ArrayList;
+import java.util.List;
+
+
+public final class HandRange {
+    // Number of distinct two-card hands
+    public static final int NUM_COMBOS = 1326;
+
+    // Suit characters in the order of the Constants suit indices
+    private static final String SUIT_CHARS = "cdhs";
+
+    // The two HandEvaluator card indices of every combo, lower index first
+    private static final int[] FIRST_CARDS = new int[NUM_COMBOS];
+    private static final int[] SECOND_CARDS = new int[NUM_COMBOS];
+
+    static {
+        for (int second = 1; second < HandEvaluator.NUM_CARDS; second++) {
+            for (int first = 0; first < second; first++) {
+                FIRST_CARDS[comboIndex(first, second)] = first;
+                SECOND_CARDS[comboIndex(first, second)] = second;
+            }
+        }
+    }
+
+    private final String notation;
+    private final double[] weights;
+
+    // Private constructor, use parse() instead
+    private HandRange(String notation, double[] weights) {
+        this.notation = notation;
+        this.weights = weights;
+    }
+
+    // Parses a range like "AKs, QQ+, A5s:.5", throws an IllegalArgumentException naming the first bad token
+    public static HandRange parse(String notation) {
+        double[] weights = new double[NUM_COMBOS];
+
+        for (String token : notation.split(",")) {
+            token = token.trim();
+
+            if (token.isEmpty()) {
+                continue;
+            }
+
+            double weight = 1;
+            int colon = token.lastIndexOf(':');
+
+            if (colon >= 0) {
+                try {
+                    weight = Double.parseDouble(token.substring(colon + 1).trim());
+                }
+
+                catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Bad weight in \"" + token + "\"");
+                }
+
+                if (weight < 0 || weight > 1) {
+                    throw new IllegalArgumentException("Weight must be between 0 and 1 in \"" + token + "\"");
+                }
+
+                token = token.substring(0, colon).trim();
+            }
+
+            addToken(token, weight, weights);
+        }
+
+        return new HandRange(notation.trim(), weights);
+    }
+
+    // The range holding exactly one hand, given as two HandEvaluator card indices
+    public static HandRange of(int first, int second) {
+        double[] weights = new double[NUM_COMBOS];
+        weights[comboIndex(first, second)] = 1;
+
+        return new HandRange(cardName(first) + cardName(second), weights);
+    }
+
+    /* Parses a list of specific cards such as "Ah7d2c" (spaces allowed) for boards and dead cards
+    Throws an IllegalArgumentException if a card is malformed or listed twice */
+    public static List<Card> parseCards(String cards) {
+        String compact = cards.replaceAll("\\s", "");
+        List<Card> parsed = new ArrayList<>();
+        long seen = 0;
+
+        if (compact.length() % 2 != 0) {
+            throw new IllegalArgumentException("Cards must be a rank and a suit each: \"" + cards + "\"");
+        }
+
+        for (int i = 0; i < compact.length(); i += 2) {
+            int card = cardIndex(compact.charAt(i), compact.charAt(i + 1));
+
+            if (card < 0 || (seen & 1L << card) != 0) {
+                throw new IllegalArgumentException("Bad or repeated card \"" + compact.substring(i, i + 2) + "\"");
+            }
+
+            seen |= 1L << card;
+            parsed.add(new Card(HandEvaluator.rankOf(card), HandEvaluator.suitOf(card)));
+        }
+
+        return parsed;
+    }
+
+    // Index of the combo made of two different HandEvaluator card indices, in either order
+    public static int comboIndex(int first, int second) {
+        int low = Math.min(first, second);
+        int high = Math.max(first, second);
+
+        return high * (high - 1) / 2 + low;
+    }
+
+    public static int firstCard(int combo) {
+        return FIRST_CARDS[combo];
+    }
+
+    public static int secondCard(int combo) {
+        return SECOND_CARDS[combo];
+    }
+
+    // Bit mask of the combo's two cards, in the same layout HandEvaluator and RangeEquity use for dead cards
+    public static long cardMask(int combo) {
+        return 1L << FIRST_CARDS[combo] | 1L << SECOND_CARDS[combo];
+    }
+
+    // Getter methods
+    public double getWeight(int combo) {
+        return weights[combo];
+    }
+
+    // Number of combos with any weight at all
+    public int size() {
+        int size = 0;
+
+        for (double weight : weights) {
+            if (weight > 0) {
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    // Sum of the weights, i.e. how many combos the range is worth
+    public double getTotalWeight() {
+        double total = 0;
+
+        for (double weight : weights) {
+            total += weight;
+        }
+
+        return total;
+    }
+
+    public String toString() {
+        return notation;
+    }
+
+    // Private helper methods!
+    private static void addToken(String token, double weight, double[] weights) {
+        String lower = token.toLowerCase();
+
+        if (lower.equals("any") || lower.equals("random")) {
+            for (int combo = 0; combo < NUM_COMBOS; combo++) {
+                weights[combo] = weight;
+            }
+        }
+
+        else if (lower.endsWith("%")) {
+            addTopPercent(token, lower, weight, weights);
+        }
+
+        else if (token.length() == 4 && cardIndex(token.charAt(0), token.charAt(1)) >= 0
+                && cardIndex(token.charAt(2), token.charAt(3)) >= 0) {
+            int first = cardIndex(token.charAt(0), token.charAt(1));
+            int second = cardIndex(token.charAt(2), token.charAt(3));
+
+            if (first == second) {
+                throw new IllegalArgumentException("Same card twice in \"" + token + "\"");
+            }
+
+            weights[comboIndex(first, second)] = weight;
+        }
+
+        else if (token.indexOf('-') > 0) {
+            String[] ends = token.split("-");
+
+            if (ends.length != 2) {
+                throw new IllegalArgumentException("Bad range \"" + token + "\"");
+            }
+
+            int[] from = parseHand(ends[0].trim(), token);
+            int[] to = parseHand(ends[1].trim(), token);
+
+            // Pairs step both cards together, other hands keep the top card and step the kicker
+            boolean pairs = from[0] == from[1] && to[0] == to[1];
+
+            if (!pairs && (from[0] != to[0] || from[2] != to[2] || from[0] == from[1] || to[0] == to[1])) {
+                throw new IllegalArgumentException("Ends of \"" + token + "\" need the same top card and suits");
+            }
+
+            int low = pairs ? Math.min(from[0], to[0]) : Math.min(from[1], to[1]);
+            int high = pairs ? Math.max(from[0], to[0]) : Math.max(from[1], to[1]);
+
+            for (int rank = low; rank <= high; rank++) {
+                addHand(pairs ? rank : from[0], rank, from[2], weight, weights);
+            }
+        }
+
+        else if (token.endsWith("+")) {
+            int[] hand = parseHand(token.substring(0, token.length() - 1), token);
+
+            // "QQ+" climbs to aces, "A2s+" climbs to one below the top card
+            int last = hand[0] == hand[1] ? 14 : hand[0] - 1;
+
+            for (int rank = hand[1]; rank <= last; rank++) {
+                addHand(hand[0] == hand[1] ? rank : hand[0], rank, hand[2], weight, weights);
+            }
+        }
+
+        else {
+            int[] hand = parseHand(token, token);
+
+            addHand(hand[0], hand[1], hand[2], weight, weights);
+        }
+    }
+
+    // Adds the strongest classes until they cover the percentage of all combos
+    private static void addTopPercent(String token, String lower, double weight, double[] weights) {
+        String number = lower.startsWith("top") ? lower.substring(3) : lower;
+        double percent;
+
+        try {
+            percent = Double.parseDouble(number.substring(0, number.length() - 1).trim());
+        }
+
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad percentage \"" + token + "\"");
+        }
+
+        double target = percent / 100 * NUM_COMBOS;
+        int covered = 0;
+
+        for (int handClass : StartingHands.strengthOrder()) {
+            if (covered >= target) {
+                break;
+            }
+
+            covered += StartingHands.numCombos(handClass);
+
+            addHand(StartingHands.highRank(handClass), StartingHands.lowRank(handClass),
+                    StartingHands.isPair(handClass) ? 0 : StartingHands.isSuited(handClass) ? 1 : -1, weight, weights);
+        }
+    }
+
+    /* Parses "AK", "AKs", "AKo", or "QQ" into {high rank, low rank, suits}, where suits is 1 = suited, -1 = offsuit,
+    and 0 = either */
+    private static int[] parseHand(String hand, String token) {
+        if (hand.length() < 2 || hand.length() > 3) {
+            throw new IllegalArgumentException("Can't read \"" + token + "\"");
+        }
+
+        int first = StartingHands.rankOf(hand.charAt(0));
+        int second = StartingHands.rankOf(hand.charAt(1));
+        int suits = 0;
+
+        if (hand.length() == 3) {
+            char suffix = Character.toLowerCase(hand.charAt(2));
+            suits = suffix == 's' ? 1 : suffix == 'o' ? -1 : 2;
+        }
+
+        if (first < 0 || second < 0 || suits == 2 || (first == second && suits != 0)) {
+            throw new IllegalArgumentException("Can't read \"" + token + "\"");
+        }
+
+        return new int[] {Math.max(first, second), Math.min(first, second), suits};
+    }
+
+    // Sets the weight of every combo with the two ranks (2-14) and suits (1 = suited, -1 = offsuit, 0 = either)
+    private static void addHand(int highRank, int lowRank, int suits, double weight, double[] weights) {
+        for (int highSuit = 0; highSuit < 4; highSuit++) {
+            for (int lowSuit = 0; lowSuit < 4; lowSuit++) {
+                boolean suited = highSuit == lowSuit;
+
+                if ((suits == 1 && !suited) || (suits == -1 && suited) || (highRank == lowRank && suited)) {
+                    continue;
+                }
+
+                weights[comboIndex(HandEvaluator.index(highRank, highSuit), HandEvaluator.index(lowRank, lowSuit))]
+                        = weight;
+            }
+        }
+    }
+
+    // The usual name of a HandEvaluator card index, e.g. "Ah"
+    private static String cardName(int card) {
+        return "" + StartingHands.rankChar(HandEvaluator.rankOf(card)) + SUIT_CHARS.charAt(HandEvaluator.suitOf(card));
+    }
+
+    // HandEvaluator index of a rank and suit character pair like 'A', 'h', -1 if it isn't a card
+    private static int cardIndex(char rank, char suit) {
+        int rankValue = StartingHands.rankOf(rank);
+        int suitValue = SUIT_CHARS.indexOf(suit);
+
+        return rankValue < 0 || suitValue < 0 ? -1 : HandEvaluator.index(rankValue, suitValue);
+    }
+}
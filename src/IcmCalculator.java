@@ -0,0 +1,282 @@
+/* The IcmCalculator class turns tournament chip counts into prize money with the Independent Chip Model (ICM)
+ICM assumes a player finishes first with probability chips / total chips, and given who's already placed, takes each
+next place the same way among those left
+
+Summing over every finishing order is factorial in the number of players, but the chance of a place only depends on
+which players already finished above it (not their order), so up to MAX_EXACT players it's worked out once per subset
+of players instead: 2^n subsets, each handing out the next place to n players
+Bigger fields are estimated by sampling finishing orders on every core, and those results are cached since the same
+field tends to be asked about many times between hands */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+
+public final class IcmCalculator {
+    // Largest field worked out exactly, 2^MAX_EXACT subsets
+    public static final int MAX_EXACT = 16;
+
+    // Finishing orders sampled for bigger fields
+    public static final int DEFAULT_SAMPLES = 20000;
+
+    // Sampled results kept around, least recently used ones are dropped first
+    private static final int CACHE_SIZE = 64;
+
+    private static final Map<List<Object>, double[]> CACHE = new LinkedHashMap<List<Object>, double[]>(16, .75f,
+            true) {
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, double[]> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    // Static utility class, no instances
+    private IcmCalculator() {
+    }
+
+    /* Returns each player's expected prize money, exactly up to MAX_EXACT players with chips and sampled beyond that
+
+    Parameter chips: each player's chip count. Players with no chips finish below everyone who has some
+    Parameter payouts: the prize for each place, index 0 = first place. Places past the end pay nothing */
+    public static double[] equities(long[] chips, double[] payouts) {
+        if (countAlive(chips) <= MAX_EXACT) {
+            return exact(chips, payouts);
+        }
+
+        List<Object> key = List.of(Arrays.toString(chips), Arrays.toString(payouts));
+
+        synchronized (CACHE) {
+            double[] cached = CACHE.get(key);
+
+            if (cached != null) {
+                return cached.clone();
+            }
+        }
+
+        double[] equities = sample(chips, payouts, DEFAULT_SAMPLES, Arrays.hashCode(chips));
+
+        synchronized (CACHE) {
+            CACHE.put(key, equities.clone());
+        }
+
+        return equities;
+    }
+
+    // The exact answer, throws an IllegalArgumentException if more than MAX_EXACT players have chips
+    public static double[] exact(long[] chips, double[] payouts) {
+        int numPlayers = chips.length;
+        double[] equities = new double[numPlayers];
+
+        // Map the players with chips onto subset bits, the rest split whatever the bottom places pay
+        int[] alive = new int[numPlayers];
+        int numAlive = 0;
+        long total = 0;
+
+        for (int player = 0; player < numPlayers; player++) {
+            if (chips[player] > 0) {
+                alive[numAlive++] = player;
+                total += chips[player];
+            }
+        }
+
+        if (numAlive > MAX_EXACT) {
+            throw new IllegalArgumentException("ICM is only exact up to " + MAX_EXACT + " players");
+        }
+
+        splitBottomPlaces(chips, payouts, numAlive, equities);
+
+        int numPaid = Math.min(numAlive, payouts.length);
+
+        // probabilities[subset] = chance the players in subset take exactly the top |subset| places
+        double[] probabilities = new double[1 << numAlive];
+        long[] subsetChips = new long[1 << numAlive];
+
+        probabilities[0] = 1;
+
+        for (int subset = 0; subset < probabilities.length; subset++) {
+            double probability = probabilities[subset];
+            int place = Integer.bitCount(subset);
+
+            // Nobody below the last paid place wins anything, so there's no need to go deeper
+            if (probability == 0 || place >= numPaid) {
+                continue;
+            }
+
+            double remaining = total - subsetChips[subset];
+
+            for (int i = 0; i < numAlive; i++) {
+                int bit = 1 << i;
+
+                if ((subset & bit) != 0) {
+                    continue;
+                }
+
+                double next = probability * chips[alive[i]] / remaining;
+
+                equities[alive[i]] += next * payouts[place];
+                probabilities[subset | bit] += next;
+                subsetChips[subset | bit] = subsetChips[subset] + chips[alive[i]];
+            }
+        }
+
+        return equities;
+    }
+
+    /* Estimates the answer from random finishing orders, split across the common ForkJoinPool
+    An ICM finishing order is the same as sorting players by random keys -ln(u) / chips (smallest key finishes
+    first), so each sample is one pass of random numbers and one sort */
+    public static double[] sample(long[] chips, double[] payouts, int numSamples, long seed) {
+        int numPlayers = chips.length;
+        double[] equities = new double[numPlayers];
+        int numAlive = countAlive(chips);
+
+        splitBottomPlaces(chips, payouts, numAlive, equities);
+
+        int numTasks = Math.max(1, Math.min(numSamples, ForkJoinPool.getCommonPoolParallelism()));
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Future<double[]>> futures = new ArrayList<>();
+
+        for (int task = 0; task < numTasks; task++) {
+            int samples = numSamples / numTasks + (task < numSamples % numTasks ? 1 : 0);
+            SplittableRandom taskRandom = random.split();
+
+            futures.add(ForkJoinPool.commonPool().submit(() -> sampleBatch(chips, payouts, numAlive, samples,
+                    taskRandom)));
+        }
+
+        try {
+            for (Future<double[]> future : futures) {
+                double[] sums = future.get();
+
+                for (int player = 0; player < numPlayers; player++) {
+                    equities[player] += sums[player] / numSamples;
+                }
+            }
+        }
+
+        catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("ICM sampling failed", e);
+        }
+
+        return equities;
+    }
+
+    /* Returns the extra chance of winning (0-1) a tournament player needs to call, on top of what the pot odds say
+    Calling and losing costs more prize money than calling and winning gains, so calls need to be better than
+    the chips alone suggest. Answers are exact up to MAX_EXACT players
+
+    Parameter chips: everyone's chips behind, not counting what's already in the pot
+    Parameter opponent: who takes the pot if the player folds or loses, usually the biggest stack still in the hand
+    Parameter call: chips the player has to put in to call (capped at their stack)
+    Parameter pot: chips already in the middle */
+    public static double riskPremium(long[] chips, double[] payouts, int player, int opponent, long call, long pot) {
+        call = Math.min(call, chips[player]);
+
+        // Chip EV: break even when the chance of winning = call / (pot + call)
+        double chipEvNeeded = (double) call / (pot + call);
+        long[] outcome = chips.clone();
+
+        outcome[opponent] = chips[opponent] + pot;
+        double fold = equities(outcome, payouts)[player];
+
+        outcome[player] = chips[player] + pot;
+        outcome[opponent] = chips[opponent];
+        double win = equities(outcome, payouts)[player];
+
+        outcome[player] = chips[player] - call;
+        outcome[opponent] = chips[opponent] + pot + call;
+        double lose = equities(outcome, payouts)[player];
+
+        if (win <= lose) {
+            return 0;
+        }
+
+        return Math.max(0, (fold - lose) / (win - lose) - chipEvNeeded);
+    }
+
+    /* Shrinks a field's payouts down to one table's worth, so a table can be run through ICM on its own
+    The table's players are spread through the field, so each of its places is paid the average of an equal block
+    of the field's places. At the final table (tableSize == fieldSize) these are just the payouts */
+    public static double[] tablePayouts(double[] fieldPayouts, int fieldSize, int tableSize) {
+        double[] payouts = new double[tableSize];
+
+        for (int place = 0; place < tableSize; place++) {
+            int from = (int) ((long) place * fieldSize / tableSize);
+            int to = (int) ((long) (place + 1) * fieldSize / tableSize);
+
+            for (int fieldPlace = from; fieldPlace < Math.min(to, fieldPayouts.length); fieldPlace++) {
+                payouts[place] += fieldPayouts[fieldPlace] / (to - from);
+            }
+        }
+
+        return payouts;
+    }
+
+    // Private helper methods!
+    // Players with chips left
+    private static int countAlive(long[] chips) {
+        int numAlive = 0;
+
+        for (long stack : chips) {
+            if (stack > 0) {
+                numAlive++;
+            }
+        }
+
+        return numAlive;
+    }
+
+    // Players without chips share the places below everyone who has chips
+    private static void splitBottomPlaces(long[] chips, double[] payouts, int numAlive, double[] equities) {
+        int numBusted = chips.length - numAlive;
+        double share = 0;
+
+        for (int place = numAlive; place < Math.min(chips.length, payouts.length); place++) {
+            share += payouts[place] / numBusted;
+        }
+
+        for (int player = 0; player < chips.length; player++) {
+            if (chips[player] <= 0) {
+                equities[player] = share;
+            }
+        }
+    }
+
+    // One task's share of sample(), returns each player's summed winnings
+    private static double[] sampleBatch(long[] chips, double[] payouts, int numAlive, int numSamples,
+                                        SplittableRandom random) {
+        int numPlayers = chips.length;
+        int numPaid = Math.min(numAlive, payouts.length);
+        double[] sums = new double[numPlayers];
+
+        // Each key is packed with its player's index in the low bits, so sorting plain longs sorts the players
+        int indexBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, numPlayers - 1));
+        long indexMask = (1L << indexBits) - 1;
+        long[] keys = new long[numAlive];
+
+        for (int sample = 0; sample < numSamples; sample++) {
+            int k = 0;
+
+            for (int player = 0; player < numPlayers; player++) {
+                if (chips[player] > 0) {
+                    // Positive doubles sort the same as their bits, the lowest bits give way to the index
+                    double key = -Math.log(1 - random.nextDouble()) / chips[player];
+                    keys[k++] = Double.doubleToRawLongBits(key) & ~indexMask | player;
+                }
+            }
+
+            Arrays.sort(keys);
+
+            for (int place = 0; place < numPaid; place++) {
+                sums[(int) (keys[place] & indexMask)] += payouts[place];
+            }
+        }
+
+        return sums;
+    }
+}
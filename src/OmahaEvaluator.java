@@ -0,0 +1,260 @@
+/* The OmahaEvaluator class scores Omaha hands, where a hand has to be exactly two of the four hole cards and exactly
+three of the board: 6 hole pairs x 10 board triples = 60 five card hands to pick the best of
+Evaluating all 60 with HandEvaluator would make every Omaha showdown and equity sample 60 times slower than Hold 'em,
+so none of them are evaluated at all. A five card hand is either suited (a flush or straight flush, which only depends
+on its ranks) or not (which only depends on its ranks, too), so two lookup tables cover every hand:
+NON_FLUSH by the board's three ranks and the hole pair's two, and FLUSH by the 13-bit mask of all five
+
+setBoard() works out each board triple's ranks and suit once, then evaluate() combines them with each hole pair's in
+a couple of array lookups. The board only changes once per street, so a showdown sets it once for every player */
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+public final class OmahaEvaluator {
+    // Cards an Omaha hand has to take from the hole and from the board
+    public static final int HOLE_CARDS = 4;
+    private static final int HOLE_CARDS_USED = 2;
+    private static final int BOARD_CARDS_USED = 3;
+
+    // A full board, and the number of triples it has
+    private static final int BOARD_CARDS = Constants.TOTAL_CARDS - 2;
+    private static final int MAX_TRIPLES = 10;
+
+    private static final int NUM_RANKS = 13;
+
+    /* The ranks of a triple or pair, as one base-13 number, map to which set of ranks they are (order doesn't matter):
+    C(15, 3) = 455 sets of three ranks and C(14, 2) = 91 sets of two, repeats allowed */
+    private static final int NUM_TRIPLE_RANKS = 455;
+    private static final int NUM_PAIR_RANKS = 91;
+    private static final short[] TRIPLE_INDEX = new short[NUM_RANKS * NUM_RANKS * NUM_RANKS];
+    private static final short[] PAIR_INDEX = new short[NUM_RANKS * NUM_RANKS];
+
+    /* NON_FLUSH[triple index * 91 + pair index] = the strength of five cards with those ranks that aren't all one suit
+    Indexing by sets of ranks keeps it to 41,405 ints, small enough to stay in the CPU's cache */
+    private static final int[] NON_FLUSH = new int[NUM_TRIPLE_RANKS * NUM_PAIR_RANKS];
+
+    // FLUSH[rank mask] = the strength of five suited cards with those ranks (a flush or straight flush)
+    private static final int[] FLUSH = new int[1 << NUM_RANKS];
+
+    static {
+        int[] tripleRanks = indexRankSets(TRIPLE_INDEX, BOARD_CARDS_USED);
+        int[] pairRanks = indexRankSets(PAIR_INDEX, HOLE_CARDS_USED);
+        int[] cards = new int[Constants.HAND_SIZE];
+
+        // Suits 0-3 then 0 again can't make a flush, and repeats of one rank on one suit just count as copies
+        for (int triple = 0; triple < NUM_TRIPLE_RANKS; triple++) {
+            for (int pair = 0; pair < NUM_PAIR_RANKS; pair++) {
+                int ranks = tripleRanks[triple] * NUM_RANKS * NUM_RANKS + pairRanks[pair];
+
+                for (int i = 0; i < Constants.HAND_SIZE; i++, ranks /= NUM_RANKS) {
+                    cards[i] = (ranks % NUM_RANKS) << 2 | i % 4;
+                }
+
+                NON_FLUSH[triple * NUM_PAIR_RANKS + pair] = HandEvaluator.evaluate(cards, Constants.HAND_SIZE);
+            }
+        }
+
+        for (int mask = 0; mask < FLUSH.length; mask++) {
+            if (Integer.bitCount(mask) != Constants.HAND_SIZE) {
+                continue;
+            }
+
+            for (int i = 0, rest = mask; i < Constants.HAND_SIZE; i++, rest &= rest - 1) {
+                cards[i] = Integer.numberOfTrailingZeros(rest) << 2;
+            }
+
+            FLUSH[mask] = HandEvaluator.evaluate(cards, Constants.HAND_SIZE);
+        }
+    }
+
+    // Each board triple: its set of ranks (times 91, ready for the pair's), rank mask, suit, and cards
+    private final int[] tripleRanks = new int[MAX_TRIPLES];
+    private final int[] tripleMasks = new int[MAX_TRIPLES];
+    private final int[] tripleCards = new int[MAX_TRIPLES * BOARD_CARDS_USED];
+    private int numTriples;
+
+    // Each triple's suit if all three share one, -1 otherwise (-2 for pairs in evaluate(), so those never match)
+    private final int[] tripleSuits = new int[MAX_TRIPLES];
+
+    // Used by winChance() and evaluate() for hands with a repeated card, so nothing is allocated per call
+    private final int[] board = new int[BOARD_CARDS];
+    private final int[] opponent = new int[HOLE_CARDS];
+    private final int[] five = new int[Constants.HAND_SIZE];
+
+    /* Works out every triple of the board, needed before evaluate()
+    Boards with fewer than three cards have no triples, and evaluate() falls back to HandEvaluator for them
+
+    Parameter cards, from: the board is numBoard card indices starting at cards[from] */
+    public void setBoard(int[] cards, int from, int numBoard) {
+        numTriples = 0;
+
+        for (int i = from; i < from + numBoard; i++) {
+            for (int j = i + 1; j < from + numBoard; j++) {
+                for (int k = j + 1; k < from + numBoard; k++) {
+                    int a = cards[i];
+                    int b = cards[j];
+                    int c = cards[k];
+
+                    tripleRanks[numTriples] = TRIPLE_INDEX[((a >> 2) * NUM_RANKS + (b >> 2)) * NUM_RANKS + (c >> 2)]
+                            * NUM_PAIR_RANKS;
+                    tripleMasks[numTriples] = 1 << (a >> 2) | 1 << (b >> 2) | 1 << (c >> 2);
+                    tripleSuits[numTriples] = (a & 3) == (b & 3) && (b & 3) == (c & 3) ? a & 3 : -1;
+                    tripleCards[numTriples * BOARD_CARDS_USED] = a;
+                    tripleCards[numTriples * BOARD_CARDS_USED + 1] = b;
+                    tripleCards[numTriples * BOARD_CARDS_USED + 2] = c;
+                    numTriples++;
+                }
+            }
+        }
+    }
+
+    /* Returns the HandEvaluator strength of the best hand four hole cards make with the board from setBoard()
+    Before the flop there's no Omaha hand yet, so that's just HandEvaluator's score of the hole cards (for display)
+
+    Parameter cards, from: the hole cards are the four card indices starting at cards[from] */
+    public int evaluate(int[] cards, int from) {
+        if (numTriples == 0) {
+            System.arraycopy(cards, from, opponent, 0, HOLE_CARDS);
+            return HandEvaluator.evaluate(opponent, HOLE_CARDS);
+        }
+
+        int best = 0;
+
+        for (int i = from; i < from + HOLE_CARDS; i++) {
+            for (int j = i + 1; j < from + HOLE_CARDS; j++) {
+                int a = cards[i];
+                int b = cards[j];
+                int pairRanks = PAIR_INDEX[(a >> 2) * NUM_RANKS + (b >> 2)];
+                int pairMask = 1 << (a >> 2) | 1 << (b >> 2);
+                int pairSuit = (a & 3) == (b & 3) ? a & 3 : -2;
+
+                for (int t = 0; t < numTriples; t++) {
+                    int strength;
+
+                    if (tripleSuits[t] != pairSuit) {
+                        strength = NON_FLUSH[tripleRanks[t] + pairRanks];
+                    }
+
+                    // Only another deck's copy of a card can repeat a rank within one suit, so score those directly
+                    else if ((tripleMasks[t] & pairMask) != 0 || Integer.bitCount(pairMask) < HOLE_CARDS_USED) {
+                        strength = evaluateFive(t, a, b);
+                    }
+
+                    else {
+                        strength = FLUSH[tripleMasks[t] | pairMask];
+                    }
+
+                    best = Math.max(best, strength);
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /* Returns the chance that four hole cards beat one random Omaha holding by the river (ties count half), from
+    numSamples random run-outs and opponent holdings. Cards are drawn as if from one deck
+
+    Parameter cards: the four hole cards followed by the numBoard (0, 3, 4, or 5) board cards dealt so far
+    Parameter random: where the samples come from, e.g. the deciding player's random numbers */
+    public double winChance(int[] cards, int numBoard, int numSamples, SplittableRandom random) {
+        long known = 0;
+
+        for (int i = 0; i < HOLE_CARDS + numBoard; i++) {
+            known |= 1L << cards[i];
+        }
+
+        System.arraycopy(cards, HOLE_CARDS, board, 0, numBoard);
+
+        // With the whole board out, the player's own hand is the same every sample
+        int strength = 0;
+
+        if (numBoard == BOARD_CARDS) {
+            setBoard(board, 0, BOARD_CARDS);
+            strength = evaluate(cards, 0);
+        }
+
+        double wins = 0;
+
+        for (int sample = 0; sample < numSamples; sample++) {
+            long used = known;
+
+            for (int i = numBoard; i < BOARD_CARDS; i++) {
+                board[i] = draw(used, random);
+                used |= 1L << board[i];
+            }
+
+            for (int i = 0; i < HOLE_CARDS; i++) {
+                opponent[i] = draw(used, random);
+                used |= 1L << opponent[i];
+            }
+
+            if (numBoard < BOARD_CARDS) {
+                setBoard(board, 0, BOARD_CARDS);
+                strength = evaluate(cards, 0);
+            }
+
+            int other = evaluate(opponent, 0);
+
+            wins += strength > other ? 1 : strength == other ? .5 : 0;
+        }
+
+        return wins / numSamples;
+    }
+
+    // Private helper methods!
+    /* Fills index[ranks as a base-13 number] for every numRanks ranks with which set of ranks they are, numbered in
+    the order the sets first come up, and returns each set's ranks (as its lowest base-13 number) by number */
+    private static int[] indexRankSets(short[] index, int numRanks) {
+        int[] sets = new int[index.length];
+        int numSets = 0;
+
+        for (int ranks = 0; ranks < index.length; ranks++) {
+            // The same ranks as the lowest number they make, which comes up before any other order of them
+            int[] digits = new int[numRanks];
+
+            for (int i = 0, rest = ranks; i < numRanks; i++, rest /= NUM_RANKS) {
+                digits[i] = rest % NUM_RANKS;
+            }
+
+            Arrays.sort(digits);
+            int sorted = 0;
+
+            for (int i = 0; i < numRanks; i++) {
+                sorted = sorted * NUM_RANKS + digits[i];
+            }
+
+            if (sorted == ranks) {
+                sets[numSets] = ranks;
+                index[ranks] = (short) numSets++;
+            }
+
+            else {
+                index[ranks] = index[sorted];
+            }
+        }
+
+        return Arrays.copyOf(sets, numSets);
+    }
+
+    // Scores one triple with one hole pair the long way
+    private int evaluateFive(int triple, int a, int b) {
+        System.arraycopy(tripleCards, triple * BOARD_CARDS_USED, five, 0, BOARD_CARDS_USED);
+        five[BOARD_CARDS_USED] = a;
+        five[BOARD_CARDS_USED + 1] = b;
+
+        return HandEvaluator.evaluate(five, Constants.HAND_SIZE);
+    }
+
+    // A random card index that isn't in used
+    private static int draw(long used, SplittableRandom random) {
+        int card;
+
+        do {
+            card = random.nextInt(HandEvaluator.NUM_CARDS);
+        } while ((used & 1L << card) != 0);
+
+        return card;
+    }
+}
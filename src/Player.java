@@ -1,13 +1,24 @@
 /* The Player class represents both AI and real (user) players that participate in the Game
-It includes methods which determine the AI's moves, and the Scanning framework for the real player to make decisions */
+It includes the Scanning framework for the real player to make decisions, while the AI's moves come from a Strategy */
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
 
 
 public class Player extends Hand {
     // Immutable player characteristic
     private final boolean isHuman;
 
+    // Decides the AI's moves, null for the human player
+    private final Strategy strategy;
+
+    // Everything the other players have seen this player do, the same object for the player's whole game
+    private final PlayerStats stats;
+
+    // Hand strength work the AI has already done this hand, so later decisions can reuse it
+    private final EquitySession equitySession;
+    private final HandPotential handPotential;
+
     // Changes if a player has a special bankroll (i.e. Lil' Tommy starts with fewer chips)
     private String name;
 
@@ -18,20 +29,30 @@ public class Player extends Hand {
     // Changes once every round
     private boolean hasFolded;
 
-    // If a player went all in but couldn't match the bet, they can only win a side pot Defaults to false
-    private boolean canOnlyWinSidePot;
-
-    // Constructor
+    // Constructor, AI players use the default strategy
     public Player(String name, int bankroll, boolean isHuman) {
+        this(name, bankroll, isHuman, isHuman ? null : DefaultStrategy.INSTANCE);
+    }
+
+    // Second constructor, used to give an AI player a different Strategy
+    public Player(String name, int bankroll, Strategy strategy) {
+        this(name, bankroll, false, strategy);
+    }
+
+    private Player(String name, int bankroll, boolean isHuman, Strategy strategy) {
         super();
 
         this.name = name;
         this.bankroll = bankroll;
         this.isHuman = isHuman;
+        this.strategy = strategy;
+
+        stats = new PlayerStats();
+        equitySession = new EquitySession();
+        handPotential = new HandPotential();
 
         bet = 0;
         hasFolded = false;
-        canOnlyWinSidePot = false;
     }
 
     // Getter methods
@@ -51,12 +72,16 @@ public class Player extends Hand {
         return isHuman;
     }
 
-    public boolean hasFolded() {
-        return hasFolded;
+    public Strategy getStrategy() {
+        return strategy;
     }
 
-    public boolean canOnlyWinSidePot() {
-        return canOnlyWinSidePot;
+    public PlayerStats getStats() {
+        return stats;
+    }
+
+    public boolean hasFolded() {
+        return hasFolded;
     }
 
     // Setter methods
@@ -86,17 +111,27 @@ public class Player extends Hand {
         this.hasFolded = hasFolded;
     }
 
-    public void setCanOnlyWinSidePot(boolean canOnlyWinSidePot) {
-        this.canOnlyWinSidePot = canOnlyWinSidePot;
-    }
-
     // Reset every player variable except isHuman, name, and bankroll (useful for starting new rounds)
     public void reset() {
         bet = 0;
         hasFolded = false;
-        canOnlyWinSidePot = false;
 
         newHand();
+        stats.startHand();
+        equitySession.reset();
+        handPotential.reset();
+    }
+
+    // Also moves the EquitySession and HandPotential onto the variant's deck and hand rankings
+    public void setVariant(GameVariant variant) {
+        super.setVariant(variant);
+        equitySession.setVariant(variant);
+        handPotential.setVariant(variant);
+    }
+
+    // Gives the EquitySession the Table's scored river (see RiverBoard), so the AI's river decisions are lookups
+    public void setRiverBoard(RiverBoard riverBoard) {
+        equitySession.setRiverBoard(riverBoard);
     }
 
     // Check if the user is bankrupt / has gone all in
@@ -104,109 +139,113 @@ public class Player extends Hand {
         return bankroll <= 0;
     }
 
-    // Checks if the player can't raise or call at this time
-    public boolean cannotPlay(int callCost, boolean canRaise) {
-        /* If a player already went all in and then the bet was raised, they can only win a side pot
-        I acknowledge this line is really weird and will probably be executed more than necessary, but
-        honestly side pots are so difficult to calc that this is the most elegant solution I found */
-        if (isBankrupt() && callCost > bet) {
-            canOnlyWinSidePot = true;
+    /* Special code used to ante (pre-flop), the human may need to clear the scanner depending on the round
+    Parameter minRaise: the smallest raise allowed, unless it's going all in
+    Parameter maxRaise: the biggest raise a pot-limit table allows, Integer.MAX_VALUE at no-limit tables */
+    public int anteUp(int callCost, boolean canRaise, int minRaise, int maxRaise, boolean isNotRound1, int pot,
+                      List<Player> opponents, int bigBlind, double riskPremium, SplittableRandom random) {
+        // Human betting process is the same regardless of what part of the round it is
+        if (isHuman) {
+            return humanPlay(callCost, canRaise, minRaise, maxRaise, isNotRound1);
         }
 
-        /* Play is only possible if you haven't folded, gone all in, and have a reason to bet
-        Check if a bet must be matched or can be raised to ensure that there's a reason to play */
-        return hasFolded || isBankrupt() || (callCost == bet && !canRaise);
+        // The AI's strategy knows it's pre-flop because the context has no community cards
+        return act(strategy.decide(getContext(callCost, canRaise, pot, opponents, bigBlind, riskPremium,
+                random)), callCost, canRaise, minRaise, maxRaise);
     }
 
-    // Special code used to ante (pre-flop) because the AI needs to use a lookup table
-    public int anteUp(int callCost, boolean canRaise, boolean isNotRound1) {
+    // Lets the user and AI play a regular (post-flop) turn of Texas Hold 'em
+    public int play(int callCost, boolean canRaise, int minRaise, int maxRaise, int pot, List<Player> opponents,
+                    int bigBlind, double riskPremium, SplittableRandom random) {
         // Human betting process is the same regardless of what part of the round it is
         if (isHuman) {
-            return humanPlay(callCost, canRaise, isNotRound1);
+            return humanPlay(callCost, canRaise, minRaise, maxRaise, true);
         }
 
-        // AI decision process pre-flop
-        else {
-            // Get pre-flop Cards and data
-            Card[] openingHand = getOpeningHand();
-            Integer[] openingHandRanks = {openingHand[0].getRank(), openingHand[1].getRank()};
-
-            /* Consult the lookup table to determine the AI's next move
-            Cast openingHandRanks to a list, so it can be used as a key for lookup table */
-            String[] potentialMoves = Constants.preFlopLookupTable.get(List.of(openingHandRanks));
+        return act(strategy.decide(getContext(callCost, canRaise, pot, opponents, bigBlind, riskPremium,
+                random)), callCost, canRaise, minRaise, maxRaise);
+    }
 
-            // The hand's value depends, weather the suits match --> index 0 for match, 1 for differences
-            String move = openingHand[0].getSuit() == openingHand[1].getSuit() ? potentialMoves[0] : potentialMoves[1];
+    /* Returns a snapshot of what this player knows right now, which is all a Strategy gets to see
+    Parameter opponents: the other players who haven't folded, whose stats model what they might be holding
+    Parameter bigBlind: the table's big blind, which strategies size their bets by
+    Parameter riskPremium: the extra chance of winning a tournament call needs (see IcmCalculator), 0 in cash games */
+    public DecisionContext getContext(int callCost, boolean canRaise, int pot, List<Player> opponents, int bigBlind,
+                                      double riskPremium, SplittableRandom random) {
+        ArrayList<Card> cards = getHand();
+
+        // The first cards (2, or 4 in Omaha) are always the player's unique cards, the rest are the community
+        int numHoleCards = getNumHoleCards();
+        Card[] holeCards = new Card[numHoleCards];
+        Card[] board = new Card[cards.size() - numHoleCards];
+
+        for (int i = 0; i < numHoleCards; i++) {
+            holeCards[i] = cards.get(i);
+        }
 
-            // Math.random() < Constants.AI_BLUFF --> AI bluffs at a random rate
-            if (canRaise && (move.equals("RAISE") || Math.random() < Constants.AI_BLUFF)){
-                return raise(callCost, Constants.AI_RAISE);
-            }
+        for (int i = 0; i < board.length; i++) {
+            board[i] = cards.get(i + numHoleCards);
+        }
 
-            // Call if the hand is good enough, if there's no need to fold, or to randomly bluff
-            else if (move.equals("CALL") || callCost == bet || Math.random() < Constants.AI_BLUFF) {
-                return call(callCost);
-            }
+        double[] opponentRanges = new double[opponents.size()];
+        double foldToRaise = 0;
 
-            return fold(callCost);
+        for (int i = 0; i < opponentRanges.length; i++) {
+            opponentRanges[i] = opponents.get(i).getStats().getRangeWidth();
+            foldToRaise += opponents.get(i).getStats().getFoldToRaise() / opponentRanges.length;
         }
+
+        return new DecisionContext(getVariant(), holeCards, board, pot, callCost, bet, bankroll, bigBlind,
+                opponentRanges, foldToRaise, canRaise, riskPremium, random, equitySession,
+                handPotential);
     }
 
-    // Lets the user and AI play a regular (post-flop) turn of Texas Hold 'em
-    public int play(int callCost, boolean canRaise, int pot, int numPlayersNotFolded) {
-        // Human betting process is the same regardless of what part of the round it is
-        if (isHuman) {
-            return humanPlay(callCost, canRaise, true);
-        }
+    /* Returns the card abstraction bucket (see CardBuckets) of this player's hole cards with the board so far
+    buckets has to be a Texas Hold 'em file for the street being played, i.e. with getNumBoardCards() board cards */
+    public int getBucket(CardBuckets buckets) {
+        ArrayList<Card> cards = getHand();
 
-        /* AI decision process post-flop
-        Set the initial value of totalScore to getScore() (and numOfScores to 1) because 
-        it will be the only score if the community is full --> getCombinations = None */
-        int numOfScores = 1;
-        double totalScore = getScore();
-        
-        // Iterate through every possible remaining hand combination
-        for (List<Card> combo : getCombinations(Constants.SAMPLE_DECK.getDeck(), 
-                Constants.TOTAL_CARDS - getSize())) {
-            addCards((ArrayList<Card>) combo);
-            numOfScores++;
-            
-            // Calc potential hand score
-            totalScore += getScore();
-            remCards((ArrayList<Card>) combo);
+        if (getNumHoleCards() != 2 || cards.size() != 2 + buckets.getNumBoardCards()) {
+            throw new IllegalStateException("The buckets are for " + buckets.getNumBoardCards()
+                    + " board cards and two hole cards, this hand has " + cards.size() + " cards");
         }
 
-        // Expected (avg) score for not folding
-        double avgScore = totalScore / numOfScores;
+        int[] indices = new int[cards.size()];
 
-        // What percent of hands are worse than this one?
-        double scorePercentile = getScorePercentile(avgScore);
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = cards.get(i).getIndex();
+        }
 
-        // If one opponent has a .95 lose rate, 2 have .95^2 = .9025...
-        double probOfWinning = Math.pow(scorePercentile, numPlayersNotFolded);
+        return buckets.getBucket(indices);
+    }
 
-        /* For a bet to make sense, pot * prob > bet --> ideal bet = pot * prob
-        Also make sure that the AI doesn't try to bet more money than it has access to */
-        int optimalRaise = (int) Math.min(bankroll + bet - callCost, pot * probOfWinning - bet);
+    /* Carries out a Strategy's decision, returns the updated callCost like raise(), call(), and fold() do
+    Raises smaller than minRaise are bumped up to it, and ones past a pot-limit table's maxRaise (or the player's
+    chips) cut down to it */
+    public int act(Decision decision, int callCost, boolean canRaise, int minRaise, int maxRaise) {
+        switch (decision.getAction()) {
+            case RAISE:
+                /* A strategy can't raise when the action is closed to it (or nothing is left past the call), so the
+                best it can do is call. With less than minRaise behind, it goes all in like the human can */
+                int allIn = bankroll + bet - callCost;
+
+                if (canRaise && allIn > 0) {
+                    return raise(callCost, Math.min(Math.max(decision.getRaise(), minRaise),
+                            Math.min(maxRaise, allIn)));
+                }
 
-        if (canRaise && optimalRaise > 0) {
-            return raise(callCost, optimalRaise);
-        }
+                return call(callCost);
 
-        /* Remember to bluff on occasion
-        Separate statement since the raise amount is different */
-        else if (canRaise && Math.random() < Constants.AI_BLUFF) {
-            return raise(callCost, Constants.AI_RAISE);
-        }
+            case FOLD:
+                // Folding when there's nothing to call would just throw the hand away --> check instead
+                if (callCost > bet) {
+                    return fold(callCost);
+                }
 
-        // If the optimal bet is lower than the current bet, the natural move is to fold if forced to do that or call
-        else if (optimalRaise < 0 && bet < callCost) {
-            return fold(callCost);
-        }
+                return call(callCost);
 
-        // Implies that it's worth matching the bet --> call
-        else {
-            return call(callCost);
+            default:
+                return call(callCost);
         }
     }
 
@@ -221,14 +260,18 @@ public class Player extends Hand {
     
     // Private helper method time!
     // Lets the player make direct moves in the game
-    private int humanPlay(int callCost, boolean canRaise, boolean isPostFlop) {
-        // maxRaise = money at the start of this round - callCost
-        int maxRaise = bankroll + bet - callCost;
+    private int humanPlay(int callCost, boolean canRaise, int minRaise, int potLimit, boolean isPostFlop) {
+        // maxRaise = money at the start of this round - callCost, or less at a pot-limit table
+        int maxRaise = Math.min(bankroll + bet - callCost, potLimit);
+
+        // A raise has to be at least as big as the last one, unless it's everything the player has left
+        int smallestRaise = Math.min(minRaise, maxRaise);
 
         if (canRaise) {
             // Give the player data to make an informed decision
             Constants.typeText(name + ", your hand contains " + super.toString() +
-                    ", your bankroll is $" +  bankroll + ", and you can raise up to $" + maxRaise + "\n");
+                    ", your bankroll is $" +  bankroll + ", and you can raise from $" + smallestRaise + " up to $" +
+                    maxRaise + "\n");
 
             Constants.typeText("Would you like to raise? If so, type how much. If not, type 0: ");
             int raise;
@@ -243,8 +286,9 @@ public class Player extends Hand {
             Short-circuit the bankroll check to ensure that nextInt() doesn't throw an error
             Set raise = Constants.SCAN.nextInt() mid-loop --> avoid calling Scan.nextInt() twice
             Code from: https://stackoverflow.com/questions/2696063/java-util-scanner-error-handling */
-            while (!Constants.SCAN.hasNextInt() || (raise = Constants.SCAN.nextInt()) > maxRaise) {
-                Constants.typeText("Please type a number less than or equal to " + maxRaise + ": ");
+            while (!Constants.SCAN.hasNextInt() || (raise = Constants.SCAN.nextInt()) > maxRaise
+                    || (raise != 0 && raise < smallestRaise)) {
+                Constants.typeText("Please type 0 or a number from " + smallestRaise + " to " + maxRaise + ": ");
                 Constants.SCAN.nextLine();
             }
 
@@ -286,11 +330,13 @@ public class Player extends Hand {
             return call(callCost);
         }
 
-        Constants.typeText(name + " has decided to raise the bet by $" + raise + "!\n");
-
         int newCallCost = callCost + raise;
 
-        Constants.typeText("The current bet is now set at $" + newCallCost + "\n");
+        // Only build the messages when someone's watching, the Simulator makes millions of moves
+        if (!Constants.isSilent) {
+            Constants.typeText(name + " has decided to raise the bet by $" + raise + "!\n");
+            Constants.typeText("The current bet is now set at $" + newCallCost + "\n");
+        }
 
         subFromBankroll(newCallCost - bet);
 
@@ -304,26 +350,25 @@ public class Player extends Hand {
 
     // Shorthand for calling and checking, returns callCost
     private int call(int callCost) {
-        if (callCost == bet) {
-            // Correct poker terminology is to check when you don't need to increase your bet to match
-            Constants.typeText(name + " has decided to check\n");
-        }
-
-        else if (callCost == bet + bankroll) {
-            Constants.typeText(name + " has decided to go all in to call!\n");
-        }
+        // Only build the message when someone's watching, like raise()
+        if (!Constants.isSilent) {
+            if (callCost == bet) {
+                // Correct poker terminology is to check when you don't need to increase your bet to match
+                Constants.typeText(name + " has decided to check\n");
+            }
 
-        // Slightly different wording
-        else if (callCost > bet + bankroll) {
-            Constants.typeText(name +  " has decided to go all in to match part of the bet!\n");
+            else if (callCost == bet + bankroll) {
+                Constants.typeText(name + " has decided to go all in to call!\n");
+            }
 
-            /* Doesn't apply to going all in to match the whole bet,
-            because if the bet is never raised they can win the whole pot */
-            canOnlyWinSidePot = true;
-        }
+            // Slightly different wording
+            else if (callCost > bet + bankroll) {
+                Constants.typeText(name +  " has decided to go all in to match part of the bet!\n");
+            }
 
-        else {
-            Constants.typeText(name + " has decided to call\n");
+            else {
+                Constants.typeText(name + " has decided to call\n");
+            }
         }
 
         subFromBankroll(callCost - bet);
@@ -338,95 +383,11 @@ public class Player extends Hand {
 
     // Folds the player's hand and notifies the group, returns callCost
     private int fold(int callCost) {
-        Constants.typeText(name + " has decided to fold!\n");
+        if (!Constants.isSilent) {
+            Constants.typeText(name + " has decided to fold!\n");
+        }
 
         hasFolded = true;
         return callCost;
     }
-    
-    /* Percents based on known seven-card probability tables
-    Data comes from here: https://en.wikipedia.org/wiki/Poker_probability */
-    private double getScorePercentile(double score) {
-        if (score > 90) {
-            return .97;
-        }
-
-        if (score > 75) {
-            return .94;
-        }
-
-        if (score > 60) {
-            return .9;
-        }
-
-        if (score > 45) {
-            return .85;
-        }
-
-        if (score > 30) {
-            return .6;
-        }
-
-        if (score > 15) {
-            /* Score - 17 = high pair "index" (e.g. in 2 = lowest pair --> 0, Ace = highest pair --> 12)
-            Multiply by .03 to get a range of probabilities (.2 up to .56) representing potential strength
-            This is only done for two-of-a-kind because the range of probabilities (.4) is so large */
-            return .2 + (score - 17) * .03;
-        }
-
-        if (score > 14) {
-            return .1;
-        }
-
-        return .05;
-    }
-
-    /* Shamelessly stolen and mostly unaltered from:
-    https://stackoverflow.com/questions/61029823/all-possible-k-combinations-of-list-with-size-n */
-    /**
-     * Creates combinations of elements of a specific combination size.
-     *
-     * @param <T>             the type of the elements
-     * @param elements            a list of elements, which should be unique
-     * @param combinationSize the size of the combinations
-     * @return a list of combinations
-     */
-    private static <T> List<List<T>> getCombinations(List<T> elements, int combinationSize) {
-        ArrayList<List<T>> fullCombinations = new ArrayList<>();
-        createCombinations(elements, fullCombinations, new ArrayList<>(), 0, combinationSize);
-        return fullCombinations;
-    }
-
-    /**
-     * Recursive function that grows the combination size, and adds full combinations when the combination size is met.
-     * To avoid duplicates, only elements that are higher in the list are added to the combination. The combination is
-     * complete when <code>missing == 0</code>.
-     *
-     * @param <T>              the type of the elements
-     * @param elements             the elements to create combinations from, all elements should be unique
-     * @param fullCombinations the final result array of the combinations, shared among all recursive calls
-     * @param combination      the current combination that needs to get <code>missing<code> members
-     * @param index            the index of the element one higher than the last element in the combination
-     * @param missing          the amount of elements needed to complete the combination
-     */
-    private static <T> void createCombinations(List<T> elements, List<List<T>> fullCombinations, List<T> combination,
-                                               int index, int missing) {
-        if (missing == 0) {
-            fullCombinations.add(combination);
-            return;
-        }
-
-        // We don't need to go over elements.size() - missing because then the combination cannot be completed, too few left
-        for (int i = index; i <= elements.size() - missing; i++) {
-            List<T> newCombination;
-            if (i == elements.size() - missing) {
-                // Optimization: avoid de-referencing the final combination, reuse
-                newCombination = combination;
-            } else {
-                newCombination = new ArrayList<>(combination);
-            }
-            newCombination.add(elements.get(i));
-            createCombinations(elements, fullCombinations, newCombination, i + 1, missing - 1);
-        }
-    }
 }
@@ -0,0 +1,130 @@
+/* The PlayerStats class keeps a running profile of how a Player bets, which the AI uses to model its opponents
+Every raise, call, and fold is streamed into a handful of int counters, so the profile never grows and updating or
+reading it costs next to nothing compared to the decision itself
+
+Tracked stats:
+VPIP = how often the player voluntarily puts money in pre-flop, PFR = how often they raise pre-flop,
+aggression = post-flop raises vs. calls, fold to raise = how often they fold when someone raises them */
+
+
+public class PlayerStats {
+    /* Unknown players are assumed to play every hand, raise with anything, and fold to raises half the time, which is
+    how the AI treated everyone before it kept stats. Each prior counts as PRIOR_WEIGHT hands of evidence */
+    public static final double PRIOR_FOLD_TO_RAISE = .5;
+    private static final int PRIOR_WEIGHT = 20;
+
+    // Lifetime counters
+    private int hands;
+    private int vpipHands;
+    private int pfrHands;
+    private int postFlopRaises;
+    private int postFlopCalls;
+    private int raisesFaced;
+    private int foldsToRaise;
+
+    // What the player has done in the current hand, VPIP and PFR only count once per hand
+    private boolean vpipThisHand;
+    private boolean raisedPreFlopThisHand;
+    private boolean raisedPostFlopThisHand;
+
+    // Called when a new hand is dealt
+    public void startHand() {
+        hands++;
+
+        vpipThisHand = false;
+        raisedPreFlopThisHand = false;
+        raisedPostFlopThisHand = false;
+    }
+
+    /* Streams one action into the counters
+
+    Parameter isPreFlop: whether there are community cards yet
+    Parameter cost: how many chips the action put in (0 for checks and folds)
+    Parameter facingRaise: whether the player was facing a raise when they acted */
+    public void record(Decision.Action action, boolean isPreFlop, int cost, boolean facingRaise) {
+        if (facingRaise) {
+            raisesFaced++;
+
+            if (action == Decision.Action.FOLD) {
+                foldsToRaise++;
+            }
+        }
+
+        if (isPreFlop) {
+            // Checking the big blind isn't voluntary
+            if (cost > 0 && !vpipThisHand) {
+                vpipThisHand = true;
+                vpipHands++;
+            }
+
+            if (action == Decision.Action.RAISE && !raisedPreFlopThisHand) {
+                raisedPreFlopThisHand = true;
+                pfrHands++;
+            }
+        }
+
+        else if (action == Decision.Action.RAISE) {
+            raisedPostFlopThisHand = true;
+            postFlopRaises++;
+        }
+
+        else if (action == Decision.Action.CALL && cost > 0) {
+            postFlopCalls++;
+        }
+    }
+
+    // Getter methods, each smoothed toward the prior so a few hands of data don't swing them too far
+    public int getHands() {
+        return hands;
+    }
+
+    public double getVpip() {
+        return smooth(vpipHands, hands, 1);
+    }
+
+    public double getPfr() {
+        return smooth(pfrHands, hands, 1);
+    }
+
+    // Fraction of post-flop actions that put money in which were raises rather than calls
+    public double getAggressionFrequency() {
+        return smooth(postFlopRaises, postFlopRaises + postFlopCalls, 1);
+    }
+
+    // The classic aggression factor: post-flop raises per call
+    public double getAggressionFactor() {
+        return (double) postFlopRaises / Math.max(1, postFlopCalls);
+    }
+
+    public double getFoldToRaise() {
+        return smooth(foldsToRaise, raisesFaced, PRIOR_FOLD_TO_RAISE);
+    }
+
+    /* Estimates what fraction of all starting hands the player could be holding right now, given what they've done
+    this hand: the hands they play (VPIP), narrowed to the hands they raise (PFR) if they raised pre-flop,
+    and narrowed again by how rarely they raise post-flop if they did that too */
+    public double getRangeWidth() {
+        double width = getVpip();
+
+        if (raisedPreFlopThisHand) {
+            width = Math.min(width, getPfr());
+        }
+
+        if (raisedPostFlopThisHand) {
+            width *= getAggressionFrequency();
+        }
+
+        return Math.max(width, 1.0 / StartingHands.NUM_CLASSES);
+    }
+
+    public String toString() {
+        return String.format("VPIP %.2f, PFR %.2f, AF %.2f, fold to raise %.2f over %d hands",
+                getVpip(), getPfr(), getAggressionFactor(), getFoldToRaise(), hands);
+    }
+
+    // Private helper methods!
+    // Blends observed counts with a prior worth PRIOR_WEIGHT observations
+    private static double smooth(int count, int total, double prior) {
+        return (count + prior * PRIOR_WEIGHT) / (total + PRIOR_WEIGHT);
+    }
+}
@@ -0,0 +1,591 @@
+/* The PreFlopEquity class holds the exact all-in equity of every starting hand class against every other one,
+worked out by dealing every possible board, and the generator (main) that computes it
+
+Each pair of classes fixes one concrete hand for the first class and deals all C(48, 5) = 1,712,304 boards against
+each hand of the second class. Hands of the second class that only differ by a suit swap that leaves the first hand
+alone (e.g. AcKd vs QhQs and AcKd vs QsQh) always have the same equity, so only one of them is dealt and it's weighted
+by how many it stands for. Boards are dealt one card at a time with the evaluator's rank masks carried along, so each
+showdown only has to add the hole cards
+
+The 169 * 168 / 2 + 169 pairs are split into one fork/join task per pair. Every finished row of the matrix is saved
+right away, so an interrupted run picks up where it left off when it's started again with the same output file
+
+A short deck matrix only fills in the 81 classes of 6s and up, dealing C(32, 5) = 201,376 boards per hand scored by
+ShortDeckEvaluator, so it takes a small fraction of the time (e.g. "java PreFlopEquity preflop_equity_short_deck.bin 4
+short_deck"). It has its own magic number, and the rows of classes it can't deal are saved as done
+
+File format: magic, NUM_CLASSES, one byte per row (1 once the row is done), then the matrix row by row as unsigned
+16-bit fixed point (65535 = always wins) */
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+public final class PreFlopEquity {
+    // Identifies equity files, and short deck ones
+    public static final int MAGIC = 0x50464531;
+    public static final int SHORT_DECK_MAGIC = 0x50464536;
+
+    // Fixed point scale of the stored equities
+    private static final int SCALE = 65535;
+
+    // Cards dealt to the board
+    private static final int BOARD_SIZE = 5;
+
+    // Every order of the four suits, used to find the suit swaps that leave a hand alone
+    private static final int[][] SUIT_PERMUTATIONS = suitPermutations();
+
+    // equities[a * NUM_CLASSES + b] = class a's share of the pot against class b, fixed point
+    private final char[] equities;
+
+    // The classes the matrix covers from strongest to weakest, and how many two card hands they make
+    private final int[] order;
+    private final int numCombos;
+
+    // Private constructor, use load() or main() instead
+    private PreFlopEquity(char[] equities, GameVariant variant) {
+        this.equities = equities;
+
+        if (variant == GameVariant.SHORT_DECK) {
+            order = shortDeckOrder(equities);
+            numCombos = ShortDeckEvaluator.NUM_CARDS * (ShortDeckEvaluator.NUM_CARDS - 1) / 2;
+        }
+
+        else {
+            order = StartingHands.strengthOrder();
+            numCombos = HandRange.NUM_COMBOS;
+        }
+    }
+
+    /* Optional arguments: where to save the matrix, how many threads to use, and the variant (holdem or short_deck)
+    e.g. "java PreFlopEquity preflop_equity.bin 32". Rows already done in an existing file are kept */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : Constants.PRE_FLOP_EQUITY_FILE);
+        int numThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        GameVariant variant = args.length > 2 ? GameVariant.parse(args[2]) : GameVariant.HOLDEM;
+
+        if (variant.getNumHoleCards() != 2) {
+            throw new IllegalArgumentException(variant + " doesn't have two card starting hands");
+        }
+
+        char[] equities = new char[StartingHands.NUM_CLASSES * StartingHands.NUM_CLASSES];
+        boolean[] done = new boolean[StartingHands.NUM_CLASSES];
+
+        if (Files.exists(path)) {
+            read(path, equities, done, variant);
+        }
+
+        List<RowTask> rows = new ArrayList<>();
+        int numPairs = 0;
+
+        for (int a = 0; a < StartingHands.NUM_CLASSES; a++) {
+            // Classes the deck can't deal have no row to work out
+            done[a] |= StartingHands.lowRank(a) < variant.getLowestRank();
+
+            if (!done[a]) {
+                rows.add(new RowTask(a, equities, done, path, variant));
+
+                for (int b = a; b < StartingHands.NUM_CLASSES; b++) {
+                    numPairs += StartingHands.lowRank(b) < variant.getLowestRank() ? 0 : 1;
+                }
+            }
+        }
+
+        System.out.printf("%d rows (%d pairs of classes) left, running on %d threads%n", rows.size(), numPairs,
+                numThreads);
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+
+        try {
+            pool.invoke(new RecursiveAction() {
+                protected void compute() {
+                    invokeAll(rows);
+                }
+            });
+        }
+
+        finally {
+            pool.shutdown();
+        }
+
+        System.out.printf("Finished in %.1f seconds, saved to %s%n", (System.nanoTime() - start) / 1e9, path);
+    }
+
+    // Loads a finished Texas Hold 'em matrix saved by main(), throws an IOException if it's missing rows
+    public static PreFlopEquity load(String path) throws IOException {
+        return load(path, GameVariant.HOLDEM);
+    }
+
+    // Same as above, for a matrix of another variant's deck (short deck)
+    public static PreFlopEquity load(String path, GameVariant variant) throws IOException {
+        char[] equities = new char[StartingHands.NUM_CLASSES * StartingHands.NUM_CLASSES];
+        boolean[] done = new boolean[StartingHands.NUM_CLASSES];
+
+        read(Paths.get(path), equities, done, variant);
+
+        for (boolean isDone : done) {
+            if (!isDone) {
+                throw new IOException(path + " is only partly computed, run PreFlopEquity again to finish it");
+            }
+        }
+
+        return new PreFlopEquity(equities, variant);
+    }
+
+    /* Returns the matrix for a variant, saved at Constants.PRE_FLOP_EQUITY_FILE (or SHORT_DECK_PRE_FLOP_EQUITY_FILE),
+    loaded once and shared afterwards. null if there isn't one (or it's unfinished, or the variant doesn't have two
+    card hands), in which case the AI falls back to its lookup table
+    Every pre-flop decision asks, so it's read without a lock: the files are loaded when Defaults is first used */
+    public static PreFlopEquity getDefault(GameVariant variant) {
+        return Defaults.EQUITIES.get(variant);
+    }
+
+    // Getter methods
+    // Class a's share (0-1) of the pot when all in against class b before the flop
+    public double getEquity(int a, int b) {
+        return (double) equities[a * StartingHands.NUM_CLASSES + b] / SCALE;
+    }
+
+    /* Returns class a's share of the pot against an opponent who only plays the best rangeWidth fraction of hands
+    (ordered by StartingHands.strengthOrder(), or by equity against the whole short deck), weighting each class by its
+    number of combinations. Cards held by a aren't removed from the opponent's range, which only shifts the answer
+    slightly */
+    public double getEquityVsTop(int a, double rangeWidth) {
+        // Combinations the range still has room for, out of the 1326 two card hands (630 in short deck)
+        double left = Math.max(1, rangeWidth * numCombos);
+        double total = 0;
+        double weight = 0;
+
+        for (int i = 0; i < order.length && left > 0; i++) {
+            double combos = Math.min(left, StartingHands.numCombos(order[i]));
+
+            total += combos * getEquity(a, order[i]);
+            weight += combos;
+            left -= combos;
+        }
+
+        return total / weight;
+    }
+
+    // Class a's share of the pot against any two cards
+    public double getEquityVsRandom(int a) {
+        return getEquityVsTop(a, 1);
+    }
+
+    /* Returns class a's exact share of the pot against class b, by dealing every board against every hand of b
+    Takes a fraction of a second, main() runs it for every pair */
+    public static double equity(int a, int b) {
+        return equity(a, b, GameVariant.HOLDEM);
+    }
+
+    // Same as above, dealt from a variant's deck and scored by its rules (short deck)
+    public static double equity(int a, int b, GameVariant variant) {
+        int lowestCard = HandEvaluator.index(variant.getLowestRank(), Constants.CLUBS);
+
+        // Any one hand of a will do, suits are interchangeable
+        int high = StartingHands.highRank(a);
+        int low = StartingHands.lowRank(a);
+        int first = HandEvaluator.index(high, Constants.CLUBS);
+        int second = HandEvaluator.index(low, StartingHands.isSuited(a) ? Constants.CLUBS : Constants.DIAMONDS);
+
+        // The suit swaps that map the first class's hand onto itself
+        List<int[]> symmetries = new ArrayList<>();
+
+        for (int[] permutation : SUIT_PERMUTATIONS) {
+            int x = permute(first, permutation);
+            int y = permute(second, permutation);
+
+            if (x == first && y == second || x == second && y == first) {
+                symmetries.add(permutation);
+            }
+        }
+
+        /* Group the hands of b that don't clash with a by their smallest image under those swaps
+        key = first card * NUM_CARDS + second card of that image, value = hands it stands for */
+        long used = 1L << first | 1L << second;
+        Map<Integer, Integer> weights = new LinkedHashMap<>();
+
+        for (int x = lowestCard; x < HandEvaluator.NUM_CARDS; x++) {
+            for (int y = x + 1; y < HandEvaluator.NUM_CARDS; y++) {
+                if (StartingHands.classOf(x, y) != b || (used & (1L << x | 1L << y)) != 0) {
+                    continue;
+                }
+
+                int key = Integer.MAX_VALUE;
+
+                for (int[] permutation : symmetries) {
+                    int px = permute(x, permutation);
+                    int py = permute(y, permutation);
+
+                    key = Math.min(key, Math.min(px, py) * HandEvaluator.NUM_CARDS + Math.max(px, py));
+                }
+
+                weights.merge(key, 1, Integer::sum);
+            }
+        }
+
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException(StartingHands.name(a) + " and " + StartingHands.name(b)
+                    + " can't both be dealt");
+        }
+
+        int numHands = weights.size();
+        int[] hands = new int[2 * numHands];
+        long[] handMasks = new long[numHands];
+        int[] handWeights = new int[numHands];
+        int h = 0;
+
+        for (Map.Entry<Integer, Integer> entry : weights.entrySet()) {
+            hands[2 * h] = entry.getKey() / HandEvaluator.NUM_CARDS;
+            hands[2 * h + 1] = entry.getKey() % HandEvaluator.NUM_CARDS;
+            handMasks[h] = 1L << hands[2 * h] | 1L << hands[2 * h + 1];
+            handWeights[h] = entry.getValue();
+            h++;
+        }
+
+        // Half pots won by each hand of b, ties count as one half pot
+        long[] halfPots = new BoardDealer(first, second, hands, handMasks, variant).deal();
+
+        double total = 0;
+        long totalWeight = 0;
+        long boards = numBoards(HandEvaluator.NUM_CARDS - lowestCard - 4);
+
+        for (h = 0; h < numHands; h++) {
+            total += handWeights[h] * (1 - halfPots[h] / (2.0 * boards));
+            totalWeight += handWeights[h];
+        }
+
+        return total / totalWeight;
+    }
+
+    // Private helper methods!
+    // Reads a (possibly unfinished) matrix, filling in the done rows and their mirror images
+    private static void read(Path path, char[] equities, boolean[] done, GameVariant variant) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path.toFile())))) {
+            if (in.readInt() != magic(variant) || in.readInt() != StartingHands.NUM_CLASSES) {
+                throw new IOException(path + " isn't a " + variant + " PreFlopEquity file");
+            }
+
+            for (int a = 0; a < done.length; a++) {
+                done[a] = in.readBoolean();
+            }
+
+            for (int i = 0; i < equities.length; i++) {
+                equities[i] = in.readChar();
+            }
+        }
+    }
+
+    // Saves the matrix to a temporary file and then moves it over the old one, so a crash never leaves half a file
+    private static void write(Path path, char[] equities, boolean[] done, GameVariant variant) throws IOException {
+        Path temporary = Paths.get(path + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(temporary.toFile())))) {
+            out.writeInt(magic(variant));
+            out.writeInt(StartingHands.NUM_CLASSES);
+
+            for (boolean isDone : done) {
+                out.writeBoolean(isDone);
+            }
+
+            for (char equity : equities) {
+                out.writeChar(equity);
+            }
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int magic(GameVariant variant) {
+        return variant == GameVariant.SHORT_DECK ? SHORT_DECK_MAGIC : MAGIC;
+    }
+
+    /* The short deck classes (6s and up) sorted from strongest to weakest by their equity against every short deck
+    hand, weighted by combinations like getEquityVsTop() */
+    private static int[] shortDeckOrder(char[] equities) {
+        List<Integer> classes = new ArrayList<>();
+        double[] equityVsAll = new double[StartingHands.NUM_CLASSES];
+
+        for (int a = 0; a < StartingHands.NUM_CLASSES; a++) {
+            if (StartingHands.lowRank(a) < GameVariant.SHORT_DECK.getLowestRank()) {
+                continue;
+            }
+
+            classes.add(a);
+
+            for (int b = 0; b < StartingHands.NUM_CLASSES; b++) {
+                if (StartingHands.lowRank(b) >= GameVariant.SHORT_DECK.getLowestRank()) {
+                    equityVsAll[a] += StartingHands.numCombos(b) * (double) equities[a * StartingHands.NUM_CLASSES + b];
+                }
+            }
+        }
+
+        classes.sort((a, b) -> Double.compare(equityVsAll[b], equityVsAll[a]));
+
+        return classes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Number of ways to deal a board from numCards cards
+    private static long numBoards(int numCards) {
+        long boards = 1;
+
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            boards = boards * (numCards - i) / (i + 1);
+        }
+
+        return boards;
+    }
+
+    private static int permute(int card, int[] permutation) {
+        return card & ~3 | permutation[card & 3];
+    }
+
+    // All 24 orders of the four suits
+    private static int[][] suitPermutations() {
+        List<int[]> permutations = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                for (int k = 0; k < 4; k++) {
+                    int l = 6 - i - j - k;
+
+                    if (i != j && i != k && j != k) {
+                        permutations.add(new int[] {i, j, k, l});
+                    }
+                }
+            }
+        }
+
+        return permutations.toArray(new int[0][]);
+    }
+
+    // Computes one row of the matrix (class a against every class b >= a) and saves it once it's done
+    private static final class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int a;
+        private final char[] equities;
+        private final boolean[] done;
+        private final Path path;
+        private final GameVariant variant;
+
+        // Constructor
+        RowTask(int a, char[] equities, boolean[] done, Path path, GameVariant variant) {
+            this.a = a;
+            this.equities = equities;
+            this.done = done;
+            this.path = path;
+            this.variant = variant;
+        }
+
+        protected void compute() {
+            List<RecursiveAction> pairs = new ArrayList<>();
+
+            for (int b = a; b < StartingHands.NUM_CLASSES; b++) {
+                int column = b;
+
+                if (StartingHands.lowRank(b) < variant.getLowestRank()) {
+                    continue;
+                }
+
+                pairs.add(new RecursiveAction() {
+                    protected void compute() {
+                        int value = (int) Math.round(equity(a, column, variant) * SCALE);
+
+                        equities[column * StartingHands.NUM_CLASSES + a] = (char) (SCALE - value);
+                        equities[a * StartingHands.NUM_CLASSES + column] = (char) value;
+                    }
+                });
+            }
+
+            invokeAll(pairs);
+
+            // Every row shares the file, so saves take turns
+            synchronized (equities) {
+                done[a] = true;
+
+                try {
+                    write(path, equities, done, variant);
+                }
+
+                catch (IOException e) {
+                    throw new IllegalStateException("Couldn't save " + path, e);
+                }
+
+                System.out.printf("Finished %s%n", StartingHands.name(a));
+            }
+        }
+    }
+
+    /* Deals every board that avoids the first class's hand, carrying the evaluator's rank masks one card at a time
+    At each board, the first hand is scored once and compared with every hand of b that the board doesn't clash with
+    Short deck boards are scored by ShortDeckEvaluator from the cards themselves, a lookup that needs no masks */
+    private static final class BoardDealer {
+        private final int first;
+        private final int second;
+        private final int[] hands;
+        private final long[] handMasks;
+        private final long[] halfPots;
+        private final boolean isShortDeck;
+
+        // Cards left to deal, and the rank masks after each card of the board (index 0 = no cards yet)
+        private final int[] deck;
+        private final int[] one = new int[BOARD_SIZE + 1];
+        private final int[] two = new int[BOARD_SIZE + 1];
+        private final int[] three = new int[BOARD_SIZE + 1];
+        private final int[] four = new int[BOARD_SIZE + 1];
+        private final long[] suits = new long[BOARD_SIZE + 1];
+
+        // Two hole cards and then the board, for short deck scoring
+        private final int[] cards = new int[Constants.TOTAL_CARDS];
+
+        // Constructor
+        BoardDealer(int first, int second, int[] hands, long[] handMasks, GameVariant variant) {
+            this.first = first;
+            this.second = second;
+            this.hands = hands;
+            this.handMasks = handMasks;
+            halfPots = new long[handMasks.length];
+            isShortDeck = variant == GameVariant.SHORT_DECK;
+
+            int lowestCard = HandEvaluator.index(variant.getLowestRank(), Constants.CLUBS);
+            deck = new int[HandEvaluator.NUM_CARDS - lowestCard - 2];
+            int numDeck = 0;
+
+            for (int card = lowestCard; card < HandEvaluator.NUM_CARDS; card++) {
+                if (card != first && card != second) {
+                    deck[numDeck++] = card;
+                }
+            }
+        }
+
+        // Returns the half pots won by each hand of b over every board
+        long[] deal() {
+            deal(0, 0, 0);
+            return halfPots;
+        }
+
+        private void deal(int depth, int start, long board) {
+            for (int i = start; i <= deck.length - BOARD_SIZE + depth; i++) {
+                int card = deck[i];
+                int bit = 1 << (card >> 2);
+
+                one[depth + 1] = one[depth] | bit;
+                two[depth + 1] = two[depth] | one[depth] & bit;
+                three[depth + 1] = three[depth] | two[depth] & bit;
+                four[depth + 1] = four[depth] | three[depth] & bit;
+                suits[depth + 1] = suits[depth] | (long) bit << ((card & 3) << 4);
+                cards[2 + depth] = card;
+
+                if (depth + 1 < BOARD_SIZE) {
+                    deal(depth + 1, i + 1, board | 1L << card);
+                    continue;
+                }
+
+                showdown(board | 1L << card);
+            }
+        }
+
+        // Scores the first hand on a full board, then every hand of b that can be dealt with it
+        private void showdown(long board) {
+            int strength = score(first, second);
+
+            for (int h = 0; h < handMasks.length; h++) {
+                if ((board & handMasks[h]) != 0) {
+                    continue;
+                }
+
+                int other = score(hands[2 * h], hands[2 * h + 1]);
+
+                if (other > strength) {
+                    halfPots[h] += 2;
+                }
+
+                else if (other == strength) {
+                    halfPots[h]++;
+                }
+            }
+        }
+
+        // Adds two hole cards to the full board's masks and scores the 7 cards
+        private int score(int x, int y) {
+            if (isShortDeck) {
+                cards[0] = x;
+                cards[1] = y;
+
+                return ShortDeckEvaluator.evaluate(cards, Constants.TOTAL_CARDS);
+            }
+
+            int o = one[BOARD_SIZE];
+            int t = two[BOARD_SIZE];
+            int th = three[BOARD_SIZE];
+            int f = four[BOARD_SIZE];
+            long s = suits[BOARD_SIZE];
+
+            int bit = 1 << (x >> 2);
+
+            s |= (long) bit << ((x & 3) << 4);
+            f |= th & bit;
+            th |= t & bit;
+            t |= o & bit;
+            o |= bit;
+
+            bit = 1 << (y >> 2);
+
+            s |= (long) bit << ((y & 3) << 4);
+            f |= th & bit;
+            th |= t & bit;
+            t |= o & bit;
+            o |= bit;
+
+            return HandEvaluator.evaluate(o, t, th, f, s);
+        }
+    }
+
+    // Holds getDefault()'s matrices, loaded by the JVM the first time one is asked for and never changed afterwards
+    private static final class Defaults {
+        // The matrix of each variant, null if there isn't one
+        private static final Map<GameVariant, PreFlopEquity> EQUITIES = loadDefaults();
+
+        // Loads every variant's matrix that's been computed
+        private static Map<GameVariant, PreFlopEquity> loadDefaults() {
+            Map<GameVariant, PreFlopEquity> equities = new EnumMap<>(GameVariant.class);
+
+            try {
+                equities.put(GameVariant.HOLDEM, load(Constants.PRE_FLOP_EQUITY_FILE, GameVariant.HOLDEM));
+            }
+
+            catch (IOException e) {
+                equities.put(GameVariant.HOLDEM, null);
+            }
+
+            try {
+                equities.put(GameVariant.SHORT_DECK, load(Constants.SHORT_DECK_PRE_FLOP_EQUITY_FILE,
+                        GameVariant.SHORT_DECK));
+            }
+
+            catch (IOException e) {
+                equities.put(GameVariant.SHORT_DECK, null);
+            }
+
+            return equities;
+        }
+    }
+}
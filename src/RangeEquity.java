@@ -0,0 +1,523 @@
+/* The RangeEquity class computes how often each of several hand ranges wins on a given board, e.g. "AKs, QQ+" vs.
+"top 20%" on Ah7d2c. Ties split the win evenly, so the equities always add up to 1
+
+Small problems are enumerated exactly: every combination of hands the ranges can hold (weighted) times every way the
+board can run out. Bigger ones are sampled, in rounds of batches spread across every core, and sampling stops as soon
+as the standard error of every player's equity is within the requested precision
+
+Cards are handled as HandEvaluator indices and bit masks throughout, so a dead card check is a single AND */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+public class RangeEquity {
+    // Problems needing at most this many showdowns are enumerated instead of sampled
+    private static final double EXACT_LIMIT = 20000000;
+
+    // Samples each task deals before reporting back, so precision is checked every numThreads * BATCH_SIZE samples
+    private static final int BATCH_SIZE = 25000;
+
+    // Deals rejected in a row (because the ranges keep colliding) before giving up on the ranges
+    private static final int MAX_REJECTIONS = 1000000;
+
+    public static final double DEFAULT_PRECISION = .001;
+    public static final long DEFAULT_MAX_SAMPLES = 50000000;
+
+    private final int numThreads;
+    private final ExecutorService pool;
+    private final SplittableRandom random;
+
+    // Constructor, sampling from a fixed seed so sampled answers can be reproduced
+    public RangeEquity(int numThreads, long seed) {
+        this.numThreads = numThreads;
+        pool = Executors.newFixedThreadPool(numThreads);
+        random = new SplittableRandom(seed);
+    }
+
+    // The result of one calculation
+    public static final class Result {
+        private final double[] equities;
+        private final double[] standardErrors;
+        private final long samples;
+        private final boolean isExact;
+
+        // Constructor
+        private Result(double[] equities, double[] standardErrors, long samples, boolean isExact) {
+            this.equities = equities;
+            this.standardErrors = standardErrors;
+            this.samples = samples;
+            this.isExact = isExact;
+        }
+
+        // Getter methods
+        public int getNumPlayers() {
+            return equities.length;
+        }
+
+        public double getEquity(int player) {
+            return equities[player];
+        }
+
+        // 0 when the answer was enumerated
+        public double getStandardError(int player) {
+            return standardErrors[player];
+        }
+
+        // Showdowns evaluated, or deals sampled
+        public long getSamples() {
+            return samples;
+        }
+
+        public boolean isExact() {
+            return isExact;
+        }
+
+        public String toString() {
+            StringBuilder string = new StringBuilder();
+
+            for (int player = 0; player < equities.length; player++) {
+                string.append(player > 0 ? ", " : "").append(String.format("%.2f%%", equities[player] * 100));
+
+                if (!isExact) {
+                    string.append(String.format(" +/- %.2f%%", standardErrors[player] * 100));
+                }
+            }
+
+            return string.append(isExact ? " (exact, " : " (sampled, ").append(samples).append(" samples)").toString();
+        }
+    }
+
+    // Same as below, for Card objects and the default precision
+    public Result calculate(List<HandRange> ranges, List<Card> board, List<Card> dead)
+            throws InterruptedException, ExecutionException {
+        return calculate(ranges, indices(board), mask(dead), DEFAULT_PRECISION, DEFAULT_MAX_SAMPLES);
+    }
+
+    /* Computes every range's equity against all the others
+
+    Parameter board: HandEvaluator indices of the 0-5 community cards already dealt
+    Parameter dead: bit mask of cards nobody can hold or see (e.g. folded hands)
+    Parameter precision: sampling stops once every standard error is at most this, e.g. .001 = 0.1%
+    Parameter maxSamples: sampling stops here even if the precision wasn't reached, and answers that would take
+    enumerating more boards than this are sampled instead (so a small cap keeps every call cheap) */
+    public Result calculate(List<HandRange> ranges, int[] board, long dead, double precision, long maxSamples)
+            throws InterruptedException, ExecutionException {
+        if (ranges.size() < 2 || board.length > Constants.TOTAL_CARDS - 2) {
+            throw new IllegalArgumentException("Need at least two ranges and at most five board cards");
+        }
+
+        long boardMask = mask(board);
+
+        if (Long.bitCount(boardMask) != board.length || (boardMask & dead) != 0) {
+            throw new IllegalArgumentException("A board card is repeated or dead");
+        }
+
+        // Each range's playable combos and their running weight totals, for weighted sampling
+        int[][] combos = new int[ranges.size()][];
+        double[][] cumulative = new double[ranges.size()][];
+        double work = combinations(HandEvaluator.NUM_CARDS - board.length - Long.bitCount(dead)
+                - 2 * ranges.size(), Constants.TOTAL_CARDS - 2 - board.length);
+
+        for (int player = 0; player < ranges.size(); player++) {
+            liveCombos(ranges.get(player), boardMask | dead, player, combos, cumulative);
+            work *= combos[player].length;
+        }
+
+        if (work <= EXACT_LIMIT && work <= maxSamples) {
+            return enumerate(combos, ranges, board, boardMask | dead);
+        }
+
+        return sample(combos, cumulative, board, boardMask | dead, precision, maxSamples);
+    }
+
+    // Stops the worker threads, call when done with the calculator
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // Private helper methods!
+    // Fills in the combos of a range that don't touch the dead cards, and their cumulative weights
+    private static void liveCombos(HandRange range, long dead, int player, int[][] combos, double[][] cumulative) {
+        int[] live = new int[HandRange.NUM_COMBOS];
+        double[] weights = new double[HandRange.NUM_COMBOS];
+        int size = 0;
+        double total = 0;
+
+        for (int combo = 0; combo < HandRange.NUM_COMBOS; combo++) {
+            if (range.getWeight(combo) > 0 && (HandRange.cardMask(combo) & dead) == 0) {
+                total += range.getWeight(combo);
+                live[size] = combo;
+                weights[size] = total;
+                size++;
+            }
+        }
+
+        if (size == 0) {
+            throw new IllegalArgumentException("\"" + range + "\" has no hands left once the dead cards are removed");
+        }
+
+        combos[player] = Arrays.copyOf(live, size);
+        cumulative[player] = Arrays.copyOf(weights, size);
+    }
+
+    // Splits the first range's combos across the pool, each task enumerating everything that follows from them
+    private Result enumerate(int[][] combos, List<HandRange> ranges, int[] board, long dead)
+            throws InterruptedException, ExecutionException {
+        int numPlayers = combos.length;
+        int numTasks = Math.min(combos[0].length, numThreads * 4);
+        List<Future<double[]>> futures = new ArrayList<>();
+
+        for (int task = 0; task < numTasks; task++) {
+            int from = combos[0].length * task / numTasks;
+            int to = combos[0].length * (task + 1) / numTasks;
+
+            futures.add(pool.submit(() -> new Enumeration(combos, ranges, board).run(from, to, dead)));
+        }
+
+        // Each task returns {weighted wins per player..., total weight, showdowns}
+        double[] totals = new double[numPlayers + 2];
+
+        for (Future<double[]> future : futures) {
+            double[] result = get(future);
+
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += result[i];
+            }
+        }
+
+        if (totals[numPlayers] == 0) {
+            throw new IllegalArgumentException("The ranges can't all be dealt at once");
+        }
+
+        double[] equities = new double[numPlayers];
+
+        for (int player = 0; player < numPlayers; player++) {
+            equities[player] = totals[player] / totals[numPlayers];
+        }
+
+        return new Result(equities, new double[numPlayers], (long) totals[numPlayers + 1], true);
+    }
+
+    // Samples rounds of batches until every standard error is within the precision
+    private Result sample(int[][] combos, double[][] cumulative, int[] board, long dead, double precision,
+                          long maxSamples) throws InterruptedException, ExecutionException {
+        int numPlayers = combos.length;
+
+        // {sum of shares per player..., sum of squared shares per player..., samples}
+        double[] totals = new double[numPlayers * 2 + 1];
+        double[] equities = new double[numPlayers];
+        double[] standardErrors = new double[numPlayers];
+
+        while (true) {
+            List<Future<double[]>> futures = new ArrayList<>();
+
+            for (int task = 0; task < numThreads; task++) {
+                SplittableRandom taskRandom = random.split();
+
+                futures.add(pool.submit(() -> sampleBatch(combos, cumulative, board, dead, taskRandom)));
+            }
+
+            for (Future<double[]> future : futures) {
+                double[] result = get(future);
+
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += result[i];
+                }
+            }
+
+            double samples = totals[numPlayers * 2];
+            double worstError = 0;
+
+            for (int player = 0; player < numPlayers; player++) {
+                equities[player] = totals[player] / samples;
+
+                double variance = Math.max(0, totals[numPlayers + player] / samples - equities[player]
+                        * equities[player]);
+
+                standardErrors[player] = Math.sqrt(variance / samples);
+                worstError = Math.max(worstError, standardErrors[player]);
+            }
+
+            if (worstError <= precision || samples >= maxSamples) {
+                return new Result(equities, standardErrors, (long) samples, false);
+            }
+        }
+    }
+
+    // Deals BATCH_SIZE random showdowns, returns the same layout sample() totals up
+    private static double[] sampleBatch(int[][] combos, double[][] cumulative, int[] board, long dead,
+                                        SplittableRandom random) {
+        int numPlayers = combos.length;
+        int[][] hands = new int[numPlayers][Constants.TOTAL_CARDS];
+        int[] strengths = new int[numPlayers];
+        double[] totals = new double[numPlayers * 2 + 1];
+
+        for (int player = 0; player < numPlayers; player++) {
+            System.arraycopy(board, 0, hands[player], 2, board.length);
+        }
+
+        int rejections = 0;
+
+        for (int sample = 0; sample < BATCH_SIZE; sample++) {
+            long used = dead;
+            boolean collided = false;
+
+            // Draw every player's hand by weight, and redeal the whole table if two of them share a card
+            for (int player = 0; player < numPlayers && !collided; player++) {
+                double[] weights = cumulative[player];
+                int pick = search(weights, random.nextDouble() * weights[weights.length - 1]);
+                int combo = combos[player][pick];
+
+                collided = (HandRange.cardMask(combo) & used) != 0;
+                used |= HandRange.cardMask(combo);
+
+                hands[player][0] = HandRange.firstCard(combo);
+                hands[player][1] = HandRange.secondCard(combo);
+            }
+
+            if (collided) {
+                if (++rejections > MAX_REJECTIONS) {
+                    throw new IllegalArgumentException("The ranges can't all be dealt at once");
+                }
+
+                sample--;
+                continue;
+            }
+
+            rejections = 0;
+
+            // Run out the rest of the board, skipping any card that's already out
+            for (int i = 2 + board.length; i < Constants.TOTAL_CARDS; i++) {
+                int card;
+
+                do {
+                    card = random.nextInt(HandEvaluator.NUM_CARDS);
+                } while ((used & 1L << card) != 0);
+
+                used |= 1L << card;
+
+                for (int player = 0; player < numPlayers; player++) {
+                    hands[player][i] = card;
+                }
+            }
+
+            for (int player = 0; player < numPlayers; player++) {
+                strengths[player] = HandEvaluator.evaluate(hands[player], Constants.TOTAL_CARDS);
+            }
+
+            addShares(strengths, totals, numPlayers);
+        }
+
+        totals[numPlayers * 2] = BATCH_SIZE;
+
+        return totals;
+    }
+
+    // Splits one showdown between the winners, adding each player's share and squared share to the totals
+    private static void addShares(int[] strengths, double[] totals, int numPlayers) {
+        int best = Integer.MIN_VALUE;
+        int numWinners = 0;
+
+        for (int strength : strengths) {
+            if (strength > best) {
+                best = strength;
+                numWinners = 1;
+            }
+
+            else if (strength == best) {
+                numWinners++;
+            }
+        }
+
+        double share = 1.0 / numWinners;
+
+        for (int player = 0; player < numPlayers; player++) {
+            if (strengths[player] == best) {
+                totals[player] += share;
+                totals[numPlayers + player] += share * share;
+            }
+        }
+    }
+
+    // Waits for a task, passing its IllegalArgumentException (bad ranges) straight through to the caller
+    private static double[] get(Future<double[]> future) throws InterruptedException, ExecutionException {
+        try {
+            return future.get();
+        }
+
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    // Index of the first running total above the target
+    private static int search(double[] cumulative, double target) {
+        int low = 0;
+        int high = cumulative.length - 1;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (cumulative[middle] > target) {
+                high = middle;
+            }
+
+            else {
+                low = middle + 1;
+            }
+        }
+
+        return low;
+    }
+
+    // n choose k as a double, since only its size matters
+    private static double combinations(int n, int k) {
+        double result = 1;
+
+        for (int i = 0; i < k; i++) {
+            result = result * (n - i) / (i + 1);
+        }
+
+        return result;
+    }
+
+    private static int[] indices(List<Card> cards) {
+        int[] indices = new int[cards.size()];
+
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = cards.get(i).getIndex();
+        }
+
+        return indices;
+    }
+
+    private static long mask(List<Card> cards) {
+        return mask(indices(cards));
+    }
+
+    private static long mask(int[] cards) {
+        long mask = 0;
+
+        for (int card : cards) {
+            mask |= 1L << card;
+        }
+
+        return mask;
+    }
+
+    // One task's share of an exact enumeration, with its own scratch arrays
+    private static final class Enumeration {
+        private final int[][] combos;
+        private final List<HandRange> ranges;
+        private final int boardSize;
+        private final int[][] hands;
+        private final int[] strengths;
+        private final int[] remaining = new int[HandEvaluator.NUM_CARDS];
+
+        // {weighted wins per player..., total weight, showdowns}
+        private final double[] totals;
+
+        // Scratch for addShares(), which expects squared shares after the wins
+        private final double[] shares;
+
+        // Constructor
+        private Enumeration(int[][] combos, List<HandRange> ranges, int[] board) {
+            this.combos = combos;
+            this.ranges = ranges;
+            boardSize = board.length;
+            hands = new int[combos.length][Constants.TOTAL_CARDS];
+            strengths = new int[combos.length];
+            totals = new double[combos.length + 2];
+            shares = new double[combos.length * 2];
+
+            for (int[] hand : hands) {
+                System.arraycopy(board, 0, hand, 2, board.length);
+            }
+        }
+
+        // Enumerates every deal where the first player holds one of their combos from index from up to to
+        private double[] run(int from, int to, long dead) {
+            for (int i = from; i < to; i++) {
+                deal(0, combos[0][i], dead, 1);
+            }
+
+            return totals;
+        }
+
+        // Gives the player a combo, then recurses into the next player or the board
+        private void deal(int player, int combo, long used, double weight) {
+            if ((HandRange.cardMask(combo) & used) != 0) {
+                return;
+            }
+
+            hands[player][0] = HandRange.firstCard(combo);
+            hands[player][1] = HandRange.secondCard(combo);
+            used |= HandRange.cardMask(combo);
+            weight *= ranges.get(player).getWeight(combo);
+
+            if (player + 1 < combos.length) {
+                for (int next : combos[player + 1]) {
+                    deal(player + 1, next, used, weight);
+                }
+
+                return;
+            }
+
+            int numRemaining = 0;
+
+            for (int card = 0; card < HandEvaluator.NUM_CARDS; card++) {
+                if ((used & 1L << card) == 0) {
+                    remaining[numRemaining++] = card;
+                }
+            }
+
+            Arrays.fill(shares, 0);
+            long showdowns = runOut(2 + boardSize, 0, numRemaining);
+            int numPlayers = combos.length;
+
+            for (int i = 0; i < numPlayers; i++) {
+                totals[i] += weight * shares[i];
+            }
+
+            totals[numPlayers] += weight * showdowns;
+            totals[numPlayers + 1] += showdowns;
+        }
+
+        // Deals every remaining board card combination from position on, returns how many showdowns it played
+        private long runOut(int position, int start, int numRemaining) {
+            int numPlayers = combos.length;
+
+            if (position == Constants.TOTAL_CARDS) {
+                for (int player = 0; player < numPlayers; player++) {
+                    strengths[player] = HandEvaluator.evaluate(hands[player], Constants.TOTAL_CARDS);
+                }
+
+                addShares(strengths, shares, numPlayers);
+
+                return 1;
+            }
+
+            long showdowns = 0;
+
+            for (int i = start; i < numRemaining; i++) {
+                for (int player = 0; player < numPlayers; player++) {
+                    hands[player][position] = remaining[i];
+                }
+
+                showdowns += runOut(position + 1, i + 1, numRemaining);
+            }
+
+            return showdowns;
+        }
+    }
+}
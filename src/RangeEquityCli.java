@@ -0,0 +1,134 @@
+/* The RangeEquityCli class answers a file of RangeEquity queries from the command line, one per line:
+"AKs, QQ+ vs top 20% on Ah7d2c" or "AA vs KK vs any dead 5c" ("on" and "dead" are both optional)
+Blank lines and lines starting with # are skipped, and a bad line prints an error without stopping the batch */
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+
+public class RangeEquityCli {
+    /* Optional arguments: the query file (reads standard input without one) and the precision, e.g.
+    "java RangeEquityCli queries.txt .0005"
+    "seed=123" samples with a fixed seed, every run prints the seed it used so sampled answers can be reproduced */
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        ArrayList<String> positional = new ArrayList<>();
+        long seed = System.nanoTime();
+
+        for (String arg : args) {
+            if (arg.startsWith("seed=")) {
+                seed = Long.parseLong(arg.substring(5));
+            }
+
+            else {
+                positional.add(arg);
+            }
+        }
+
+        double precision = positional.size() > 1 ? Double.parseDouble(positional.get(1))
+                : RangeEquity.DEFAULT_PRECISION;
+        RangeEquity calculator = new RangeEquity(Runtime.getRuntime().availableProcessors(), seed);
+
+        System.out.println("Seed: " + seed);
+
+        try (BufferedReader in = new BufferedReader(positional.size() > 0 && !positional.get(0).equals("-")
+                ? new FileReader(positional.get(0)) : new InputStreamReader(System.in))) {
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                System.out.println(line);
+
+                try {
+                    long start = System.nanoTime();
+                    String[] ranges = answer(calculator, line, precision);
+
+                    System.out.printf("  (%.0f ms)%n", (System.nanoTime() - start) / 1e6);
+
+                    for (String range : ranges) {
+                        System.out.println("  " + range);
+                    }
+                }
+
+                catch (IllegalArgumentException e) {
+                    System.out.println("  Error: " + e.getMessage());
+                }
+            }
+        }
+
+        finally {
+            calculator.shutdown();
+        }
+    }
+
+    // Private helper methods!
+    // Parses and runs one query, returns a line per range with its equity
+    private static String[] answer(RangeEquity calculator, String query, double precision)
+            throws InterruptedException, ExecutionException {
+        List<Card> board = Collections.emptyList();
+        List<Card> dead = Collections.emptyList();
+
+        int deadAt = indexOfWord(query, "dead");
+
+        if (deadAt >= 0) {
+            dead = HandRange.parseCards(query.substring(deadAt + 4));
+            query = query.substring(0, deadAt);
+        }
+
+        int boardAt = indexOfWord(query, "on");
+
+        if (boardAt >= 0) {
+            board = HandRange.parseCards(query.substring(boardAt + 2));
+            query = query.substring(0, boardAt);
+        }
+
+        List<HandRange> ranges = new ArrayList<>();
+
+        for (String range : query.split("(?i)\\s+vs\\.?\\s+")) {
+            ranges.add(HandRange.parse(range));
+        }
+
+        int[] boardIndices = new int[board.size()];
+        long deadMask = 0;
+
+        for (int i = 0; i < boardIndices.length; i++) {
+            boardIndices[i] = board.get(i).getIndex();
+        }
+
+        for (Card card : dead) {
+            deadMask |= 1L << card.getIndex();
+        }
+
+        RangeEquity.Result result = calculator.calculate(ranges, boardIndices, deadMask, precision,
+                RangeEquity.DEFAULT_MAX_SAMPLES);
+
+        String[] lines = new String[ranges.size()];
+
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = String.format("%-30s %6.2f%%", ranges.get(i), result.getEquity(i) * 100);
+
+            if (!result.isExact()) {
+                lines[i] += String.format(" +/- %.2f%%", result.getStandardError(i) * 100);
+            }
+        }
+
+        lines[lines.length - 1] += result.isExact() ? "   exact, " + result.getSamples() + " showdowns"
+                : "   sampled, " + result.getSamples() + " deals";
+
+        return lines;
+    }
+
+    // Index of a keyword surrounded by spaces, -1 if the query doesn't have it
+    private static int indexOfWord(String query, String word) {
+        return (" " + query.toLowerCase() + " ").indexOf(" " + word + " ");
+    }
+}
@@ -0,0 +1,211 @@
+/* The ResultStore class keeps the outcome of every seat of every simulated hand outside the Java heap, so billions of
+rows cost a few bytes each instead of a few dozen as objects, and the garbage collector never has to look at them
+
+Rows are stored by column in fixed-size chunks: first each row's seat, then its position, its starting hand class, its
+final hand strength, and its net chips, so an aggregate only reads the columns it needs. The first chunks are direct
+ByteBuffers, and once those are used up the rest are memory-mapped from a spill file, letting the OS page them out
+
+Any number of threads can append at once without locking: each append claims a row number from an atomic counter and
+writes only to that row. The only lock is taken once per CHUNK_ROWS rows, by whichever thread opens the next chunk
+Aggregates scan the raw columns with primitive loops, and should run after the appending threads have finished */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+public final class ResultStore implements AutoCloseable {
+    // Rows per chunk, a power of two so a row number splits into chunk and index with a shift and a mask
+    public static final int CHUNK_BITS = 20;
+    public static final int CHUNK_ROWS = 1 << CHUNK_BITS;
+
+    // The hand class of a seat without a Texas Hold 'em starting hand (e.g. Omaha), left out of the by-class results
+    public static final int NO_HAND_CLASS = StartingHands.NUM_CLASSES;
+
+    // 2^16 chunks of 2^20 rows = about 68 billion rows
+    private static final int MAX_CHUNKS = 1 << 16;
+
+    /* Where each column starts inside a chunk: seat and position are bytes, the class a short, strength a float,
+    and net chips an int, 12 bytes per row in all */
+    private static final int SEAT_OFFSET = 0;
+    private static final int POSITION_OFFSET = CHUNK_ROWS;
+    private static final int CLASS_OFFSET = 2 * CHUNK_ROWS;
+    private static final int STRENGTH_OFFSET = 4 * CHUNK_ROWS;
+    private static final int NET_OFFSET = 8 * CHUNK_ROWS;
+    private static final int CHUNK_BYTES = 12 * CHUNK_ROWS;
+
+    private final AtomicReferenceArray<ByteBuffer> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicLong numRows = new AtomicLong();
+
+    // Chunks kept in direct memory before spilling, and the file the rest are mapped from (null = never spill)
+    private final int memoryChunks;
+    private final Path spillFile;
+    private FileChannel spill;
+
+    /* Constructor
+
+    Parameter memoryChunks: how many chunks (12 MB each) to keep in direct memory before spilling to the file
+    Parameter spillFile: the file later chunks are mapped from, created if needed. null keeps everything in memory */
+    public ResultStore(int memoryChunks, Path spillFile) {
+        if (memoryChunks < 0 || memoryChunks > MAX_CHUNKS) {
+            throw new IllegalArgumentException("Between 0 and " + MAX_CHUNKS + " chunks can be kept in memory");
+        }
+
+        this.memoryChunks = spillFile == null ? MAX_CHUNKS : memoryChunks;
+        this.spillFile = spillFile;
+    }
+
+    /* Adds one seat's outcome of one hand, safe to call from many threads at once
+
+    Parameter position: seats after the first player (the small blind), 0 = small blind
+    Parameter handClass: the seat's starting hand, see StartingHands, or NO_HAND_CLASS outside Texas Hold 'em
+    Parameter strength: the seat's hand score when the hand ended, NaN outside Texas Hold 'em
+    Parameter net: chips won (or lost, if negative) over the hand */
+    public void append(int seat, int position, int handClass, float strength, int net) {
+        long row = numRows.getAndIncrement();
+        ByteBuffer chunk = chunk((int) (row >>> CHUNK_BITS));
+        int i = (int) row & (CHUNK_ROWS - 1);
+
+        chunk.put(SEAT_OFFSET + i, (byte) seat);
+        chunk.put(POSITION_OFFSET + i, (byte) position);
+        chunk.putShort(CLASS_OFFSET + 2 * i, (short) handClass);
+        chunk.putFloat(STRENGTH_OFFSET + 4 * i, strength);
+        chunk.putInt(NET_OFFSET + 4 * i, net);
+    }
+
+    // Getter methods
+    public long size() {
+        return Math.min(numRows.get(), (long) MAX_CHUNKS * CHUNK_ROWS);
+    }
+
+    public int getSeat(long row) {
+        return chunks.get((int) (row >>> CHUNK_BITS)).get(SEAT_OFFSET + index(row));
+    }
+
+    public int getPosition(long row) {
+        return chunks.get((int) (row >>> CHUNK_BITS)).get(POSITION_OFFSET + index(row));
+    }
+
+    public int getHandClass(long row) {
+        return chunks.get((int) (row >>> CHUNK_BITS)).getShort(CLASS_OFFSET + 2 * index(row));
+    }
+
+    public float getStrength(long row) {
+        return chunks.get((int) (row >>> CHUNK_BITS)).getFloat(STRENGTH_OFFSET + 4 * index(row));
+    }
+
+    public int getNet(long row) {
+        return chunks.get((int) (row >>> CHUNK_BITS)).getInt(NET_OFFSET + 4 * index(row));
+    }
+
+    // Average net chips per hand of each starting hand class, indexed like StartingHands (NaN if never dealt)
+    public double[] meanNetByHandClass() {
+        return aggregate(CLASS_OFFSET, StartingHands.NUM_CLASSES, false);
+    }
+
+    // Fraction of hands each starting hand class won chips with, indexed like StartingHands (NaN if never dealt)
+    public double[] winRateByHandClass() {
+        return aggregate(CLASS_OFFSET, StartingHands.NUM_CLASSES, true);
+    }
+
+    // Average net chips per hand by position, index 0 = the small blind (NaN if nobody sat there)
+    public double[] meanNetByPosition() {
+        return aggregate(POSITION_OFFSET, TableConfig.MAX_SEATS, false);
+    }
+
+    // Fraction of hands won by position, index 0 = the small blind (NaN if nobody sat there)
+    public double[] winRateByPosition() {
+        return aggregate(POSITION_OFFSET, TableConfig.MAX_SEATS, true);
+    }
+
+    // Closes the spill file, the store can't be used afterwards
+    public synchronized void close() throws IOException {
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    // Private helper methods!
+    private static int index(long row) {
+        return (int) row & (CHUNK_ROWS - 1);
+    }
+
+    // Returns a chunk, opening it first if this is its first row. Only opening takes the lock
+    private ByteBuffer chunk(int c) {
+        if (c >= MAX_CHUNKS) {
+            throw new IllegalStateException("The store is full at " + (long) MAX_CHUNKS * CHUNK_ROWS + " rows");
+        }
+
+        ByteBuffer chunk = chunks.get(c);
+
+        if (chunk != null) {
+            return chunk;
+        }
+
+        synchronized (this) {
+            chunk = chunks.get(c);
+
+            if (chunk == null) {
+                chunk = c < memoryChunks ? ByteBuffer.allocateDirect(CHUNK_BYTES) : map(c);
+                chunks.set(c, chunk);
+            }
+
+            return chunk;
+        }
+    }
+
+    // Maps a chunk from the spill file, growing the file as needed
+    private ByteBuffer map(int c) {
+        try {
+            if (spill == null) {
+                spill = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            }
+
+            return spill.map(FileChannel.MapMode.READ_WRITE, (long) (c - memoryChunks) * CHUNK_BYTES, CHUNK_BYTES);
+        }
+
+        catch (IOException e) {
+            throw new UncheckedIOException("Couldn't map " + spillFile, e);
+        }
+    }
+
+    /* Averages the net column (or how often it's positive) grouped by a byte or short key column
+    Runs one tight loop per chunk over the raw buffers, nothing is boxed or copied */
+    private double[] aggregate(int keyOffset, int numKeys, boolean countWins) {
+        long[] counts = new long[numKeys];
+        double[] totals = new double[numKeys];
+        long size = size();
+
+        for (int c = 0; (long) c * CHUNK_ROWS < size; c++) {
+            ByteBuffer chunk = chunks.get(c);
+            int rows = (int) Math.min(CHUNK_ROWS, size - (long) c * CHUNK_ROWS);
+
+            for (int i = 0; i < rows; i++) {
+                int key = keyOffset == CLASS_OFFSET ? chunk.getShort(CLASS_OFFSET + 2 * i)
+                        : chunk.get(keyOffset + i);
+                int net = chunk.getInt(NET_OFFSET + 4 * i);
+
+                // e.g. NO_HAND_CLASS
+                if (key >= numKeys) {
+                    continue;
+                }
+
+                counts[key]++;
+                totals[key] += countWins ? (net > 0 ? 1 : 0) : net;
+            }
+        }
+
+        double[] means = new double[numKeys];
+
+        for (int key = 0; key < numKeys; key++) {
+            means[key] = counts[key] == 0 ? Double.NaN : totals[key] / counts[key];
+        }
+
+        return means;
+    }
+}
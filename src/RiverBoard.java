@@ -0,0 +1,220 @@
+/* The RiverBoard class scores every two card holding that could go with one full board, once, so every seat at a
+Table can work out its showdown equity on the river without scoring a single opponent hand of its own
+
+Like HandPotential, a holding that can't make a flush scores by its ranks alone, so the 1,081 holdings (C(47, 2))
+collapse into 91 pairs of ranks, each scored once and counted by how many of its holdings are left, plus the holdings
+of the board's flush suit that could make a flush, scored one at a time. Those are kept as the sorted distinct
+strengths with the number of holdings below each, like StrengthDistribution
+A seat's own strength is a lookup too, a binary search counts the holdings below and level with it, and the 91
+holdings that use one of the seat's own cards are taken back out of those counts
+
+Texas Hold 'em and short deck from a single deck only, where every holding is one distinct pair of cards
+Not thread safe: scoring a holding goes through one reused hand array, which is fine for the one Table that builds it,
+where only one seat decides at a time (each of the Trainer's threads plays its own Tables) */
+import java.util.Arrays;
+
+
+public final class RiverBoard {
+    private static final int BOARD_CARDS = Constants.TOTAL_CARDS - 2;
+    private static final int NUM_RANKS = 13;
+    private static final int NUM_SUITS = 4;
+
+    // The board's cards, one bit per card index
+    private final long boardCards;
+
+    // Whether hands are scored the short deck way, and the lowest card index in the deck
+    private final boolean isShortDeck;
+    private final int lowestCard;
+
+    /* The suit with at least three cards on the board (-1 if there isn't one), and whether there are four or more,
+    so that one card of it in a holding is enough for a flush instead of two */
+    private final int flushSuit;
+    private final boolean isOneCardFlush;
+
+    // rankPairStrengths[lower rank * 13 + higher rank] = those ranks' strength without a flush, 0 if none are left
+    private final int[] rankPairStrengths = new int[NUM_RANKS * NUM_RANKS];
+
+    // Sorted distinct strengths, and the number of holdings weaker than each (with the total at the end)
+    private final int[] strengths;
+    private final int[] weaker;
+
+    // The board followed by one holding, reused for every score (a Table only has one seat deciding at a time)
+    private final int[] hand = new int[Constants.TOTAL_CARDS];
+
+    /* Constructor, scores every holding on the board
+
+    Parameter board: the five community cards, as card indices (see Card.getIndex())
+    Parameter variant: GameVariant.HOLDEM or GameVariant.SHORT_DECK, which decides the deck and the hand rankings */
+    public RiverBoard(int[] board, GameVariant variant) {
+        isShortDeck = variant == GameVariant.SHORT_DECK;
+        lowestCard = HandEvaluator.index(variant.getLowestRank(), Constants.CLUBS);
+
+        long used = 0;
+        int suitCounts = 0;
+
+        for (int i = 0; i < BOARD_CARDS; i++) {
+            hand[i] = board[i];
+            used |= 1L << board[i];
+            suitCounts += 1 << (HandEvaluator.suitOf(board[i]) * 4);
+        }
+
+        boardCards = used;
+
+        int suit = 0;
+
+        while (suit < NUM_SUITS && (suitCounts >>> (suit * 4) & 0xF) < 3) {
+            suit++;
+        }
+
+        flushSuit = suit < NUM_SUITS ? suit : -1;
+        isOneCardFlush = flushSuit >= 0 && (suitCounts >>> (flushSuit * 4) & 0xF) > 3;
+
+        // The first NUM_RANKS^2 entries count each pair of ranks, the rest are the flush holdings, one each
+        int numLeft = HandEvaluator.NUM_CARDS - lowestCard - BOARD_CARDS;
+        long[] entries = new long[rankPairStrengths.length + countFlushHoldings(suitCounts, numLeft)];
+        int numFlushHoldings = 0;
+
+        for (int high = lowestCard; high < HandEvaluator.NUM_CARDS; high++) {
+            for (int low = lowestCard; low < high && (used & 1L << high) == 0; low++) {
+                if ((used & 1L << low) != 0) {
+                    continue;
+                }
+
+                if (canMakeFlush(low, high)) {
+                    entries[rankPairStrengths.length + numFlushHoldings++] = (long) evaluate(low, high) << 32 | 1;
+                    continue;
+                }
+
+                int pair = rankPairIndex(low, high);
+
+                if (rankPairStrengths[pair] == 0) {
+                    rankPairStrengths[pair] = evaluate(low, high);
+                    entries[pair] = (long) rankPairStrengths[pair] << 32;
+                }
+
+                entries[pair]++;
+            }
+        }
+
+        // Sorted by strength (unused rank pairs are 0 and come first), then merged into distinct strengths
+        Arrays.sort(entries);
+
+        int numDistinct = 0;
+
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] != 0 && (i == 0 || entries[i] >>> 32 != entries[i - 1] >>> 32)) {
+                numDistinct++;
+            }
+        }
+
+        strengths = new int[numDistinct];
+        weaker = new int[numDistinct + 1];
+        numDistinct = 0;
+
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == 0) {
+                continue;
+            }
+
+            if (numDistinct == 0 || strengths[numDistinct - 1] != (int) (entries[i] >>> 32)) {
+                strengths[numDistinct] = (int) (entries[i] >>> 32);
+                weaker[numDistinct + 1] = weaker[numDistinct];
+                numDistinct++;
+            }
+
+            weaker[numDistinct] += (int) entries[i];
+        }
+    }
+
+    // Getter methods
+    public long getBoardCards() {
+        return boardCards;
+    }
+
+    // Returns the strength of a holding with the board, e.g. the player's own hand once the river is out
+    public int getStrength(int first, int second) {
+        if (canMakeFlush(first, second)) {
+            return evaluate(first, second);
+        }
+
+        return rankPairStrengths[rankPairIndex(first, second)];
+    }
+
+    /* Returns the exact chance (0-1) that a holding beats one random holding of the cards it can't see, counting a
+    tie as half, the same as StrengthDistribution.percentileOnBoard() without scoring every holding again */
+    public double percentile(int first, int second) {
+        int strength = getStrength(first, second);
+        int i = Arrays.binarySearch(strengths, strength);
+        int numWeaker = weaker[i];
+
+        // Take out every holding with one of the player's cards, which starts with their own (a tie with itself)
+        int numTied = weaker[i + 1] - weaker[i] - 1;
+        long unseen = ~(boardCards | 1L << first | 1L << second);
+
+        for (int card = lowestCard; card < HandEvaluator.NUM_CARDS; card++) {
+            if ((unseen & 1L << card) == 0) {
+                continue;
+            }
+
+            for (int hole = 0; hole < 2; hole++) {
+                int other = getStrength(hole == 0 ? first : second, card);
+
+                if (other < strength) {
+                    numWeaker--;
+                }
+
+                else if (other == strength) {
+                    numTied--;
+                }
+            }
+        }
+
+        // C(unseen cards, 2) holdings are left, 990 in a full deck
+        int numUnseen = HandEvaluator.NUM_CARDS - lowestCard - Constants.TOTAL_CARDS;
+
+        return (numWeaker + numTied / 2.0) / (numUnseen * (numUnseen - 1) / 2);
+    }
+
+    // Private helper methods!
+    // Whether a holding has enough cards of the board's flush suit to make a flush
+    private boolean canMakeFlush(int first, int second) {
+        if (flushSuit < 0) {
+            return false;
+        }
+
+        boolean isFirstSuited = HandEvaluator.suitOf(first) == flushSuit;
+        boolean isSecondSuited = HandEvaluator.suitOf(second) == flushSuit;
+
+        return isOneCardFlush ? isFirstSuited || isSecondSuited : isFirstSuited && isSecondSuited;
+    }
+
+    // How many of the holdings left can make a flush, out of numLeft cards off the board
+    private int countFlushHoldings(int suitCounts, int numLeft) {
+        if (flushSuit < 0) {
+            return 0;
+        }
+
+        int numRanks = NUM_RANKS - (lowestCard / NUM_SUITS);
+        int suited = numRanks - (suitCounts >>> (flushSuit * 4) & 0xF);
+        int bothSuited = suited * (suited - 1) / 2;
+
+        return isOneCardFlush ? bothSuited + suited * (numLeft - suited) : bothSuited;
+    }
+
+    // The strength of the board with one holding
+    private int evaluate(int first, int second) {
+        hand[BOARD_CARDS] = first;
+        hand[BOARD_CARDS + 1] = second;
+
+        return isShortDeck ? ShortDeckEvaluator.evaluate(hand, Constants.TOTAL_CARDS)
+                : HandEvaluator.evaluate(hand, Constants.TOTAL_CARDS);
+    }
+
+    // Numbers each pair of ranks (a pocket pair included), lower rank first
+    private static int rankPairIndex(int first, int second) {
+        int firstRank = HandEvaluator.rankOf(first) - 2;
+        int secondRank = HandEvaluator.rankOf(second) - 2;
+
+        return Math.min(firstRank, secondRank) * NUM_RANKS + Math.max(firstRank, secondRank);
+    }
+}
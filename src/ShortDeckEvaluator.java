@@ -0,0 +1,238 @@
+/* The ShortDeckEvaluator class scores short deck (6+) Hold 'em hands, where the 2s through 5s are out of the deck
+Two rules change: A-6-7-8-9 is a straight (the lowest one), and a flush beats a full house, since with only nine
+cards of each suit it's the harder hand to make
+
+With 36 cards, every hand is one lookup in one of two small tables instead of HandEvaluator's bit tricks:
+NON_FLUSH has an entry for every set of 0-7 ranks (repeats allowed), numbered one after another with no gaps by the
+combinatorial number system, and FLUSH has one per 9-bit mask of a suit's ranks. Together they're under 50 KB, so they
+stay in the CPU's cache. Seven cards can't hold five of one suit and a full house (or four of a kind) at once, so a
+hand with five cards of a suit is just its FLUSH entry
+
+Strengths compare like HandEvaluator's, as plain ints (bigger = better), except that FLUSH and FULL_HOUSE trade
+category numbers so flushes come out on top. toHandEvaluator() trades them back for naming and scoring a hand
+Only single deck hands of short deck cards are supported, the way the game is dealt (see GameVariant.getNumDecks()) */
+
+
+public final class ShortDeckEvaluator {
+    // Cards in a short deck, and its ranks (6 through Ace)
+    public static final int NUM_CARDS = 36;
+    private static final int NUM_RANKS = 9;
+
+    // HandEvaluator's rank index of the 6, the lowest rank in the deck
+    private static final int LOWEST_RANK_INDEX = 4;
+
+    // The most cards a hand can have, and the most copies of a rank
+    private static final int MAX_CARDS = Constants.TOTAL_CARDS;
+    private static final int MAX_COPIES = 4;
+
+    // A-6-7-8-9 as a 13-bit HandEvaluator rank mask
+    private static final int LOW_STRAIGHT = 0b1000011110000;
+
+    /* Where the numbers of hands with each number of cards start in NON_FLUSH: there are C(8 + n, n) sets of n ranks,
+    so the ones with fewer than n cards take up C(8 + n, n - 1) entries */
+    private static final int[] OFFSETS = new int[MAX_CARDS + 2];
+
+    /* TERMS[(rank * (MAX_CARDS + 1) + before) * (MAX_COPIES + 1) + count] = what count copies of a rank add to a hand's
+    number, when before cards of lower ranks came first (see index()) */
+    private static final int[] TERMS = new int[NUM_RANKS * (MAX_CARDS + 1) * (MAX_COPIES + 1)];
+
+    // NON_FLUSH[index()] = the strength of cards with those ranks that don't have five of one suit
+    private static final int[] NON_FLUSH;
+
+    // FLUSH[9-bit mask of a suit's ranks, the 6 at bit 0] = the strength of five to seven suited cards with those ranks
+    private static final int[] FLUSH = new int[1 << NUM_RANKS];
+
+    static {
+        for (int n = 1; n < OFFSETS.length; n++) {
+            OFFSETS[n] = (int) choose(NUM_RANKS - 1 + n, n - 1);
+        }
+
+        /* Sorted lowest first, the i-th card (from 1) of rank r is worth C(r + i - 1, i) in the combinatorial number
+        system, so a rank's copies are worth the sum of that over their positions */
+        for (int rank = 0; rank < NUM_RANKS; rank++) {
+            for (int before = 0; before <= MAX_CARDS; before++) {
+                int term = 0;
+
+                for (int count = 0; count <= MAX_COPIES; count++) {
+                    TERMS[(rank * (MAX_CARDS + 1) + before) * (MAX_COPIES + 1) + count] = term;
+                    term += (int) choose(rank + before + count, before + count + 1);
+                }
+            }
+        }
+
+        NON_FLUSH = new int[OFFSETS[MAX_CARDS + 1]];
+
+        // A-6-7-8-9 ranks like the 5-9 straight it stands in for (there are no 5s), mixed suits and then one suit
+        int[] run = new int[Constants.HAND_SIZE];
+
+        for (int i = 0; i < Constants.HAND_SIZE; i++) {
+            run[i] = HandEvaluator.index(5 + i, i % 4);
+        }
+
+        int lowStraight = HandEvaluator.evaluate(run, Constants.HAND_SIZE);
+
+        for (int i = 0; i < Constants.HAND_SIZE; i++) {
+            run[i] = HandEvaluator.index(5 + i, Constants.CLUBS);
+        }
+
+        int lowStraightFlush = HandEvaluator.evaluate(run, Constants.HAND_SIZE);
+
+        int[] cards = new int[MAX_CARDS];
+
+        // Every way to hold 0-4 copies of each rank, counted in base 5, skipping the ones with more than seven cards
+        for (int digits = 0; digits < pow(MAX_COPIES + 1, NUM_RANKS); digits++) {
+            long counts = 0;
+            int numCards = 0;
+
+            for (int rank = 0, rest = digits; rank < NUM_RANKS; rank++, rest /= MAX_COPIES + 1) {
+                counts += (long) (rest % (MAX_COPIES + 1)) << ((rank + LOWEST_RANK_INDEX) << 2);
+                numCards += rest % (MAX_COPIES + 1);
+            }
+
+            if (numCards > MAX_CARDS) {
+                continue;
+            }
+
+            // Suits go round in turn, so copies of a rank never match and no suit gets five cards
+            for (int rank = 0, i = 0; rank < NUM_RANKS; rank++) {
+                long count = counts >>> ((rank + LOWEST_RANK_INDEX) << 2) & 0xF;
+
+                for (int copy = 0; copy < count; copy++, i++) {
+                    cards[i] = HandEvaluator.index(rank + LOWEST_RANK_INDEX + 2, i % 4);
+                }
+            }
+
+            int strength = HandEvaluator.evaluate(cards, numCards);
+            int mask = rankMask(cards, numCards);
+
+            if (HandEvaluator.category(strength) < HandEvaluator.STRAIGHT && (mask & LOW_STRAIGHT) == LOW_STRAIGHT) {
+                strength = lowStraight;
+            }
+
+            NON_FLUSH[index(counts, numCards)] = swapFlushAndFullHouse(strength);
+        }
+
+        for (int mask = 0; mask < FLUSH.length; mask++) {
+            int numCards = Integer.bitCount(mask);
+
+            if (numCards < Constants.HAND_SIZE || numCards > MAX_CARDS) {
+                continue;
+            }
+
+            for (int i = 0, rest = mask; i < numCards; i++, rest &= rest - 1) {
+                cards[i] = (Integer.numberOfTrailingZeros(rest) + LOWEST_RANK_INDEX) << 2;
+            }
+
+            int strength = HandEvaluator.evaluate(cards, numCards);
+
+            if (HandEvaluator.category(strength) == HandEvaluator.FLUSH
+                    && (mask << LOWEST_RANK_INDEX & LOW_STRAIGHT) == LOW_STRAIGHT) {
+                strength = lowStraightFlush;
+            }
+
+            FLUSH[mask] = swapFlushAndFullHouse(strength);
+        }
+    }
+
+    // Static utility class, no instances
+    private ShortDeckEvaluator() {
+    }
+
+    /* Returns the short deck strength of the best hand among the first numCards (0-7) entries of cards
+    Every card has to be a short deck card index (6 or higher) with no repeats */
+    public static int evaluate(int[] cards, int numCards) {
+        // Copies of each rank and cards of each suit, 4 bits apiece, and a 13-bit rank mask per suit 16 bits apart
+        long counts = 0;
+        int suitCounts = 0;
+        long suits = 0;
+
+        for (int i = 0; i < numCards; i++) {
+            int card = cards[i];
+
+            counts += 1L << ((card >> 2) << 2);
+            suitCounts += 1 << ((card & 3) << 2);
+            suits |= 1L << ((card >> 2) + ((card & 3) << 4));
+        }
+
+        // Adding 3 to each suit's count (at most 7) reaches its top bit exactly when it has five or more cards
+        int flushes = (suitCounts + 0x3333) & 0x8888;
+
+        if (flushes != 0) {
+            int suit = Integer.numberOfTrailingZeros(flushes) >> 2;
+
+            return FLUSH[(int) (suits >>> ((suit << 4) + LOWEST_RANK_INDEX)) & (1 << NUM_RANKS) - 1];
+        }
+
+        return NON_FLUSH[index(counts, numCards)];
+    }
+
+    /* Returns the same hand as a HandEvaluator strength, for naming and scoring it (e.g. HandEvaluator.toScore())
+    It no longer compares the short deck way, so compare the strengths evaluate() returns */
+    public static int toHandEvaluator(int strength) {
+        return swapFlushAndFullHouse(strength);
+    }
+
+    // Private helper methods!
+    /* The number of a set of numCards ranks among every set with that many cards, plus where those start
+    Parameter counts: copies of each rank, 4 bits per HandEvaluator rank index */
+    private static int index(long counts, int numCards) {
+        int index = OFFSETS[numCards];
+        int before = 0;
+
+        for (int rank = 0; rank < NUM_RANKS; rank++) {
+            int count = (int) (counts >>> ((rank + LOWEST_RANK_INDEX) << 2)) & 0xF;
+
+            index += TERMS[(rank * (MAX_CARDS + 1) + before) * (MAX_COPIES + 1) + count];
+            before += count;
+        }
+
+        return index;
+    }
+
+    // Flushes and full houses trade places, which is its own undo
+    private static int swapFlushAndFullHouse(int strength) {
+        int category = HandEvaluator.category(strength);
+
+        if (category == HandEvaluator.FLUSH) {
+            return HandEvaluator.withCategory(strength, HandEvaluator.FULL_HOUSE);
+        }
+
+        else if (category == HandEvaluator.FULL_HOUSE) {
+            return HandEvaluator.withCategory(strength, HandEvaluator.FLUSH);
+        }
+
+        return strength;
+    }
+
+    // The 13-bit mask of the ranks among the first numCards cards
+    private static int rankMask(int[] cards, int numCards) {
+        int mask = 0;
+
+        for (int i = 0; i < numCards; i++) {
+            mask |= 1 << (cards[i] >> 2);
+        }
+
+        return mask;
+    }
+
+    // n choose k, 0 when k > n
+    private static long choose(int n, int k) {
+        long ways = 1;
+
+        for (int i = 0; i < k; i++) {
+            ways = ways * (n - i) / (i + 1);
+        }
+
+        return ways;
+    }
+
+    private static int pow(int base, int exponent) {
+        int result = 1;
+
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+
+        return result;
+    }
+}
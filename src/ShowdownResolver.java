@@ -0,0 +1,129 @@
+/* The ShowdownResolver class hands out the pot at the end of a round, side pots and split pots included
+Every hand still in is scored once up front, then the pot is cut into layers by how much each player put in:
+the main pot is what everyone still in matched, and each layer above it is a side pot only the players who put in
+that much can win. Each layer goes to the best hand among its players, found with one pass over the seats
+
+Split pots are divided exactly. The chips that don't divide evenly go one at a time to the tied winners closest to
+the left of the button, so no chips are ever created or lost */
+
+
+public final class ShowdownResolver {
+    private final int[] winnings;
+    private final int[] sidePotWinnings;
+    private final boolean[] isMainPotWinner;
+
+    // Constructor
+    public ShowdownResolver(int numSeats) {
+        winnings = new int[numSeats];
+        sidePotWinnings = new int[numSeats];
+        isMainPotWinner = new boolean[numSeats];
+    }
+
+    /* Splits the pot between the seats, replacing the results of any earlier call
+
+    Parameter handBets: the chips each seat put in over the whole hand, folded seats included
+    Parameter folded: which seats have folded, they can't win anything
+    Parameter strengths: each seat's HandEvaluator strength, only read for seats that haven't folded
+    Parameter firstSeat: the first seat to the left of the button, who gets the first odd chip of a split pot */
+    public void resolve(int[] handBets, boolean[] folded, int[] strengths, int numSeats, int firstSeat) {
+        int biggestBet = 0;
+
+        for (int seat = 0; seat < numSeats; seat++) {
+            winnings[seat] = 0;
+            sidePotWinnings[seat] = 0;
+            isMainPotWinner[seat] = false;
+            biggestBet = Math.max(biggestBet, handBets[seat]);
+        }
+
+        // Everything up to the last layer's top has been handed out
+        int bottom = 0;
+        boolean isMainPot = true;
+
+        while (true) {
+            // The layer's top is the smallest bet above its bottom among the players still in (the main pot has all)
+            int top = Integer.MAX_VALUE;
+            int biggestLiveBet = 0;
+
+            for (int seat = 0; seat < numSeats; seat++) {
+                if (!folded[seat] && (handBets[seat] > bottom || isMainPot)) {
+                    top = Math.min(top, handBets[seat]);
+                    biggestLiveBet = Math.max(biggestLiveBet, handBets[seat]);
+                }
+            }
+
+            if (top == Integer.MAX_VALUE) {
+                return;
+            }
+
+            // Chips folded players put in past every live player's bet go into the last layer
+            if (top == biggestLiveBet) {
+                top = biggestBet;
+            }
+
+            int layer = 0;
+            int bestStrength = -1;
+            int numWinners = 0;
+            int numEligible = 0;
+
+            for (int seat = 0; seat < numSeats; seat++) {
+                layer += Math.max(0, Math.min(handBets[seat], top) - bottom);
+
+                if (folded[seat] || handBets[seat] <= bottom && !isMainPot) {
+                    continue;
+                }
+
+                numEligible++;
+
+                if (strengths[seat] > bestStrength) {
+                    bestStrength = strengths[seat];
+                    numWinners = 1;
+                }
+
+                else if (strengths[seat] == bestStrength) {
+                    numWinners++;
+                }
+            }
+
+            // Every winner gets an equal share, and the leftover chips go out one each from the left of the button
+            int share = layer / numWinners;
+            int oddChips = layer % numWinners;
+
+            for (int i = 0; i < numSeats; i++) {
+                int seat = (firstSeat + i) % numSeats;
+
+                if (folded[seat] || handBets[seat] <= bottom && !isMainPot || strengths[seat] != bestStrength) {
+                    continue;
+                }
+
+                int amount = share + (oddChips-- > 0 ? 1 : 0);
+
+                winnings[seat] += amount;
+
+                // A layer only one player reached is just their uncalled bet coming back, not a side pot
+                if (!isMainPot && numEligible > 1) {
+                    sidePotWinnings[seat] += amount;
+                }
+
+                isMainPotWinner[seat] |= isMainPot;
+            }
+
+            bottom = top;
+            isMainPot = false;
+        }
+    }
+
+    // Getter methods
+    // Chips a seat won in total, including its own bets coming back
+    public int getWinnings(int seat) {
+        return winnings[seat];
+    }
+
+    // Chips a seat won from contested side pots, a part of getWinnings()
+    public int getSidePotWinnings(int seat) {
+        return sidePotWinnings[seat];
+    }
+
+    public boolean isMainPotWinner(int seat) {
+        return isMainPotWinner[seat];
+    }
+}
@@ -0,0 +1,564 @@
+/* The Simulator class plays AI-only games without any human input or typed out text
+It runs many Tables side by side, and instead of letting every AI decide on its own, it gathers the pending decision
+from each Table, groups them by Strategy, and hands every Strategy its whole batch at once (see Strategy.decideAll)
+Every table has its own TableConfig, so heads-up, 6-max, and full ring tables can all be played in the same run
+
+Runs are seeded: each hand's Table gets a seed worked out from the run's seed, the table, and the round (see
+handSeed), so a whole run replays exactly from its seed and no two tables ever share a source of random numbers
+
+Two measurements help tell strategies apart in fewer hands (see Trainer.compare):
+1. All-in adjustment: when two players get all in with cards to come, the chips they win are compared with what their
+equity (from RangeEquity) says they should win on average, and getAdjustedNet() leaves that luck out
+2. Card luck: getCardLuck() adds up how much better than average each seat's starting hands were, a control variate
+whose expected value is exactly 0 */
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+
+
+public class Simulator {
+    // All-in equities only need to be roughly right to take out most of the luck, so keep them cheap
+    private static final double ALL_IN_PRECISION = .01;
+    private static final long ALL_IN_MAX_SAMPLES = 100000;
+
+    // ResultStore chunks main keeps in memory before spilling (12 MB each), and starting hands shown at either end
+    private static final int RESULT_MEMORY_CHUNKS = 4;
+    private static final int RESULT_HANDS_SHOWN = 5;
+
+    // Players sitting at each table, every seat is an AI
+    private final ArrayList<ArrayList<Player>> seats;
+
+    // The round currently being played at each table, null once the table is done
+    private final Table[] tables;
+    private final TableConfig[] configs;
+    private final long seed;
+
+    // Bookkeeping per table
+    private final int[] firstPlayers;
+    private final int[] roundsPlayed;
+
+    // Total money each seat has bought in with, so results can be measured across rebuys
+    private final long[][] buyIns;
+
+    // Each seat's bankroll when the current hand started, before the blinds
+    private final int[][] handStartBankrolls;
+
+    // Chips won in all-in hands beyond what equity says they should have won, and card luck (see above)
+    private final double[][] allInLuck;
+    private final double[][] cardLuck;
+    private final double averageStrength;
+
+    // Only set while run() is going with the all-in adjustment on
+    private boolean isAllInAdjusted;
+    private RangeEquity equity;
+
+    // Where every seat's outcome of every hand is appended, null = not recorded
+    private ResultStore results;
+
+    // Stats for the throughput report
+    private long numDecisions;
+    private long numBatches;
+
+    /* Constructor, every table uses TableConfig.DEFAULT
+
+    Parameter numTables: how many tables are played side by side
+    Parameter strategy: the Strategy every AI player uses */
+    public Simulator(int numTables, Strategy strategy) {
+        this(sameConfig(TableConfig.DEFAULT, numTables), strategy);
+    }
+
+    /* Second constructor, used to mix tables with different seats and stakes
+
+    Parameter configs: the config of each table, one table is played per entry */
+    public Simulator(TableConfig[] configs, Strategy strategy) {
+        this(configs, sameStrategies(configs, strategy), System.nanoTime());
+    }
+
+    // Same as above with a fixed seed, so the run can be played again exactly
+    public Simulator(TableConfig[] configs, Strategy strategy, long seed) {
+        this(configs, sameStrategies(configs, strategy), seed);
+    }
+
+    /* Third constructor, used to pit strategies against each other (e.g. by the Trainer)
+
+    Parameter seatStrategies: the Strategy of the player in each seat, the same at every table */
+    public Simulator(int numTables, Strategy[] seatStrategies) {
+        this(sameConfig(TableConfig.DEFAULT.withSeats(seatStrategies.length), numTables),
+                sameStrategies(seatStrategies, numTables), System.nanoTime());
+    }
+
+    // Same as above with a fixed seed, so the run can be played again exactly (e.g. with the seats swapped)
+    public Simulator(int numTables, Strategy[] seatStrategies, long seed) {
+        this(sameConfig(TableConfig.DEFAULT.withSeats(seatStrategies.length), numTables),
+                sameStrategies(seatStrategies, numTables), seed);
+    }
+
+    // Private constructor the others delegate to, seatStrategies[t][i] is the Strategy of seat i at table t
+    private Simulator(TableConfig[] configs, Strategy[][] seatStrategies, long seed) {
+        int numTables = configs.length;
+
+        this.configs = configs.clone();
+        this.seed = seed;
+        seats = new ArrayList<>();
+        tables = new Table[numTables];
+        firstPlayers = new int[numTables];
+        roundsPlayed = new int[numTables];
+        buyIns = new long[numTables][];
+        handStartBankrolls = new int[numTables][];
+        allInLuck = new double[numTables][];
+        cardLuck = new double[numTables][];
+        averageStrength = averageStrength();
+
+        for (int t = 0; t < numTables; t++) {
+            ArrayList<Player> players = new ArrayList<>();
+            int startingBank = configs[t].getStartingBank();
+
+            buyIns[t] = new long[seatStrategies[t].length];
+            handStartBankrolls[t] = new int[seatStrategies[t].length];
+            allInLuck[t] = new double[seatStrategies[t].length];
+            cardLuck[t] = new double[seatStrategies[t].length];
+
+            for (int i = 0; i < seatStrategies[t].length; i++) {
+                players.add(new Player("AI " + (i + 1), startingBank, seatStrategies[t][i]));
+                buyIns[t][i] = startingBank;
+            }
+
+            seats.add(players);
+        }
+    }
+
+    /* Optional arguments: number of tables, rounds per table, and a CfrSolver strategy file to play instead of the
+    default strategy (Texas Hold 'em only), e.g. "java Simulator 100 100 cfr_strategy.bin"
+    Any "key=value" arguments set up the tables (see TableConfig), and "mix=2,6,10" cycles the tables through those
+    numbers of seats, e.g. "java Simulator 300 100 mix=2,6,10 bigBlind=10"
+    "seed=123" plays the run with a fixed seed, every run prints the seed it used so it can be played again
+    "results=path" records every seat of every hand in a ResultStore (spilling to that file once it outgrows memory)
+    and prints the results by starting hand and position */
+    public static void main(String[] args) throws IOException {
+        ArrayList<String> positional = new ArrayList<>();
+        String mix = null;
+        String resultsPath = null;
+        long seed = System.nanoTime();
+
+        for (String arg : args) {
+            if (arg.startsWith("mix=")) {
+                mix = arg.substring(4);
+            }
+
+            else if (arg.startsWith("seed=")) {
+                seed = Long.parseLong(arg.substring(5));
+            }
+
+            else if (arg.startsWith("results=")) {
+                resultsPath = arg.substring(8);
+            }
+
+            else if (arg.indexOf('=') < 0) {
+                positional.add(arg);
+            }
+        }
+
+        int numTables = positional.size() > 0 ? Integer.parseInt(positional.get(0)) : 100;
+        int numRounds = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 100;
+        Strategy strategy = positional.size() > 2 ? CfrStrategy.load(positional.get(2)) : DefaultStrategy.INSTANCE;
+
+        TableConfig config = TableConfig.fromArgs(args);
+
+        // CfrSolver strategies are solved for Texas Hold 'em, so don't let one play a game it doesn't know
+        if (strategy != DefaultStrategy.INSTANCE && config.getVariant() != GameVariant.HOLDEM) {
+            throw new IllegalArgumentException("CfrSolver strategies only play " + GameVariant.HOLDEM + ", not "
+                    + config.getVariant());
+        }
+
+        TableConfig[] configs = sameConfig(config, numTables);
+
+        if (mix != null) {
+            String[] sizes = mix.split(",");
+
+            for (int t = 0; t < numTables; t++) {
+                configs[t] = config.withSeats(Integer.parseInt(sizes[t % sizes.length].trim()));
+            }
+        }
+
+        // Nobody is watching, so don't type anything out
+        Constants.isSilent = true;
+
+        Simulator simulator = new Simulator(configs, strategy, seed);
+        ResultStore results = resultsPath == null ? null
+                : new ResultStore(RESULT_MEMORY_CHUNKS, Paths.get(resultsPath));
+
+        simulator.setResultStore(results);
+
+        long start = System.nanoTime();
+        long hands = simulator.run(numRounds);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Played %d hands at %d tables in %.2f seconds (%.0f hands/second)%n",
+                hands, numTables, seconds, hands / seconds);
+        System.out.printf("%d decisions in %d batches (%.1f decisions per batch)%n",
+                simulator.numDecisions, simulator.numBatches, (double) simulator.numDecisions / simulator.numBatches);
+        System.out.println("Seed: " + seed);
+
+        if (results != null) {
+            printResults(results);
+            results.close();
+        }
+    }
+
+    // Getter methods
+    public ArrayList<Player> getPlayers(int table) {
+        return seats.get(table);
+    }
+
+    public TableConfig getConfig(int table) {
+        return configs[table];
+    }
+
+    // How much the player in a seat has won (or lost, if negative) so far, counting every rebuy
+    public long getNet(int table, int seat) {
+        return seats.get(table).get(seat).getBankroll() - buyIns[table][seat];
+    }
+
+    // Same as above with the luck of all-in run-outs taken out, equal to getNet() unless the adjustment is on
+    public double getAdjustedNet(int table, int seat) {
+        return getNet(table, seat) - allInLuck[table][seat];
+    }
+
+    /* How much better than an average starting hand the seat has been dealt, summed over its hands
+    Each hand counts its chance of beating one random hand (see StartingHands.strengths()) minus the average chance */
+    public double getCardLuck(int table, int seat) {
+        return cardLuck[table][seat];
+    }
+
+    public int getNumTables() {
+        return tables.length;
+    }
+
+    public long getNumDecisions() {
+        return numDecisions;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Records every seat of every hand from now on, several Simulators on different threads can share one store
+    public void setResultStore(ResultStore results) {
+        this.results = results;
+    }
+
+    // Turns the all-in adjustment (see above) on or off for the next runs, it's off by default
+    public void setAllInAdjusted(boolean isAllInAdjusted) {
+        this.isAllInAdjusted = isAllInAdjusted;
+    }
+
+    /* The seed of a table's hand in a run with the given seed, rounds count from 1
+    Worked out directly instead of drawn in order, so any hand's seed is known without playing the ones before it */
+    public static long handSeed(long seed, int table, int round) {
+        return new SplittableRandom(seed ^ ((long) table << 32 | round & 0xFFFFFFFFL)).nextLong();
+    }
+
+    // Plays numRounds rounds at every table, returns the total number of hands played
+    public long run(int numRounds) {
+        // One thread is plenty, the all-in equities are sampled to ALL_IN_PRECISION
+        equity = isAllInAdjusted ? new RangeEquity(1, seed) : null;
+
+        try {
+            return play(numRounds);
+        }
+
+        finally {
+            if (equity != null) {
+                equity.shutdown();
+                equity = null;
+            }
+        }
+    }
+
+    // Private helper methods!
+    private long play(int numRounds) {
+        for (int t = 0; t < tables.length; t++) {
+            tables[t] = newTable(t);
+        }
+
+        boolean isRunning = true;
+
+        while (isRunning) {
+            isRunning = false;
+
+            // Group the tables' pending decisions by Strategy, IdentityHashMap because strategies don't define equals
+            Map<Strategy, ArrayList<Table>> pending = new IdentityHashMap<>();
+
+            for (int t = 0; t < tables.length; t++) {
+                Player actor = nextActor(t, numRounds);
+
+                if (actor == null) {
+                    continue;
+                }
+
+                isRunning = true;
+                pending.computeIfAbsent(actor.getStrategy(), k -> new ArrayList<>()).add(tables[t]);
+            }
+
+            for (Map.Entry<Strategy, ArrayList<Table>> entry : pending.entrySet()) {
+                decide(entry.getKey(), entry.getValue());
+            }
+        }
+
+        long hands = 0;
+
+        for (int played : roundsPlayed) {
+            hands += played;
+        }
+
+        return hands;
+    }
+
+    /* Returns the player who has to act next at a table, starting new rounds when old ones end
+    Returns null once the table has played numRounds rounds */
+    private Player nextActor(int t, int numRounds) {
+        while (tables[t] != null) {
+            Player actor = tables[t].nextActor();
+
+            if (actor != null) {
+                return actor;
+            }
+
+            roundsPlayed[t]++;
+            measureAllInLuck(t);
+            recordResults(t);
+            rebuy(t);
+
+            // A different player should go first each round --> increment firstPlayer
+            firstPlayers[t]++;
+
+            tables[t] = roundsPlayed[t] < numRounds ? newTable(t) : null;
+        }
+
+        return null;
+    }
+
+    // Starts the next round at a table
+    private Table newTable(int t) {
+        int round = roundsPlayed[t] + 1;
+        ArrayList<Player> players = seats.get(t);
+
+        for (int i = 0; i < players.size(); i++) {
+            handStartBankrolls[t][i] = players.get(i).getBankroll();
+        }
+
+        Table table = new Table(players, firstPlayers[t], round, configs[t], handSeed(seed, t, round));
+        double[] strengths = StartingHands.strengths();
+
+        // Starting hand strengths are for Texas Hold 'em's two cards, other games go without
+        for (int i = 0; i < players.size() && configs[t].getVariant() == GameVariant.HOLDEM; i++) {
+            List<Card> hand = players.get(i).getHand();
+            cardLuck[t][i] += strengths[StartingHands.classOf(hand.get(0), hand.get(1))] - averageStrength;
+        }
+
+        return table;
+    }
+
+    /* Once a hand is over, compares what the two players of an all-in run-out won with what they'd win on average:
+    their equity's share of the pot the other could match, plus any of their own bet the other couldn't match */
+    private void measureAllInLuck(int t) {
+        Table table = tables[t];
+        int boardSize = table.getAllInBoardSize();
+
+        // RangeEquity only knows Texas Hold 'em hands
+        if (equity == null || boardSize < 0 || configs[t].getVariant() != GameVariant.HOLDEM) {
+            return;
+        }
+
+        ArrayList<Player> players = seats.get(t);
+        int[] allIn = new int[2];
+        int numAllIn = 0;
+
+        for (int i = 0; i < players.size() && numAllIn < 2; i++) {
+            if (!players.get(i).hasFolded()) {
+                allIn[numAllIn++] = i;
+            }
+        }
+
+        List<HandRange> hands = new ArrayList<>(2);
+
+        for (int i : allIn) {
+            List<Card> hand = players.get(i).getHand();
+            hands.add(HandRange.of(hand.get(0).getIndex(), hand.get(1).getIndex()));
+        }
+
+        // The community comes after the two hole cards in every hand
+        List<Card> community = players.get(allIn[0]).getHand();
+        int[] board = new int[boardSize];
+
+        for (int k = 0; k < boardSize; k++) {
+            board[k] = community.get(2 + k).getIndex();
+        }
+
+        RangeEquity.Result result;
+
+        try {
+            result = equity.calculate(hands, board, 0, ALL_IN_PRECISION, ALL_IN_MAX_SAMPLES);
+        }
+
+        catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("All-in equity failed", e);
+        }
+
+        int matched = Math.min(table.getHandBet(allIn[0]), table.getHandBet(allIn[1]));
+        int unmatched = Math.abs(table.getHandBet(allIn[0]) - table.getHandBet(allIn[1]));
+
+        for (int k = 0; k < 2; k++) {
+            int i = allIn[k];
+            int bet = table.getHandBet(i);
+            double expected = result.getEquity(k) * (table.getPot() - unmatched) + (bet - matched);
+            int won = players.get(i).getBankroll() - handStartBankrolls[t][i] + bet;
+
+            allInLuck[t][i] += won - expected;
+        }
+    }
+
+    // Appends every seat's outcome of the hand that just ended to the ResultStore, if there is one
+    private void recordResults(int t) {
+        if (results == null) {
+            return;
+        }
+
+        ArrayList<Player> players = seats.get(t);
+        int numSeats = players.size();
+
+        // Starting hand classes and scores are Texas Hold 'em's, other games only record position and chips
+        boolean isHoldem = configs[t].getVariant() == GameVariant.HOLDEM;
+
+        for (int i = 0; i < numSeats; i++) {
+            Player player = players.get(i);
+            List<Card> hand = player.getHand();
+
+            results.append(i, (i - firstPlayers[t] % numSeats + numSeats) % numSeats,
+                    isHoldem ? StartingHands.classOf(hand.get(0), hand.get(1)) : ResultStore.NO_HAND_CLASS,
+                    isHoldem ? (float) player.getScore() : Float.NaN, player.getBankroll() - handStartBankrolls[t][i]);
+        }
+    }
+
+    // Prints the best and worst starting hands and every position's results from a ResultStore
+    private static void printResults(ResultStore results) {
+        double[] netByClass = results.meanNetByHandClass();
+        double[] winRateByClass = results.winRateByHandClass();
+        Integer[] classes = new Integer[StartingHands.NUM_CLASSES];
+
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = i;
+        }
+
+        // Hands that were never dealt (NaN) go last
+        Arrays.sort(classes, (a, b) -> Double.compare(Double.isNaN(netByClass[b]) ? Double.NEGATIVE_INFINITY
+                : netByClass[b], Double.isNaN(netByClass[a]) ? Double.NEGATIVE_INFINITY : netByClass[a]));
+
+        System.out.println("\n" + results.size() + " results, best and worst starting hands:");
+
+        for (int i = 0; i < RESULT_HANDS_SHOWN; i++) {
+            int handClass = classes[i];
+
+            System.out.printf("%-4s %+8.2f chips per hand, wins %.1f%%%n", StartingHands.name(handClass),
+                    netByClass[handClass], winRateByClass[handClass] * 100);
+        }
+
+        System.out.println("...");
+
+        for (int i = classes.length - RESULT_HANDS_SHOWN; i < classes.length; i++) {
+            int handClass = classes[i];
+
+            System.out.printf("%-4s %+8.2f chips per hand, wins %.1f%%%n", StartingHands.name(handClass),
+                    netByClass[handClass], winRateByClass[handClass] * 100);
+        }
+
+        double[] netByPosition = results.meanNetByPosition();
+        double[] winRateByPosition = results.winRateByPosition();
+
+        System.out.println("\nBy position (0 = small blind):");
+
+        for (int position = 0; position < netByPosition.length; position++) {
+            if (!Double.isNaN(netByPosition[position])) {
+                System.out.printf("%d %+8.2f chips per hand, wins %.1f%%%n", position, netByPosition[position],
+                        winRateByPosition[position] * 100);
+            }
+        }
+    }
+
+    // Average of StartingHands.strengths() over every two-card hand, so card luck averages out to exactly 0
+    private static double averageStrength() {
+        double[] strengths = StartingHands.strengths();
+        double total = 0;
+
+        for (int handClass = 0; handClass < StartingHands.NUM_CLASSES; handClass++) {
+            total += strengths[handClass] * StartingHands.numCombos(handClass);
+        }
+
+        return total / HandRange.NUM_COMBOS;
+    }
+
+    // Asks a Strategy for a whole batch of decisions at once, then carries them out at each Table
+    private void decide(Strategy strategy, ArrayList<Table> batch) {
+        ArrayList<DecisionContext> contexts = new ArrayList<>(batch.size());
+
+        for (Table table : batch) {
+            contexts.add(table.getContext());
+        }
+
+        Decision[] decisions = strategy.decideAll(contexts);
+
+        for (int i = 0; i < decisions.length; i++) {
+            batch.get(i).act(decisions[i]);
+        }
+
+        numDecisions += decisions.length;
+        numBatches++;
+    }
+
+    // Unlike Game, bankrupt AI players buy back in so every table keeps all of its seats
+    private void rebuy(int t) {
+        ArrayList<Player> players = seats.get(t);
+        int startingBank = configs[t].getStartingBank();
+
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).isBankrupt()) {
+                players.get(i).setBankroll(startingBank);
+                buyIns[t][i] += startingBank;
+            }
+        }
+    }
+
+    // Returns an array with the same config for every table
+    private static TableConfig[] sameConfig(TableConfig config, int numTables) {
+        TableConfig[] configs = new TableConfig[numTables];
+        Arrays.fill(configs, config);
+
+        return configs;
+    }
+
+    // Returns the same Strategy in every seat of every table, each table getting as many seats as its config has
+    private static Strategy[][] sameStrategies(TableConfig[] configs, Strategy strategy) {
+        Strategy[][] strategies = new Strategy[configs.length][];
+
+        for (int t = 0; t < configs.length; t++) {
+            strategies[t] = new Strategy[configs[t].getNumSeats()];
+            Arrays.fill(strategies[t], strategy);
+        }
+
+        return strategies;
+    }
+
+    // Returns the same seat strategies at every table
+    private static Strategy[][] sameStrategies(Strategy[] seatStrategies, int numTables) {
+        Strategy[][] strategies = new Strategy[numTables][];
+        Arrays.fill(strategies, seatStrategies);
+
+        return strategies;
+    }
+}
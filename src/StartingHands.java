@@ -0,0 +1,196 @@
+/* The StartingHands class numbers the 169 distinct two-card starting hands (e.g. "AKs", "QQ", "72o")
+Suits don't matter before the flop except for whether the two cards match, so 1326 possible hands collapse into 169
+classes laid out like the usual 13x13 grid: pairs on the diagonal, suited hands above it, and offsuit hands below it */
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+public final class StartingHands {
+    // Number of starting hand classes
+    public static final int NUM_CLASSES = 169;
+
+    // Characters used to name ranks, index 0 = 2 up to index 12 = Ace
+    private static final String RANK_CHARS = "23456789TJQKA";
+
+    // Samples per class used to rank the classes by strength, with a fixed seed so the ranking never changes
+    private static final int STRENGTH_SAMPLES = 4000;
+    private static final long STRENGTH_SEED = 169;
+
+    // Lazily computed by strengths() and strengthOrder()
+    private static double[] strengths;
+    private static int[] strengthOrder;
+
+    // Static utility class, no instances
+    private StartingHands() {
+    }
+
+    // Returns the class of two cards, given as HandEvaluator card indices
+    public static int classOf(int first, int second) {
+        int high = Math.max(first >> 2, second >> 2);
+        int low = Math.min(first >> 2, second >> 2);
+
+        if ((first & 3) == (second & 3)) {
+            return high * 13 + low;
+        }
+
+        // Pairs land on the diagonal here too, since high == low
+        return low * 13 + high;
+    }
+
+    // Same as above, for Card objects
+    public static int classOf(Card first, Card second) {
+        return classOf(first.getIndex(), second.getIndex());
+    }
+
+    // Returns the class of a hand by its ranks (2-14) and whether it's suited
+    public static int classOf(int highRank, int lowRank, boolean suited) {
+        int high = Math.max(highRank, lowRank) - 2;
+        int low = Math.min(highRank, lowRank) - 2;
+
+        return suited && high != low ? high * 13 + low : low * 13 + high;
+    }
+
+    // Rank (2-14) of the higher card of a class
+    public static int highRank(int handClass) {
+        return Math.max(handClass / 13, handClass % 13) + 2;
+    }
+
+    // Rank (2-14) of the lower card of a class
+    public static int lowRank(int handClass) {
+        return Math.min(handClass / 13, handClass % 13) + 2;
+    }
+
+    public static boolean isPair(int handClass) {
+        return handClass / 13 == handClass % 13;
+    }
+
+    public static boolean isSuited(int handClass) {
+        return handClass / 13 > handClass % 13;
+    }
+
+    // Number of card combinations in a class: 6 for pairs, 4 for suited hands, 12 for offsuit hands
+    public static int numCombos(int handClass) {
+        if (isPair(handClass)) {
+            return 6;
+        }
+
+        return isSuited(handClass) ? 4 : 12;
+    }
+
+    // Returns the usual shorthand for a class, e.g. "AKs", "QQ", "72o"
+    public static String name(int handClass) {
+        String name = "" + RANK_CHARS.charAt(highRank(handClass) - 2) + RANK_CHARS.charAt(lowRank(handClass) - 2);
+
+        if (isPair(handClass)) {
+            return name;
+        }
+
+        return name + (isSuited(handClass) ? "s" : "o");
+    }
+
+    // Returns the shorthand character of a rank (2-14), e.g. 'K' or 'T'
+    public static char rankChar(int rank) {
+        return RANK_CHARS.charAt(rank - 2);
+    }
+
+    // Returns the rank (2-14) of a shorthand character such as 'K' or 'T', -1 if it isn't one
+    public static int rankOf(char rank) {
+        int index = RANK_CHARS.indexOf(Character.toUpperCase(rank));
+
+        return index < 0 ? -1 : index + 2;
+    }
+
+    /* Returns every class sorted from strongest to weakest by its chance of beating one random hand
+    Computed once (it takes a few dozen milliseconds) and shared afterwards, don't modify the returned array */
+    public static synchronized int[] strengthOrder() {
+        if (strengthOrder == null) {
+            double[] equities = strengths();
+            Integer[] classes = new Integer[NUM_CLASSES];
+
+            for (int i = 0; i < NUM_CLASSES; i++) {
+                classes[i] = i;
+            }
+
+            Arrays.sort(classes, (a, b) -> Double.compare(equities[b], equities[a]));
+
+            strengthOrder = new int[NUM_CLASSES];
+
+            for (int i = 0; i < NUM_CLASSES; i++) {
+                strengthOrder[i] = classes[i];
+            }
+        }
+
+        return strengthOrder;
+    }
+
+    /* Returns each class's chance of beating one random hand (see equityVsRandom), indexed by class
+    Computed once with a fixed seed and shared afterwards, don't modify the returned array */
+    public static synchronized double[] strengths() {
+        if (strengths == null) {
+            strengths = equityVsRandom(STRENGTH_SAMPLES, STRENGTH_SEED);
+        }
+
+        return strengths;
+    }
+
+    /* Estimates each class's chance of beating one random hand by dealing random hands and boards
+    The seed is fixed by callers that need the same answer every time (e.g. bucketing in CfrSolver) */
+    public static double[] equityVsRandom(int samplesPerClass, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] equities = new double[NUM_CLASSES];
+
+        int[] mine = new int[Constants.TOTAL_CARDS];
+        int[] theirs = new int[Constants.TOTAL_CARDS];
+
+        for (int handClass = 0; handClass < NUM_CLASSES; handClass++) {
+            // Pick any one concrete hand from the class, suits are interchangeable
+            int high = highRank(handClass);
+            int low = lowRank(handClass);
+
+            mine[0] = HandEvaluator.index(high, Constants.CLUBS);
+            mine[1] = HandEvaluator.index(low, isSuited(handClass) ? Constants.CLUBS : Constants.DIAMONDS);
+
+            double wins = 0;
+
+            for (int sample = 0; sample < samplesPerClass; sample++) {
+                long used = 1L << mine[0] | 1L << mine[1];
+
+                // Deal the opponent's hand and then the board, skipping any card that's already out
+                for (int i = 0; i < Constants.TOTAL_CARDS; i++) {
+                    int card;
+
+                    do {
+                        card = random.nextInt(HandEvaluator.NUM_CARDS);
+                    } while ((used & 1L << card) != 0);
+
+                    used |= 1L << card;
+
+                    if (i < 2) {
+                        theirs[i] = card;
+                    }
+
+                    else {
+                        mine[i] = card;
+                        theirs[i] = card;
+                    }
+                }
+
+                int mineStrength = HandEvaluator.evaluate(mine, Constants.TOTAL_CARDS);
+                int theirStrength = HandEvaluator.evaluate(theirs, Constants.TOTAL_CARDS);
+
+                // Ties count as half a win
+                if (mineStrength > theirStrength) {
+                    wins++;
+                }
+
+                else if (mineStrength == theirStrength) {
+                    wins += .5;
+                }
+            }
+
+            equities[handClass] = wins / samplesPerClass;
+        }
+
+        return equities;
+    }
+}
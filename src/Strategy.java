@@ -0,0 +1,22 @@
+/* The Strategy interface is how AI players decide what to do
+Implementations receive a DecisionContext and return a Decision, and can be swapped per Player */
+import java.util.List;
+
+
+public interface Strategy {
+    // Picks a move for a single decision
+    Decision decide(DecisionContext context);
+
+    /* Picks moves for a batch of decisions, usually pending decisions from many Tables in the headless Simulator
+    The default just decides one at a time, but expensive strategies (equity lookups, models, etc.)
+    can override this to pay their setup cost once per batch instead of once per decision, like CfrStrategy */
+    default Decision[] decideAll(List<DecisionContext> contexts) {
+        Decision[] decisions = new Decision[contexts.size()];
+
+        for (int i = 0; i < decisions.length; i++) {
+            decisions[i] = decide(contexts.get(i));
+        }
+
+        return decisions;
+    }
+}
@@ -0,0 +1,148 @@
+/* The StrategyParameters class holds every number that tunes DefaultStrategy's play style
+The defaults are the hand-picked values the AI has always used (Constants.AI_BLUFF, Constants.AI_RAISE, and
+Constants.AI_POTENTIAL), and the Trainer searches for better ones and saves them to a properties file
+The seven-card probability bands that used to be tuned here are now exact, see StrengthDistribution. Files that still
+have them load fine, the extra keys are just ignored */
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+
+public final class StrategyParameters {
+    // Indices of each parameter, also the order of NAMES, DEFAULTS, MINS, and MAXES
+    public static final int BLUFF = 0;
+    public static final int RAISE = 1;
+    public static final int POTENTIAL = 2;
+
+    // Keys used in the properties file
+    private static final String[] NAMES = {"bluff", "raise", "potential"};
+
+    private static final double[] DEFAULTS = {Constants.AI_BLUFF, Constants.AI_RAISE, Constants.AI_POTENTIAL};
+
+    // Bounds that keep the Trainer's search sensible
+    private static final double[] MINS = {0, 1, 0};
+    private static final double[] MAXES = {1, 50, 1};
+
+    public static final StrategyParameters DEFAULT = new StrategyParameters(DEFAULTS);
+
+    private final double[] values;
+
+    // Private constructor, use DEFAULT, load(), or with() instead
+    private StrategyParameters(double[] values) {
+        this.values = values.clone();
+    }
+
+    // Getter methods
+    public double get(int parameter) {
+        return values[parameter];
+    }
+
+    // How often the AI randomly bluffs
+    public double getBluff() {
+        return values[BLUFF];
+    }
+
+    // How much the AI raises by pre-flop and when bluffing
+    public int getRaise() {
+        return (int) Math.round(values[RAISE]);
+    }
+
+    /* How much turn and river decisions go by the chance of being ahead at the river (see HandPotential) instead of
+    the average fraction of hands beaten, from 0 (not at all, and it's never worked out) to 1 (only)
+    Anything above 0 costs time: it's worked out when the average alone doesn't settle the move, about .2 ms on the
+    turn, which makes a Simulator run about half again as long at .5. The flop goes without, where it's 3-4 ms */
+    public double getPotential() {
+        return values[POTENTIAL];
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    // Returns a copy with one parameter changed (and clamped to its bounds)
+    public StrategyParameters with(int parameter, double value) {
+        double[] copy = values.clone();
+        copy[parameter] = Math.max(MINS[parameter], Math.min(MAXES[parameter], value));
+
+        return new StrategyParameters(copy);
+    }
+
+    /* Returns a copy with one random parameter nudged by a random amount, used by the Trainer's hill climbing
+    The nudge is normally distributed, drawn with Box-Muller since SplittableRandom has no nextGaussian() */
+    public StrategyParameters mutate(SplittableRandom random, double stepSize) {
+        int parameter = random.nextInt(values.length);
+        double range = MAXES[parameter] - MINS[parameter];
+        double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble()))
+                * Math.cos(2 * Math.PI * random.nextDouble());
+
+        return with(parameter, values[parameter] + gaussian * stepSize * range);
+    }
+
+    // Loads parameters from a properties file, any missing keys keep their default value
+    public static StrategyParameters load(String path) throws IOException {
+        Properties properties = new Properties();
+
+        try (Reader reader = new FileReader(path)) {
+            properties.load(reader);
+        }
+
+        double[] values = DEFAULTS.clone();
+
+        for (int i = 0; i < NAMES.length; i++) {
+            String value = properties.getProperty(NAMES[i]);
+
+            if (value != null) {
+                values[i] = Double.parseDouble(value);
+            }
+        }
+
+        return new StrategyParameters(values);
+    }
+
+    // Same as load(), but falls back to the defaults if the file doesn't exist or can't be read
+    public static StrategyParameters loadOrDefault(String path) {
+        try {
+            return load(path);
+        }
+
+        catch (IOException | NumberFormatException ex) {
+            return DEFAULT;
+        }
+    }
+
+    // Saves the parameters to a properties file that load() can read back
+    public void save(String path, String comment) throws IOException {
+        Properties properties = new Properties();
+
+        for (int i = 0; i < NAMES.length; i++) {
+            properties.setProperty(NAMES[i], Double.toString(values[i]));
+        }
+
+        try (Writer writer = new FileWriter(path)) {
+            properties.store(writer, comment);
+        }
+    }
+
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < NAMES.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(NAMES[i]).append('=').append(String.format("%.3f", values[i]));
+        }
+
+        return builder.toString();
+    }
+
+    public boolean equals(Object other) {
+        return other instanceof StrategyParameters && Arrays.equals(values, ((StrategyParameters) other).values);
+    }
+
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+}
@@ -0,0 +1,443 @@
+/* The StrengthDistribution class is a cumulative distribution of hand strengths, so the fraction of hands a strength
+beats is a binary search instead of a guess from its category
+sevenCard() counts the best hand of every one of the 133,784,560 seven card hands, and forBoard() counts every two
+card holding that could go with one full board, which is the exact chance of beating a random hand on that board
+sevenCard(numDecks) does the same for a shoe of several decks, where each distinct hand is counted once and weighted by
+the number of ways its copies can be drawn (the same hand from one deck has just one)
+shortDeck() counts the 8,347,680 seven card hands of a 36 card short deck, ranked by ShortDeckEvaluator
+
+Both are stored as the sorted distinct strengths and, for each, how many hands are weaker than it, so a lookup never
+touches more than a few dozen ints */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+
+public final class StrengthDistribution {
+    // Cards in a full Texas Hold 'em hand and on a full board
+    private static final int HAND_CARDS = Constants.TOTAL_CARDS;
+    private static final int BOARD_CARDS = Constants.TOTAL_CARDS - 2;
+
+    /* Computed by sevenCard() the first time each number of decks is needed. Every new street looks one up, so it's
+    read without a lock, and only threads waiting on the same count block while it's computed */
+    private static final Map<Integer, StrengthDistribution> SEVEN_CARD = new ConcurrentHashMap<>();
+
+    // Sorted distinct strengths, and the number of hands weaker than each (with the total at the end)
+    private final int[] strengths;
+    private final long[] weaker;
+
+    // Private constructor, use sevenCard() or forBoard() instead
+    private StrengthDistribution(int[] strengths, long[] weaker) {
+        this.strengths = strengths;
+        this.weaker = weaker;
+    }
+
+    /* Returns the distribution over all C(52, 7) seven card hands, computed once and shared afterwards
+    Every hand is evaluated once, split across the common ForkJoinPool by its lowest card (a few seconds on one core) */
+    public static StrengthDistribution sevenCard() {
+        return sevenCard(1);
+    }
+
+    /* Returns the distribution over all seven card hands dealt from numDecks decks, computed once per number of decks
+    With more than one deck, hands holding copies of a card are counted too (this takes a few times longer) */
+    public static StrengthDistribution sevenCard(int numDecks) {
+        StrengthDistribution distribution = SEVEN_CARD.get(numDecks);
+
+        if (distribution == null) {
+            distribution = SEVEN_CARD.computeIfAbsent(numDecks, decks -> countSevenCardHands(decks, false));
+        }
+
+        return distribution;
+    }
+
+    /* Returns the distribution over all C(36, 7) short deck hands, ranked the short deck way, computed once and
+    shared afterwards. That's 16 times fewer hands than sevenCard(), each one a table lookup, so it's quick to count */
+    public static StrengthDistribution shortDeck() {
+        return ShortDeck.DISTRIBUTION;
+    }
+
+    /* Returns the distribution of every two card holding on a full board
+
+    Parameter board: the five community cards, as HandEvaluator card indices
+    Parameter dead: one bit per card index nobody else can hold (e.g. the player's own hole cards) */
+    public static StrengthDistribution forBoard(int[] board, long dead) {
+        long used = dead;
+        int[] cards = new int[HAND_CARDS];
+
+        for (int i = 0; i < BOARD_CARDS; i++) {
+            cards[i] = board[i];
+            used |= 1L << board[i];
+        }
+
+        // At most C(47, 2) holdings are left once the board is out
+        int numLeft = HandEvaluator.NUM_CARDS - BOARD_CARDS;
+        int[] holdings = new int[numLeft * (numLeft - 1) / 2];
+        int numHoldings = 0;
+
+        for (int first = 0; first < HandEvaluator.NUM_CARDS; first++) {
+            if ((used & 1L << first) != 0) {
+                continue;
+            }
+
+            cards[BOARD_CARDS] = first;
+
+            for (int second = first + 1; second < HandEvaluator.NUM_CARDS; second++) {
+                if ((used & 1L << second) == 0) {
+                    cards[BOARD_CARDS + 1] = second;
+                    holdings[numHoldings++] = HandEvaluator.evaluate(cards, HAND_CARDS);
+                }
+            }
+        }
+
+        Arrays.sort(holdings, 0, numHoldings);
+
+        // Collapse the sorted strengths into distinct values, each with the count of strengths before it
+        int[] strengths = new int[numHoldings];
+        long[] weaker = new long[numHoldings + 1];
+        int numDistinct = 0;
+
+        for (int i = 0; i < numHoldings; i++) {
+            if (i == 0 || holdings[i] != holdings[i - 1]) {
+                strengths[numDistinct] = holdings[i];
+                weaker[numDistinct++] = i;
+            }
+        }
+
+        weaker[numDistinct] = numHoldings;
+
+        return new StrengthDistribution(Arrays.copyOf(strengths, numDistinct), Arrays.copyOf(weaker,
+                numDistinct + 1));
+    }
+
+    /* Returns the same as forBoard(board, hole cards).percentile(hand's strength) without building the distribution,
+    for callers that only have one strength to look up on a board: one pass over the holdings, nothing allocated
+
+    Parameter hand: the two hole cards followed by the five community cards, like Hand.getHand() */
+    public static double percentileOnBoard(int[] hand) {
+        int strength = HandEvaluator.evaluate(hand, HAND_CARDS);
+        int first = hand[0];
+        int second = hand[1];
+        long used = 0;
+
+        for (int i = 0; i < HAND_CARDS; i++) {
+            used |= 1L << hand[i];
+        }
+
+        // Half points, so a tie counts as half a win without floating point in the loop
+        int halfWins = 0;
+        int numHoldings = 0;
+
+        for (int x = 0; x < HandEvaluator.NUM_CARDS; x++) {
+            if ((used & 1L << x) != 0) {
+                continue;
+            }
+
+            hand[0] = x;
+
+            for (int y = x + 1; y < HandEvaluator.NUM_CARDS; y++) {
+                if ((used & 1L << y) != 0) {
+                    continue;
+                }
+
+                hand[1] = y;
+                int other = HandEvaluator.evaluate(hand, HAND_CARDS);
+
+                halfWins += other < strength ? 2 : other == strength ? 1 : 0;
+                numHoldings++;
+            }
+        }
+
+        hand[0] = first;
+        hand[1] = second;
+
+        return halfWins / (2.0 * numHoldings);
+    }
+
+    // Getter methods
+    // Number of hands counted
+    public long size() {
+        return weaker[strengths.length];
+    }
+
+    /* Returns the fraction of hands (0-1) a strength beats, counting hands it ties as half
+    For a forBoard() distribution, that's the chance of beating one random holding on that board */
+    public double percentile(int strength) {
+        int i = Arrays.binarySearch(strengths, strength);
+
+        // Not one of the strengths counted: everything below its insertion point is weaker, and nothing ties
+        if (i < 0) {
+            return (double) weaker[-i - 1] / size();
+        }
+
+        return (weaker[i] + (weaker[i + 1] - weaker[i]) / 2.0) / size();
+    }
+
+    // Private helper methods!
+    // Counts every seven card hand by strength, one task per lowest card
+    private static StrengthDistribution countSevenCardHands(int numDecks, boolean isShortDeck) {
+        List<Future<long[]>> futures = new ArrayList<>();
+        int[] distinct = fiveCardStrengths(numDecks, isShortDeck);
+
+        /* indices[strength] = where strength is in distinct, a direct lookup instead of a binary search per hand
+        (strengths are under 10 * 2^20, so this is a temporary table of under 21 MB) */
+        char[] indices = new char[distinct[distinct.length - 1] + 1];
+
+        for (int i = 0; i < distinct.length; i++) {
+            indices[distinct[i]] = (char) i;
+        }
+
+        // With copies to draw from, a hand's lowest card can be any card at all
+        int numLowest = numDecks == 1 ? HandEvaluator.NUM_CARDS - HAND_CARDS + 1 : HandEvaluator.NUM_CARDS;
+
+        for (int lowest = lowestCard(isShortDeck); lowest < numLowest; lowest++) {
+            int first = lowest;
+
+            if (isShortDeck) {
+                futures.add(ForkJoinPool.commonPool().submit(() -> countShortDeckFrom(first, indices,
+                        distinct.length)));
+            }
+
+            else {
+                futures.add(ForkJoinPool.commonPool().submit(() -> numDecks == 1 ? countFrom(first, indices,
+                        distinct.length) : countWithCopiesFrom(first, indices, distinct.length, numDecks)));
+            }
+        }
+
+        long[] weaker = new long[distinct.length + 1];
+
+        try {
+            for (Future<long[]> future : futures) {
+                long[] counts = future.get();
+
+                for (int i = 0; i < distinct.length; i++) {
+                    weaker[i + 1] += counts[i];
+                }
+            }
+        }
+
+        catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Counting seven card hands failed", e);
+        }
+
+        // Running total, so weaker[i] = hands below distinct[i]
+        for (int i = 1; i < weaker.length; i++) {
+            weaker[i] += weaker[i - 1];
+        }
+
+        return new StrengthDistribution(distinct, weaker);
+    }
+
+    /* Every strength a five card hand can have, sorted. The best five of seven cards is always one of them
+    With more than one deck, a card may repeat up to numDecks times, which adds five of a kind and paired flushes
+    In short deck, they're ShortDeckEvaluator's strengths of the hands without 2s through 5s */
+    private static int[] fiveCardStrengths(int numDecks, boolean isShortDeck) {
+        boolean[] isStrength = new boolean[HandEvaluator.NUM_STRENGTHS];
+        int[] cards = new int[Constants.HAND_SIZE];
+        int[] next = new int[Constants.HAND_SIZE];
+        int depth = 0;
+
+        next[0] = lowestCard(isShortDeck);
+
+        // Cards in order, lowest first, with next[d] the next card to try at depth d like countFrom()
+        while (depth >= 0) {
+            int card = next[depth];
+
+            if (card >= HandEvaluator.NUM_CARDS) {
+                depth--;
+                continue;
+            }
+
+            next[depth] = card + 1;
+            cards[depth] = card;
+
+            if (depth + 1 < Constants.HAND_SIZE) {
+                depth++;
+                next[depth] = copiesAtEnd(cards, depth) < numDecks ? card : card + 1;
+                continue;
+            }
+
+            isStrength[isShortDeck ? ShortDeckEvaluator.evaluate(cards, Constants.HAND_SIZE)
+                    : HandEvaluator.evaluate(cards, Constants.HAND_SIZE)] = true;
+        }
+
+        int[] strengths = new int[isStrength.length];
+        int n = 0;
+
+        for (int strength = 0; strength < isStrength.length; strength++) {
+            if (isStrength[strength]) {
+                strengths[n++] = strength;
+            }
+        }
+
+        return Arrays.copyOf(strengths, n);
+    }
+
+    /* Counts the hands whose lowest card is first, by their index among the distinct strengths
+    The rank masks are carried along one card at a time so each hand only adds its last card */
+    private static long[] countFrom(int first, char[] indices, int numDistinct) {
+        long[] counts = new long[numDistinct];
+        int[] one = new int[HAND_CARDS + 1];
+        int[] two = new int[HAND_CARDS + 1];
+        int[] three = new int[HAND_CARDS + 1];
+        int[] four = new int[HAND_CARDS + 1];
+        long[] suits = new long[HAND_CARDS + 1];
+        int[] next = new int[HAND_CARDS];
+
+        add(0, first, one, two, three, four, suits);
+        next[1] = first + 1;
+        int depth = 1;
+
+        // An explicit stack of cards instead of seven nested loops: next[d] is the next card to try at depth d
+        while (depth > 0) {
+            int card = next[depth];
+
+            if (card > HandEvaluator.NUM_CARDS - HAND_CARDS + depth) {
+                depth--;
+                continue;
+            }
+
+            next[depth] = card + 1;
+            add(depth, card, one, two, three, four, suits);
+
+            if (depth + 1 < HAND_CARDS) {
+                depth++;
+                next[depth] = card + 1;
+                continue;
+            }
+
+            int strength = HandEvaluator.evaluate(one[HAND_CARDS], two[HAND_CARDS], three[HAND_CARDS],
+                    four[HAND_CARDS], suits[HAND_CARDS]);
+
+            counts[indices[strength]]++;
+        }
+
+        return counts;
+    }
+
+    /* countFrom() for a shoe of numDecks decks: every distinct hand whose lowest card is first, where a card can
+    repeat while there are copies of it left, counted as many times as its copies can be drawn from the shoe
+    Hands with copies take HandEvaluator's slower path, so this evaluates the whole hand each time */
+    private static long[] countWithCopiesFrom(int first, char[] indices, int numDistinct, int numDecks) {
+        long[] counts = new long[numDistinct];
+        int[] cards = new int[HAND_CARDS];
+        int[] next = new int[HAND_CARDS];
+
+        cards[0] = first;
+        next[1] = numDecks > 1 ? first : first + 1;
+        int depth = 1;
+
+        while (depth > 0) {
+            int card = next[depth];
+
+            if (card >= HandEvaluator.NUM_CARDS) {
+                depth--;
+                continue;
+            }
+
+            next[depth] = card + 1;
+            cards[depth] = card;
+
+            if (depth + 1 < HAND_CARDS) {
+                depth++;
+                next[depth] = copiesAtEnd(cards, depth) < numDecks ? card : card + 1;
+                continue;
+            }
+
+            // The ways to draw it: C(numDecks, copies) for each card, the cards being in order
+            long ways = 1;
+
+            for (int start = 0, end = 1; end <= HAND_CARDS; end++) {
+                if (end == HAND_CARDS || cards[end] != cards[start]) {
+                    ways *= choose(numDecks, end - start);
+                    start = end;
+                }
+            }
+
+            counts[indices[HandEvaluator.evaluate(cards, HAND_CARDS)]] += ways;
+        }
+
+        return counts;
+    }
+
+    /* countFrom() for a short deck, whose cards start at the 6s
+    Each hand is one ShortDeckEvaluator lookup, so there are no masks to carry along */
+    private static long[] countShortDeckFrom(int first, char[] indices, int numDistinct) {
+        long[] counts = new long[numDistinct];
+        int[] cards = new int[HAND_CARDS];
+        int[] next = new int[HAND_CARDS];
+
+        cards[0] = first;
+        next[1] = first + 1;
+        int depth = 1;
+
+        while (depth > 0) {
+            int card = next[depth];
+
+            if (card > HandEvaluator.NUM_CARDS - HAND_CARDS + depth) {
+                depth--;
+                continue;
+            }
+
+            next[depth] = card + 1;
+            cards[depth] = card;
+
+            if (depth + 1 < HAND_CARDS) {
+                depth++;
+                next[depth] = card + 1;
+                continue;
+            }
+
+            counts[indices[ShortDeckEvaluator.evaluate(cards, HAND_CARDS)]]++;
+        }
+
+        return counts;
+    }
+
+    // The lowest card index in the deck: the 2 of Clubs, or the 6 of Clubs in short deck
+    private static int lowestCard(boolean isShortDeck) {
+        return isShortDeck ? HandEvaluator.index(GameVariant.SHORT_DECK.getLowestRank(), Constants.CLUBS) : 0;
+    }
+
+    // How many of the first numCards cards (in order) are copies of the last of them
+    private static int copiesAtEnd(int[] cards, int numCards) {
+        int copies = 1;
+
+        while (copies < numCards && cards[numCards - 1 - copies] == cards[numCards - 1]) {
+            copies++;
+        }
+
+        return copies;
+    }
+
+    // n choose k, for the small numbers of copies in a hand
+    private static long choose(int n, int k) {
+        long ways = 1;
+
+        for (int i = 0; i < k; i++) {
+            ways = ways * (n - i) / (i + 1);
+        }
+
+        return ways;
+    }
+
+    // Sets the masks after depth + 1 cards, from the masks after depth cards plus one more card
+    private static void add(int depth, int card, int[] one, int[] two, int[] three, int[] four, long[] suits) {
+        int bit = 1 << (card >> 2);
+
+        one[depth + 1] = one[depth] | bit;
+        two[depth + 1] = two[depth] | one[depth] & bit;
+        three[depth + 1] = three[depth] | two[depth] & bit;
+        four[depth + 1] = four[depth] | three[depth] & bit;
+        suits[depth + 1] = suits[depth] | (long) bit << ((card & 3) << 4);
+    }
+
+    // Holds shortDeck()'s distribution, counted by the JVM the first time it's asked for, with no lock to read it
+    private static final class ShortDeck {
+        private static final StrengthDistribution DISTRIBUTION = countSevenCardHands(1, true);
+    }
+}
@@ -0,0 +1,502 @@
+/* The Table class runs a single round of Texas Hold 'em (or another GameVariant) one decision at a time
+Game drives it straight through with the human at the table, while the headless Simulator advances many Tables
+side by side and collects their pending AI decisions into batches before handing them to each Strategy */
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+
+public class Table {
+    // Street value before any community cards are dealt
+    private static final int PRE_FLOP = -1;
+
+    private final ArrayList<Player> players;
+    private final int totalPlayers;
+
+    // Blinds and the rest of the table's settings
+    private final TableConfig config;
+
+    // Index of the player who bets first, changes each round
+    private final int firstPlayer;
+
+    // Only used so the human's scanner is cleared correctly after the first round
+    private final int round;
+
+    private final Deck deck;
+
+    /* Every random number of the hand comes from here, the Deck's shuffle and (through seatRandoms) the AI's bluffs
+    Each Table has its own, so tables played side by side never share (or contend on) one */
+    private final long seed;
+    private final SplittableRandom random;
+
+    /* Each seat rolls its moves from its own stream split off the table's, so one player's extra roll doesn't shift
+    anyone else's. Replaying a seed with different players in a seat (duplicate poker) keeps the other seats' rolls */
+    private final SplittableRandom[] seatRandoms;
+
+    // Community cards = cards anyone can use
+    private final ArrayList<Card> community;
+
+    // Refilled by getOpponents() before every move instead of building a new list each time
+    private final ArrayList<Player> opponents;
+
+    /* Whose turn it is, what each seat has bet, and when betting is over (seat i = players.get(i))
+    The Players mirror their own chips so they can print their moves and settle the showdown */
+    private final BettingRound betting;
+
+    /* Tournament tables only (null otherwise): the field's payouts shrunk to this table, and everyone's chips as
+    getRiskPremium() hands them to IcmCalculator, both made once per hand instead of on every decision */
+    private final double[] tablePayouts;
+    private final long[] chips;
+
+    // The total bet the pending player has to match, in the same terms as Player.getBet()
+    private int callCost;
+
+    // PRE_FLOP, then the index of the latest Constants.COMMUNITY_CARDS entry dealt
+    private int street;
+
+    // Whether anyone has raised on the current street, used to stream fold-to-raise stats
+    private boolean isRaised;
+
+    // The player whose move is pending (null if none) and whether they're allowed to raise
+    private Player actor;
+    private boolean canRaise;
+
+    // Set once the pot has been handed out
+    private boolean isOver;
+    private ArrayList<Player> winners;
+
+    // Community cards out when two players were all in with cards still to come, -1 if that didn't happen
+    private int allInBoardSize = -1;
+
+    /* Constructor, shuffles a fresh deck and deals every player their opening hand
+
+    Parameter players: a list of players still remaining in the game, if there's a human they're player[-1]
+    Parameter firstPlayer: index of the player who should bet first this time, changes each round
+    Parameter round: the round number, starting at 1
+    Parameter config: the table's blinds and stakes
+    Parameter seed: seeds every random number of the hand (the shuffle and the AI's rolls), so a hand played again
+    from the same seed and the same players' state plays out exactly the same */
+    public Table(ArrayList<Player> players, int firstPlayer, int round, TableConfig config, long seed) {
+        this.players = players;
+        this.firstPlayer = firstPlayer;
+        this.round = round;
+        this.config = config;
+        this.seed = seed;
+
+        random = new SplittableRandom(seed);
+
+        totalPlayers = players.size();
+        betting = new BettingRound(totalPlayers, config.getVariant().isPotLimit());
+
+        if (config.isTournament()) {
+            tablePayouts = IcmCalculator.tablePayouts(config.getPayouts(), config.getFieldSize(), totalPlayers);
+            chips = new long[totalPlayers];
+        }
+
+        else {
+            tablePayouts = null;
+            chips = null;
+        }
+
+        street = PRE_FLOP;
+        isOver = false;
+
+        /* Initialize a new deck to not run out of cards
+        Beat the card counters with instant shuffling */
+        deck = new Deck(config.getVariant().getNumDecks(), config.getVariant().getLowestRank());
+        deck.shuffle(random);
+
+        seatRandoms = new SplittableRandom[totalPlayers];
+
+        for (int seat = 0; seat < totalPlayers; seat++) {
+            seatRandoms[seat] = random.split();
+        }
+
+        community = new ArrayList<>();
+        opponents = new ArrayList<>(totalPlayers);
+
+        // Add "..." at the end to make it seem like dealing cards takes time
+        Constants.typeText("Dealing cards...\n");
+
+        // Reset a player's hand, folding status, etc. each round (everything except bankroll)
+        int numHoleCards = config.getVariant().getNumHoleCards();
+
+        for (Player player : players) {
+            player.reset();
+            player.setVariant(config.getVariant());
+
+            // Each player starts with two unique cards (four in Omaha)
+            for (int j = 0; j < numHoleCards; j++) {
+                player.addCard(deck.deal());
+            }
+        }
+
+        /* Real player = last entry in list --> "your hand" is at index totalPlayers - 1
+        Use getHand() instead of getOpeningHand() because it's simpler to use in this context */
+        if (players.get(totalPlayers - 1).isHuman()) {
+            Constants.typeText("Your starting hand is " + players.get(totalPlayers - 1).getHand() + "\n");
+        }
+
+        postBlinds();
+    }
+
+    // Getter methods
+    public TableConfig getConfig() {
+        return config;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getPot() {
+        return betting.getPot();
+    }
+
+    // Chips a seat has put in over the whole hand
+    public int getHandBet(int seat) {
+        return betting.getHandBet(seat);
+    }
+
+    public boolean isOver() {
+        return isOver;
+    }
+
+    /* How many community cards were out when the hand came down to two players with no betting left but cards still
+    to deal, -1 if it didn't. The Simulator uses it to take the luck of the run-out out of its results */
+    public int getAllInBoardSize() {
+        return allInBoardSize;
+    }
+
+    // The main pot winner(s), null until the round is over
+    public ArrayList<Player> getWinners() {
+        return winners;
+    }
+
+    // Plays the whole round straight through, asking each Player (human or AI) for their move as it comes up
+    public ArrayList<Player> playRound() {
+        while (nextActor() != null) {
+            playTurn();
+        }
+
+        return winners;
+    }
+
+    /* Returns the next player who has to make a move, or null once the round has been settled
+    Everything in between (blinds, dealing streets, skipping folded players, the showdown) happens here
+    Calling it again before the pending move is made just returns the same player */
+    public Player nextActor() {
+        while (actor == null && !isOver) {
+            // If there's one player left or everyone has matched the bet, move onto the next street
+            if (betting.isStreetOver()) {
+                nextStreet();
+                continue;
+            }
+
+            actor = players.get(betting.getActor());
+            canRaise = betting.canRaise();
+
+            // The player's bet over the whole hand plus whatever they owe on this street
+            callCost = actor.getBet() + betting.getToCall();
+        }
+
+        return actor;
+    }
+
+    // Snapshot of the pending AI decision, which the Simulator batches up with other Tables' decisions
+    public DecisionContext getContext() {
+        return actor.getContext(callCost, canRaise, betting.getPot(), getOpponents(), config.getBigBlind(),
+                getRiskPremium(), seatRandoms[betting.getActor()]);
+    }
+
+    // Makes the pending move by asking the player directly (the human is prompted, the AI asks its Strategy)
+    public void playTurn() {
+        // Pot increase = updated calCost - initial bet, but since bet might change create a new variable
+        int initBet = actor.getBet();
+        int initCallCost = callCost;
+
+        int minRaise = betting.getMinRaise();
+        int maxRaise = getMaxRaise();
+
+        if (street == PRE_FLOP) {
+            callCost = actor.anteUp(callCost, canRaise, minRaise, maxRaise, round > 1, betting.getPot(),
+                    getOpponents(), config.getBigBlind(), getRiskPremium(), seatRandoms[betting.getActor()]);
+        }
+
+        else {
+            callCost = actor.play(callCost, canRaise, minRaise, maxRaise, betting.getPot(), getOpponents(),
+                    config.getBigBlind(), getRiskPremium(), seatRandoms[betting.getActor()]);
+        }
+
+        endTurn(initBet, initCallCost);
+    }
+
+    // Makes the pending move with a decision that was already picked (e.g. by a batched Strategy)
+    public void act(Decision decision) {
+        int initBet = actor.getBet();
+        int initCallCost = callCost;
+
+        callCost = actor.act(decision, callCost, canRaise, betting.getMinRaise(), getMaxRaise());
+        endTurn(initBet, initCallCost);
+    }
+
+    // Private helper methods!
+    // Starts the BettingRound with everyone's bankroll, then takes the blinds it posted from the players
+    private void postBlinds() {
+        int[] stacks = new int[totalPlayers];
+
+        for (int seat = 0; seat < totalPlayers; seat++) {
+            stacks[seat] = players.get(seat).getBankroll();
+        }
+
+        // Add firstPlayer so the starting player changes each round (skip building the messages if nobody's watching)
+        for (int i = 0; i < totalPlayers && !Constants.isSilent; i++) {
+            Player player = players.get((i + firstPlayer) % totalPlayers);
+
+            Constants.typeText(player.getName() + " has entered the round with a bankroll of $"
+                    + player.getBankroll() + "\n");
+        }
+
+        int smallBlindSeat = firstPlayer % totalPlayers;
+        int bigBlindSeat = (firstPlayer + 1) % totalPlayers;
+
+        betting.startHand(stacks, totalPlayers, smallBlindSeat, config.getSmallBlind(), config.getBigBlind());
+
+        if (!Constants.isSilent) {
+            Constants.typeText(players.get(smallBlindSeat).getName() + " is small blind and antes "
+                    + betting.getHandBet(smallBlindSeat) + " chips\n");
+            Constants.typeText(players.get(bigBlindSeat).getName() + " is big blind and antes "
+                    + betting.getHandBet(bigBlindSeat) + " chips\n");
+        }
+
+        players.get(smallBlindSeat).subFromBankroll(betting.getHandBet(smallBlindSeat));
+        players.get(bigBlindSeat).subFromBankroll(betting.getHandBet(bigBlindSeat));
+    }
+
+    /* Returns the most the pending player may raise by at a pot-limit table, Integer.MAX_VALUE otherwise
+    (no-limit raises are only limited by the player's own chips, which Player already checks) */
+    private int getMaxRaise() {
+        if (!config.getVariant().isPotLimit()) {
+            return Integer.MAX_VALUE;
+        }
+
+        return betting.getMaxRaiseTo() - betting.getCurrentBet();
+    }
+
+    // Returns the players the pending player is up against, i.e. everyone else who hasn't folded
+    private ArrayList<Player> getOpponents() {
+        opponents.clear();
+
+        for (Player player : players) {
+            if (player != actor && !player.hasFolded()) {
+                opponents.add(player);
+            }
+        }
+
+        return opponents;
+    }
+
+    /* Returns how much more often than the pot odds say the pending player has to win to call, 0 outside tournaments
+    The table is run through ICM on its own (see IcmCalculator.tablePayouts()), with the biggest stack still in the
+    hand as the one who'd take the pot, which keeps it to about 50 microseconds a decision even at a full table */
+    private double getRiskPremium() {
+        if (!config.isTournament() || betting.getToCall() == 0) {
+            return 0;
+        }
+
+        int seat = betting.getActor();
+        int opponent = BettingRound.NONE;
+
+        for (int other = 0; other < totalPlayers; other++) {
+            chips[other] = betting.getStack(other);
+
+            if (other != seat && !betting.hasFolded(other)
+                    && (opponent == BettingRound.NONE || chips[other] > chips[opponent])) {
+                opponent = other;
+            }
+        }
+
+        return IcmCalculator.riskPremium(chips, tablePayouts, seat, opponent, betting.getToCall(), betting.getPot());
+    }
+
+    // Updates the round's bookkeeping after the pending player has moved, and streams the move into their stats
+    private void endTurn(int initBet, int initCallCost) {
+        Decision.Action action;
+
+        if (actor.hasFolded()) {
+            action = Decision.Action.FOLD;
+        }
+
+        else {
+            action = callCost > initCallCost ? Decision.Action.RAISE : Decision.Action.CALL;
+        }
+
+        actor.getStats().record(action, street == PRE_FLOP, actor.getBet() - initBet,
+                isRaised && initCallCost > initBet);
+
+        // Carry the move over to the BettingRound, which decides who's next
+        if (action == Decision.Action.FOLD) {
+            betting.fold();
+        }
+
+        else if (action == Decision.Action.RAISE) {
+            isRaised = true;
+            betting.raiseTo(betting.getCurrentBet() + callCost - initCallCost);
+        }
+
+        else {
+            betting.call();
+        }
+
+        actor = null;
+    }
+
+    // Turn order: burn cards, deal cards, players place bets. Goes to the showdown after the last street
+    private void nextStreet() {
+        // If there's one player left or every card has been dealt, end round
+        if (betting.getNumInHand() == 1 || street == Constants.COMMUNITY_CARDS.length - 1) {
+            showdown();
+            return;
+        }
+
+        if (allInBoardSize < 0 && betting.getNumInHand() == 2 && getNumCanBet() < 2) {
+            allInBoardSize = community.size();
+        }
+
+        street++;
+        isRaised = false;
+        int numCards = Constants.COMMUNITY_CARDS[street];
+
+        // Extra newline to separate every turn
+        Constants.typeText("\nTime to reveal new cards!\n");
+
+        // Burn one card each turn (standard)
+        Constants.typeText("Burning one card...\n");
+        Constants.typeText("Now, adding " + numCards + " new card(s) to the community...\n");
+
+        deck.burn(numCards);
+
+        // Deal out community cards
+        for (int i = 0; i < numCards; i++) {
+            Card newCard = deck.deal();
+            community.add(newCard);
+
+            // Scoring is easier when the hand and community cards are all in one place
+            for (Player player : players) {
+                player.addCard(newCard);
+            }
+        }
+
+        // Score every holding on the river once here, instead of once for each AI deciding on it
+        if (street == Constants.COMMUNITY_CARDS.length - 1 && getNumCanBet() >= 2
+                && config.getVariant().getNumHoleCards() == 2 && config.getVariant().getNumDecks() == 1) {
+            shareRiverBoard();
+        }
+
+        // Shows the user what the new community cards are
+        if (!Constants.isSilent) {
+            Constants.typeText("The community is now comprised of: " + community + "\n");
+        }
+
+        // The small blind acts first after the flop, except heads-up where the small blind has the button
+        betting.nextStreet((firstPlayer + (totalPlayers == 2 ? 1 : 0)) % totalPlayers);
+    }
+
+    // Scores the full board's holdings (see RiverBoard) and hands them to everyone still in the hand
+    private void shareRiverBoard() {
+        int[] board = new int[community.size()];
+
+        for (int i = 0; i < board.length; i++) {
+            board[i] = community.get(i).getIndex();
+        }
+
+        RiverBoard riverBoard = new RiverBoard(board, config.getVariant());
+
+        for (Player player : players) {
+            if (!player.hasFolded()) {
+                player.setRiverBoard(riverBoard);
+            }
+        }
+    }
+
+    // Players still in the hand with chips left to bet
+    private int getNumCanBet() {
+        int numCanBet = 0;
+
+        for (int seat = 0; seat < totalPlayers; seat++) {
+            if (!betting.hasFolded(seat) && betting.getStack(seat) > 0) {
+                numCanBet++;
+            }
+        }
+
+        return numCanBet;
+    }
+
+    // Shows every hand and hands out the pot
+    private void showdown() {
+        // Extra newline to separate betting from a display of each player's hand + winner
+        Constants.typeText("\nBetting has concluded. Everyone must now show their hands!\n");
+
+        int[] handBets = new int[totalPlayers];
+        boolean[] folded = new boolean[totalPlayers];
+        int[] strengths = new int[totalPlayers];
+
+        // Score every hand still in exactly once
+        for (int seat = 0; seat < totalPlayers; seat++) {
+            Player player = players.get(seat);
+
+            if (!Constants.isSilent) {
+                Constants.typeText(player.toString() + "\n");
+            }
+
+            handBets[seat] = betting.getHandBet(seat);
+            folded[seat] = betting.hasFolded(seat);
+
+            if (!folded[seat]) {
+                strengths[seat] = player.getStrength();
+            }
+        }
+
+        // The first seat to the left of the button, the big blind heads-up since the small blind has the button
+        int firstSeat = totalPlayers == 2 ? (firstPlayer + 1) % totalPlayers : firstPlayer;
+
+        ShowdownResolver resolver = new ShowdownResolver(totalPlayers);
+        resolver.resolve(handBets, folded, strengths, totalPlayers, firstSeat);
+
+        winners = new ArrayList<>();
+
+        for (int seat = 0; seat < totalPlayers; seat++) {
+            Player player = players.get(seat);
+
+            if (resolver.getSidePotWinnings(seat) > 0 && !Constants.isSilent) {
+                // Display a message for players that won a side pot
+                Constants.typeText(player.getName() + " wins $" + resolver.getSidePotWinnings(seat)
+                        + " in a side pot!\n");
+            }
+
+            player.addToBankroll(resolver.getWinnings(seat));
+
+            if (resolver.isMainPotWinner(seat)) {
+                winners.add(player);
+            }
+        }
+
+        if (!Constants.isSilent) {
+            Constants.typeText("The main pot winner(s) of this round are: " +
+                    playersListToString(new ArrayList<>(winners)) + "!\n");
+        }
+
+        isOver = true;
+    }
+
+    /* Returns the winners of a round in a more "readable" format:
+    "Name 1", "Name 2", "Name 3" or simply "Name 1" if size() == 1 */
+    private static String playersListToString(ArrayList<Player> players) {
+        if (players.size() == 1) {
+            return players.get(0).getName();
+        }
+
+        // Recur for every player, adding a comma between each
+        // It's ok to remove players because the list argument is always a copy
+        return players.remove(0).getName() + ", " + playersListToString(players);
+    }
+}
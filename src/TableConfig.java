@@ -0,0 +1,219 @@
+/* The TableConfig class holds the settings of one table: how many seats it has, the blinds, the bankrolls players
+start with, and which game they play (see GameVariant). Game, Table, and the Simulator read them at runtime, so
+stakes and table sizes can change without recompiling, and one Simulator can run heads-up, 6-max, and full ring
+tables side by side
+
+The defaults are the values the game has always used (Constants.NUM_OPPONENTS + 1 seats, Constants.SMALL_BLIND, etc.)
+Settings can come from a properties file or from "key=value" command line arguments, e.g. "seats=6 bigBlind=10" */
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Properties;
+
+
+public final class TableConfig {
+    // Poker tables seat at most ten players
+    public static final int MIN_SEATS = 2;
+    public static final int MAX_SEATS = 10;
+
+    // Keys used in properties files and command line arguments, "config" points at a properties file to start from
+    private static final String SEATS = "seats";
+    private static final String SMALL_BLIND = "smallBlind";
+    private static final String BIG_BLIND = "bigBlind";
+    private static final String STARTING_BANK = "startingBank";
+    private static final String MIN_OPP_BANKROLL = "minOpponentBankroll";
+    private static final String MAX_OPP_BANKROLL = "maxOpponentBankroll";
+    private static final String VARIANT = "variant";
+    private static final String CONFIG = "config";
+
+    public static final TableConfig DEFAULT = new TableConfig(Constants.NUM_OPPONENTS + 1, Constants.SMALL_BLIND,
+            Constants.BIG_BLIND, Constants.PLAYER_STARTING_BANK, Constants.MIN_OPP_BANKROLL,
+            Constants.MAX_OPP_BANKROLL);
+
+    private final int numSeats;
+    private final int smallBlind;
+    private final int bigBlind;
+    private final int startingBank;
+    private final int minOppBankroll;
+    private final int maxOppBankroll;
+
+    // Tournament tables only: the prizes still to be paid (index 0 = first place) and how many players are left
+    private final double[] payouts;
+    private final int fieldSize;
+
+    // Which game the table plays, Texas Hold 'em unless the config says otherwise
+    private final GameVariant variant;
+
+    /* Constructor, throws an IllegalArgumentException if the settings don't make a playable table
+
+    Parameter startingBank: what the human (and every Simulator seat) buys in with
+    Parameter minOppBankroll, maxOppBankroll: the bankrolls of the "Lil'" and "Big" AI players in Game */
+    public TableConfig(int numSeats, int smallBlind, int bigBlind, int startingBank, int minOppBankroll,
+                       int maxOppBankroll) {
+        this(numSeats, smallBlind, bigBlind, startingBank, minOppBankroll, maxOppBankroll, null, 0,
+                GameVariant.HOLDEM);
+    }
+
+    // Constructor, with payouts == null for cash games
+    private TableConfig(int numSeats, int smallBlind, int bigBlind, int startingBank, int minOppBankroll,
+                        int maxOppBankroll, double[] payouts, int fieldSize, GameVariant variant) {
+        if (numSeats < MIN_SEATS || numSeats > MAX_SEATS) {
+            throw new IllegalArgumentException("Tables need " + MIN_SEATS + " to " + MAX_SEATS + " seats, not "
+                    + numSeats);
+        }
+
+        if (smallBlind < 0 || bigBlind <= 0 || smallBlind > bigBlind) {
+            throw new IllegalArgumentException("Blinds must be positive with the small blind at most the big blind");
+        }
+
+        // Bankrolls may be smaller than the blinds (e.g. late in a tournament), short players just post what they have
+        if (startingBank <= 0 || minOppBankroll <= 0 || maxOppBankroll <= 0) {
+            throw new IllegalArgumentException("Every bankroll must be positive");
+        }
+
+        this.numSeats = numSeats;
+        this.smallBlind = smallBlind;
+        this.bigBlind = bigBlind;
+        this.startingBank = startingBank;
+        this.minOppBankroll = minOppBankroll;
+        this.maxOppBankroll = maxOppBankroll;
+        this.payouts = payouts;
+        this.fieldSize = fieldSize;
+        this.variant = variant;
+    }
+
+    // Getter methods
+    public int getNumSeats() {
+        return numSeats;
+    }
+
+    public int getSmallBlind() {
+        return smallBlind;
+    }
+
+    public int getBigBlind() {
+        return bigBlind;
+    }
+
+    public int getStartingBank() {
+        return startingBank;
+    }
+
+    public int getMinOppBankroll() {
+        return minOppBankroll;
+    }
+
+    public int getMaxOppBankroll() {
+        return maxOppBankroll;
+    }
+
+    // Whether chips are worth prize money (see IcmCalculator) rather than their face value
+    public boolean isTournament() {
+        return payouts != null;
+    }
+
+    // The prizes still to be paid, index 0 = first place, null outside tournaments
+    public double[] getPayouts() {
+        return payouts == null ? null : payouts.clone();
+    }
+
+    // Players left in the tournament, across every table
+    public int getFieldSize() {
+        return fieldSize;
+    }
+
+    public GameVariant getVariant() {
+        return variant;
+    }
+
+    // Returns a copy with a different number of seats, used to mix table sizes in the Simulator
+    public TableConfig withSeats(int numSeats) {
+        return new TableConfig(numSeats, smallBlind, bigBlind, startingBank, minOppBankroll, maxOppBankroll, payouts,
+                fieldSize, variant);
+    }
+
+    // Returns a copy with different blinds, used for tournament blind levels
+    public TableConfig withBlinds(int smallBlind, int bigBlind) {
+        return new TableConfig(numSeats, smallBlind, bigBlind, startingBank, minOppBankroll, maxOppBankroll, payouts,
+                fieldSize, variant);
+    }
+
+    // Returns a copy that plays a different game, e.g. GameVariant.OMAHA
+    public TableConfig withVariant(GameVariant variant) {
+        return new TableConfig(numSeats, smallBlind, bigBlind, startingBank, minOppBankroll, maxOppBankroll, payouts,
+                fieldSize, variant);
+    }
+
+    /* Returns a copy for a tournament table, so the AI plays for prize money instead of chips
+
+    Parameter payouts: the prizes still to be paid, index 0 = first place
+    Parameter fieldSize: players left in the tournament, across every table */
+    public TableConfig withPayouts(double[] payouts, int fieldSize) {
+        if (fieldSize < 1) {
+            throw new IllegalArgumentException("A tournament needs at least one player left");
+        }
+
+        return new TableConfig(numSeats, smallBlind, bigBlind, startingBank, minOppBankroll, maxOppBankroll,
+                payouts.clone(), fieldSize, variant);
+    }
+
+    // Loads a config from a properties file, any missing keys keep their default value
+    public static TableConfig load(String path) throws IOException {
+        Properties properties = new Properties();
+
+        try (Reader reader = new FileReader(path)) {
+            properties.load(reader);
+        }
+
+        return DEFAULT.with(properties);
+    }
+
+    /* Reads every "key=value" argument this class knows (seats, smallBlind, bigBlind, startingBank,
+    minOpponentBankroll, maxOpponentBankroll, variant), starting from the file given by "config=path" if there is one
+    Other arguments are left for the caller, so this can be handed a program's whole argument list */
+    public static TableConfig fromArgs(String[] args) throws IOException {
+        Properties properties = new Properties();
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+
+            if (equals > 0) {
+                properties.setProperty(arg.substring(0, equals).trim(), arg.substring(equals + 1).trim());
+            }
+        }
+
+        TableConfig config = properties.containsKey(CONFIG) ? load(properties.getProperty(CONFIG)) : DEFAULT;
+
+        return config.with(properties);
+    }
+
+    public String toString() {
+        // Hold 'em tables print the way they always have, other games say which game they are first
+        return (variant == GameVariant.HOLDEM ? "" : variant + ", ") + String.format("%d seats, blinds %d/%d, "
+                + "starting bankroll %d (opponents %d-%d)", numSeats, smallBlind, bigBlind, startingBank,
+                minOppBankroll, maxOppBankroll);
+    }
+
+    // Private helper methods!
+    // Returns a copy with every setting the properties mention replaced
+    private TableConfig with(Properties properties) {
+        String variantName = properties.getProperty(VARIANT);
+
+        return new TableConfig(get(properties, SEATS, numSeats), get(properties, SMALL_BLIND, smallBlind),
+                get(properties, BIG_BLIND, bigBlind), get(properties, STARTING_BANK, startingBank),
+                get(properties, MIN_OPP_BANKROLL, minOppBankroll), get(properties, MAX_OPP_BANKROLL, maxOppBankroll),
+                null, 0, variantName == null ? variant : GameVariant.parse(variantName));
+    }
+
+    private static int get(Properties properties, String key, int fallback) {
+        String value = properties.getProperty(key);
+
+        try {
+            return value == null ? fallback : Integer.parseInt(value);
+        }
+
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("\"" + key + "\" must be a whole number, not \"" + value + "\"");
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/* The Tournament class plays a multi-table freezeout between AI players, from the first hand down to the winner
+Blinds go up on a BlindSchedule, busted players get their finishing place, and tables are balanced (and broken up
+once the rest fit at fewer tables) so no table ever has two more players than another. At the end the prize pool is
+paid out by place, and when the final table forms its ICM equities are printed
+
+Seating works on entrant ids in int arrays rather than lists of Players: every entrant knows their table and seat,
+a bust is a swap with the table's last seat, and tables are kept in buckets by size so the biggest and smallest tables
+are found without scanning. That keeps every seating change O(1), even with 10,000 entrants */
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+public class Tournament {
+    // Share of the field that gets paid
+    private static final double PAID_FRACTION = .15;
+
+    private final Player[] entrants;
+    private final TableConfig config;
+    private final BlindSchedule schedule;
+    private final int seatsPerTable;
+    private final SplittableRandom random;
+
+    // Prize for each place, index 0 = first, handed to the tables so the AI plays for money near the bubble
+    private final double[] payouts;
+
+    // seats[t][s] = the entrant in seat s of table t, the first tableSizes[t] seats are filled
+    private final int[][] seats;
+    private final int[] tableSizes;
+    private final int[] firstPlayers;
+
+    // Where each entrant sits, or where they busted
+    private final int[] tableOf;
+    private final int[] seatOf;
+
+    /* Tables grouped by how many players they have: tablesBySize[size][i] for i < bucketSizes[size]
+    bucketIndex[t] = where table t sits in its bucket, so a table changes buckets in O(1) */
+    private final int[][] tablesBySize;
+    private final int[] bucketSizes;
+    private final int[] bucketIndex;
+
+    // places[e] = finishing place of entrant e (1 = winner), 0 while they're still in, and finishers is the reverse
+    private final int[] places;
+    private final int[] finishers;
+    private int numRemaining;
+    private int numTables;
+
+    // Rounds played so far, every table plays one hand per round
+    private int round;
+
+    // Time spent on seating and eliminations, reported to show it stays negligible
+    private long nanosSeating;
+
+    /* Constructor, seats every entrant at a random table
+
+    Parameter numEntrants: how many players start, each with config.getStartingBank() chips
+    Parameter config: seats per table and starting chips, the blinds come from the schedule */
+    public Tournament(int numEntrants, TableConfig config, BlindSchedule schedule, Strategy strategy, long seed) {
+        this.config = config;
+        this.schedule = schedule;
+        seatsPerTable = config.getNumSeats();
+        random = new SplittableRandom(seed);
+        payouts = payouts(numEntrants, (double) numEntrants * config.getStartingBank());
+
+        entrants = new Player[numEntrants];
+        places = new int[numEntrants];
+        finishers = new int[numEntrants];
+        tableOf = new int[numEntrants];
+        seatOf = new int[numEntrants];
+
+        for (int e = 0; e < numEntrants; e++) {
+            entrants[e] = new Player("AI " + (e + 1), config.getStartingBank(), strategy);
+            finishers[e] = -1;
+        }
+
+        int maxTables = (numEntrants + seatsPerTable - 1) / seatsPerTable;
+
+        seats = new int[maxTables][seatsPerTable];
+        tableSizes = new int[maxTables];
+        firstPlayers = new int[maxTables];
+        tablesBySize = new int[seatsPerTable + 1][maxTables];
+        bucketSizes = new int[seatsPerTable + 1];
+        bucketIndex = new int[maxTables];
+
+        // Every table starts empty
+        for (int t = 0; t < maxTables; t++) {
+            tablesBySize[0][t] = t;
+            bucketIndex[t] = t;
+        }
+
+        bucketSizes[0] = maxTables;
+        numTables = 0;
+        numRemaining = numEntrants;
+
+        // Deal the entrants out in a random order, one table at a time round the room
+        int[] order = shuffled(numEntrants);
+
+        for (int i = 0; i < numEntrants; i++) {
+            seat(order[i], i % maxTables);
+        }
+    }
+
+    /* Optional "key=value" arguments: entrants, handsPerLevel, seed, plus any TableConfig settings (seats, bigBlind
+    for the first level, startingBank), e.g. "java Tournament entrants=10000 seats=9 handsPerLevel=10" */
+    public static void main(String[] args) throws IOException {
+        int numEntrants = 1000;
+        int handsPerLevel = 10;
+        long seed = System.nanoTime();
+
+        for (String arg : args) {
+            if (arg.startsWith("entrants=")) {
+                numEntrants = Integer.parseInt(arg.substring(9));
+            }
+
+            else if (arg.startsWith("handsPerLevel=")) {
+                handsPerLevel = Integer.parseInt(arg.substring(14));
+            }
+
+            else if (arg.startsWith("seed=")) {
+                seed = Long.parseLong(arg.substring(5));
+            }
+        }
+
+        TableConfig config = TableConfig.fromArgs(args);
+        BlindSchedule schedule = BlindSchedule.standard(config.getBigBlind(), 40, handsPerLevel);
+
+        // Nobody is watching the hands, so don't type them out
+        Constants.isSilent = true;
+
+        Tournament tournament = new Tournament(numEntrants, config, schedule, DefaultStrategy.INSTANCE, seed);
+
+        System.out.println(numEntrants + " entrants, " + config.getStartingBank() + " chips each, "
+                + tournament.seatsPerTable + " seats per table");
+        System.out.println("Blinds: " + schedule);
+
+        long start = System.nanoTime();
+        tournament.play();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double[] payouts = payouts(numEntrants, (double) numEntrants * config.getStartingBank());
+
+        System.out.println("\nResults (" + payouts.length + " places paid, top 10 shown):");
+
+        for (int place = 1; place <= Math.min(10, payouts.length); place++) {
+            System.out.printf("%d. %s wins $%.2f%n", place, tournament.getEntrant(place).getName(),
+                    payouts[place - 1]);
+        }
+
+        System.out.printf("%nPlayed %d rounds in %.2f seconds, %.3f of them on seating and eliminations%n",
+                tournament.round, seconds, tournament.nanosSeating / 1e9);
+    }
+
+    /* Returns the prize for each place (index 0 = first), paying the top PAID_FRACTION of the field
+    Each paid place is worth 1 / place shares of the pool, so first gets twice second, three times third, and so on */
+    public static double[] payouts(int numEntrants, double prizePool) {
+        int numPaid = Math.max(1, (int) Math.ceil(numEntrants * PAID_FRACTION));
+        double[] payouts = new double[numPaid];
+        double shares = 0;
+
+        for (int place = 1; place <= numPaid; place++) {
+            shares += 1.0 / place;
+        }
+
+        for (int place = 1; place <= numPaid; place++) {
+            payouts[place - 1] = prizePool / place / shares;
+        }
+
+        return payouts;
+    }
+
+    // Plays rounds until one player has every chip
+    public void play() {
+        boolean isFinalTable = false;
+
+        while (numRemaining > 1) {
+            int level = schedule.getLevel(round);
+            TableConfig[] configs = new TableConfig[seatsPerTable + 1];
+
+            // Places below numRemaining have been paid out already
+            TableConfig levelConfig = config.withBlinds(schedule.getSmallBlind(level), schedule.getBigBlind(level))
+                    .withPayouts(Arrays.copyOf(payouts, Math.min(payouts.length, numRemaining)), numRemaining);
+
+            for (int size = TableConfig.MIN_SEATS; size <= seatsPerTable; size++) {
+                configs[size] = levelConfig.withSeats(size);
+            }
+
+            for (int t = 0; t < seats.length; t++) {
+                if (tableSizes[t] >= 2) {
+                    playHand(t, configs[tableSizes[t]]);
+                }
+            }
+
+            round++;
+
+            long start = System.nanoTime();
+            balance();
+            nanosSeating += System.nanoTime() - start;
+
+            if (!isFinalTable && numTables == 1 && numRemaining > 1) {
+                isFinalTable = true;
+                printFinalTable();
+            }
+        }
+
+        // The last player standing wins
+        for (int e = 0; e < entrants.length; e++) {
+            if (places[e] == 0) {
+                places[e] = 1;
+                finishers[0] = e;
+            }
+        }
+    }
+
+    // Getter methods
+    // The entrant who finished in a place, null if nobody has yet
+    public Player getEntrant(int place) {
+        return finishers[place - 1] < 0 ? null : entrants[finishers[place - 1]];
+    }
+
+    public int getPlace(int entrant) {
+        return places[entrant];
+    }
+
+    public int getNumRemaining() {
+        return numRemaining;
+    }
+
+    public int getNumTables() {
+        return numTables;
+    }
+
+    // Private helper methods!
+    // Plays one hand at a table, then eliminates anyone who busted
+    private void playHand(int t, TableConfig levelConfig) {
+        int size = tableSizes[t];
+        ArrayList<Player> players = new ArrayList<>(size);
+        int[] startingChips = new int[size];
+
+        for (int s = 0; s < size; s++) {
+            players.add(entrants[seats[t][s]]);
+            startingChips[s] = entrants[seats[t][s]].getBankroll();
+        }
+
+        new Table(players, firstPlayers[t], round + 1, levelConfig, random.nextLong()).playRound();
+        firstPlayers[t]++;
+
+        long start = System.nanoTime();
+
+        /* Players who bust on the same hand are placed by who started it with more chips
+        Go from the shortest stack up, since each bust takes the worst place left */
+        while (true) {
+            int shortest = -1;
+
+            for (int s = 0; s < size; s++) {
+                if (players.get(s).isBankrupt() && places[seats[t][s]] == 0 && startingChips[s] > 0
+                        && (shortest < 0 || startingChips[s] < startingChips[shortest])) {
+                    shortest = s;
+                }
+            }
+
+            if (shortest < 0) {
+                break;
+            }
+
+            startingChips[shortest] = 0;
+            places[seats[t][shortest]] = numRemaining;
+            finishers[numRemaining - 1] = seats[t][shortest];
+            numRemaining--;
+        }
+
+        // Unseat the busted players, going backwards since unseating moves the last seat into the empty one
+        for (int s = size - 1; s >= 0; s--) {
+            if (places[seats[t][s]] != 0) {
+                unseat(seats[t][s]);
+            }
+        }
+
+        nanosSeating += System.nanoTime() - start;
+    }
+
+    /* Breaks tables while the rest of the field fits at one table fewer, then moves players from the biggest tables
+    to the smallest until no two tables differ by more than one player. Players who move are seated randomly */
+    private void balance() {
+        while (numTables > 1 && numRemaining <= (numTables - 1) * seatsPerTable) {
+            int broken = smallestTable();
+            int size = tableSizes[broken];
+            int[] movers = new int[size];
+
+            for (int i = 0; i < size; i++) {
+                movers[i] = seats[broken][0];
+                unseat(movers[i]);
+            }
+
+            for (int i = 0; i < size; i++) {
+                seat(movers[i], smallestTable());
+            }
+
+            // Everyone left draws for a new seat at the final table
+            if (numTables == 1) {
+                int finalTable = largestTable();
+                int[] order = shuffled(tableSizes[finalTable]);
+                int[] redrawn = new int[order.length];
+
+                for (int i = 0; i < order.length; i++) {
+                    redrawn[i] = seats[finalTable][order[i]];
+                }
+
+                for (int i = 0; i < redrawn.length; i++) {
+                    seats[finalTable][i] = redrawn[i];
+                    seatOf[redrawn[i]] = i;
+                }
+            }
+        }
+
+        while (numTables > 1 && tableSizes[largestTable()] - tableSizes[smallestTable()] > 1) {
+            int from = largestTable();
+            int mover = seats[from][random.nextInt(tableSizes[from])];
+
+            unseat(mover);
+            seat(mover, smallestTable());
+        }
+    }
+
+    // Seats an entrant in a random seat at a table, whoever had that seat moves to the end
+    private void seat(int entrant, int t) {
+        int size = tableSizes[t];
+        int s = random.nextInt(size + 1);
+
+        if (s < size) {
+            seats[t][size] = seats[t][s];
+            seatOf[seats[t][size]] = size;
+        }
+
+        seats[t][s] = entrant;
+        tableOf[entrant] = t;
+        seatOf[entrant] = s;
+
+        resize(t, size + 1);
+    }
+
+    // Removes an entrant from their table by moving the table's last player into their seat
+    private void unseat(int entrant) {
+        int t = tableOf[entrant];
+        int last = tableSizes[t] - 1;
+        int moved = seats[t][last];
+
+        seats[t][seatOf[entrant]] = moved;
+        seatOf[moved] = seatOf[entrant];
+
+        resize(t, last);
+    }
+
+    // Moves a table to the bucket of its new size
+    private void resize(int t, int size) {
+        int oldSize = tableSizes[t];
+
+        // Swap the table with the last one in its old bucket, then drop it off the end
+        int[] oldBucket = tablesBySize[oldSize];
+        int last = oldBucket[--bucketSizes[oldSize]];
+
+        oldBucket[bucketIndex[t]] = last;
+        bucketIndex[last] = bucketIndex[t];
+
+        tablesBySize[size][bucketSizes[size]] = t;
+        bucketIndex[t] = bucketSizes[size]++;
+
+        tableSizes[t] = size;
+
+        if (oldSize == 0) {
+            numTables++;
+        }
+
+        else if (size == 0) {
+            numTables--;
+        }
+    }
+
+    // The table with the most players, at most seatsPerTable buckets checked
+    private int largestTable() {
+        for (int size = seatsPerTable; size > 0; size--) {
+            if (bucketSizes[size] > 0) {
+                return tablesBySize[size][0];
+            }
+        }
+
+        return -1;
+    }
+
+    // The table with the fewest players that still has anyone at it
+    private int smallestTable() {
+        for (int size = 1; size <= seatsPerTable; size++) {
+            if (bucketSizes[size] > 0) {
+                return tablesBySize[size][0];
+            }
+        }
+
+        return -1;
+    }
+
+    // Prints the final table's chip counts next to what ICM says they're worth
+    private void printFinalTable() {
+        int t = largestTable();
+        int size = tableSizes[t];
+        long[] chips = new long[size];
+
+        for (int s = 0; s < size; s++) {
+            chips[s] = entrants[seats[t][s]].getBankroll();
+        }
+
+        double[] equities = IcmCalculator.equities(chips, payouts);
+
+        System.out.println("\nFinal table after " + round + " rounds:");
+
+        for (int s = 0; s < size; s++) {
+            System.out.printf("%-10s %8d chips, ICM equity $%.2f%n", entrants[seats[t][s]].getName(), chips[s],
+                    equities[s]);
+        }
+    }
+
+    // Returns 0 to n - 1 in a random order
+    private int[] shuffled(int n) {
+        int[] order = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            int j = random.nextInt(i + 1);
+
+            order[i] = order[j];
+            order[j] = i;
+        }
+
+        return order;
+    }
+}
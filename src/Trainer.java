@@ -0,0 +1,254 @@
+/* The Trainer class learns better StrategyParameters by having the AI play against itself, no human input needed
+It hill climbs: nudge one parameter of the best set found so far, play the candidate against the incumbent for a lot of
+headless hands (split across every core), and keep the candidate if it won by a statistically meaningful margin
+Matches are played as duplicate poker with the all-in luck and card luck taken out (see compare), which needs about an
+order of magnitude fewer hands than plain chip counts for the same confidence
+Every improvement is checkpointed to Constants.AI_PARAMETERS_FILE, which DefaultStrategy loads automatically */
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+public class Trainer {
+    // Tables each worker plays side by side, enough for the Simulator to build decent batches
+    private static final int TABLES_PER_TASK = 16;
+
+    // How far (as a fraction of each parameter's range) a single mutation moves on average
+    private static final double STEP_SIZE = .1;
+
+    // A candidate has to beat the incumbent by this many standard errors to replace it
+    private static final double MIN_Z_SCORE = 2;
+
+    // Standard errors either side of the mean for a 95% confidence interval
+    private static final double Z_95 = 1.96;
+
+    private final int numThreads;
+    private final ExecutorService pool;
+
+    // Seeds each pair of duplicate matches
+    private final SplittableRandom seeds;
+
+    // Totals for the throughput report
+    private long handsPlayed;
+    private long nanosPlaying;
+
+    /* Constructor
+    Parameter seeds: where every match's seed comes from, so a Trainer seeded the same way plays the same matches */
+    public Trainer(int numThreads, SplittableRandom seeds) {
+        this.numThreads = numThreads;
+        this.seeds = seeds;
+        pool = Executors.newFixedThreadPool(numThreads);
+    }
+
+    /* Optional arguments: number of candidates to try, hands played per candidate, and where to save the parameters
+    e.g. "java Trainer 100 200000 ai_parameters.properties"
+    "seed=123" trains with a fixed seed (the matches and the mutations), every run prints the seed it used so it can
+    be trained again */
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        ArrayList<String> positional = new ArrayList<>();
+        long seed = System.nanoTime();
+
+        for (String arg : args) {
+            if (arg.startsWith("seed=")) {
+                seed = Long.parseLong(arg.substring(5));
+            }
+
+            else {
+                positional.add(arg);
+            }
+        }
+
+        int iterations = positional.size() > 0 ? Integer.parseInt(positional.get(0)) : 50;
+        int handsPerCandidate = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 100000;
+        String path = positional.size() > 2 ? positional.get(2) : Constants.AI_PARAMETERS_FILE;
+
+        // Nobody is watching, so don't type anything out
+        Constants.isSilent = true;
+
+        // The matches and the mutations each get their own stream of the run's seed
+        SplittableRandom random = new SplittableRandom(seed);
+        Trainer trainer = new Trainer(Runtime.getRuntime().availableProcessors(), random.split());
+        StrategyParameters best = StrategyParameters.loadOrDefault(path);
+
+        System.out.println("Seed: " + seed);
+        System.out.println("Starting from: " + best);
+
+        for (int i = 1; i <= iterations; i++) {
+            StrategyParameters candidate = best.mutate(random, STEP_SIZE);
+            double[] result = trainer.compare(candidate, best, handsPerCandidate);
+
+            // Candidates that play exactly like the incumbent come out at exactly 0 with duplicate poker
+            String cut = result[1] > 0 ? String.format("variance cut %.1fx", Math.pow(result[2] / result[1], 2))
+                    : "plays the same as the incumbent";
+
+            System.out.printf("Candidate %d: %+.2f chips per hand (95%% CI %+.2f to %+.2f), %s, "
+                    + "%.0f hands/second per core%n", i, result[0], result[0] - Z_95 * result[1],
+                    result[0] + Z_95 * result[1], cut, trainer.getHandsPerSecondPerCore());
+
+            if (result[0] > MIN_Z_SCORE * result[1]) {
+                best = candidate;
+                best.save(path, "Learned by the Trainer");
+
+                System.out.println("New best, saved to " + path + ": " + best);
+            }
+        }
+
+        trainer.shutdown();
+    }
+
+    /* Plays two parameter sets against each other, returns {mean, standard error, plain standard error} of how many
+    more chips per hand a candidate seat won than an incumbent seat. Positive = the candidate is better
+
+    Poker's luck swamps small differences in skill, so three things take as much of it out as possible:
+    1. Duplicate poker: tasks come in pairs that play the same seed (so the same cards) with the candidate and the
+    incumbent in swapped seats, and each table counts the average of the two, so whoever got the good cards in one
+    half got the bad ones in the other
+    2. All-in adjustment: chips won or lost to all-in run-outs count at their expected value (Simulator.getAdjustedNet)
+    3. Control variate: what's left of the starting-hand luck (Simulator.getCardLuck, which averages 0) is regressed
+    out of the result
+    The plain standard error is the same hands counted without any of these, to show how much they helped */
+    public double[] compare(StrategyParameters candidate, StrategyParameters incumbent, int numHands)
+            throws InterruptedException, ExecutionException {
+        Strategy candidateStrategy = new DefaultStrategy(candidate);
+        Strategy incumbentStrategy = new DefaultStrategy(incumbent);
+
+        // At least one pair of tasks, more tasks than threads keeps every core busy
+        int numPairs = Math.max(1, numThreads);
+        int roundsPerTable = Math.max(1, numHands / (2 * numPairs * TABLES_PER_TASK));
+
+        List<Future<double[][]>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int pair = 0; pair < numPairs; pair++) {
+            long seed = seeds.nextLong();
+
+            futures.add(pool.submit(() -> playMatch(candidateStrategy, incumbentStrategy, true, roundsPerTable,
+                    seed)));
+            futures.add(pool.submit(() -> playMatch(candidateStrategy, incumbentStrategy, false, roundsPerTable,
+                    seed)));
+        }
+
+        // Every table of every pair is one sample: y = the adjusted difference, c = the card luck difference
+        int numSamples = numPairs * TABLES_PER_TASK;
+        double[] y = new double[numSamples];
+        double[] c = new double[numSamples];
+        double[] plain = new double[2 * numSamples];
+
+        for (int pair = 0; pair < numPairs; pair++) {
+            double[][] first = futures.get(2 * pair).get();
+            double[][] second = futures.get(2 * pair + 1).get();
+
+            for (int t = 0; t < TABLES_PER_TASK; t++) {
+                int i = pair * TABLES_PER_TASK + t;
+
+                y[i] = (first[1][t] + second[1][t]) / 2;
+                c[i] = (first[2][t] + second[2][t]) / 2;
+                plain[2 * i] = first[0][t];
+                plain[2 * i + 1] = second[0][t];
+            }
+        }
+
+        nanosPlaying += System.nanoTime() - start;
+        handsPlayed += 2L * numSamples * roundsPerTable;
+
+        // Control variate: y - beta * c has the same mean as y (c averages 0) but less variance
+        double meanY = mean(y);
+        double meanC = mean(c);
+        double covariance = 0;
+        double varianceC = 0;
+
+        for (int i = 0; i < numSamples; i++) {
+            covariance += (y[i] - meanY) * (c[i] - meanC);
+            varianceC += (c[i] - meanC) * (c[i] - meanC);
+        }
+
+        double beta = varianceC > 0 ? covariance / varianceC : 0;
+
+        for (int i = 0; i < numSamples; i++) {
+            y[i] -= beta * c[i];
+        }
+
+        return new double[]{mean(y), standardError(y), standardError(plain)};
+    }
+
+    // Average hands played per second by each thread so far
+    public double getHandsPerSecondPerCore() {
+        return handsPlayed / (nanosPlaying / 1e9) / numThreads;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // Private helper methods!
+    /* Plays one batch of tables and returns, for each table, how many more chips per hand the candidate's seats won
+    on average than the incumbent's seats: {plain, with all-in luck taken out, card luck} */
+    private static double[][] playMatch(Strategy candidate, Strategy incumbent, boolean candidateFirst, int numRounds,
+                                        long seed) {
+        int numSeats = TableConfig.DEFAULT.getNumSeats();
+        Strategy[] seatStrategies = new Strategy[numSeats];
+
+        for (int seat = 0; seat < numSeats; seat++) {
+            seatStrategies[seat] = (seat % 2 == 0) == candidateFirst ? candidate : incumbent;
+        }
+
+        Simulator simulator = new Simulator(TABLES_PER_TASK, seatStrategies, seed);
+        simulator.setAllInAdjusted(true);
+        simulator.run(numRounds);
+
+        double[][] samples = new double[3][TABLES_PER_TASK];
+
+        for (int t = 0; t < TABLES_PER_TASK; t++) {
+            double[] candidateTotals = new double[3];
+            double[] incumbentTotals = new double[3];
+            int numCandidateSeats = 0;
+
+            for (int seat = 0; seat < numSeats; seat++) {
+                boolean isCandidate = seatStrategies[seat] == candidate;
+                double[] totals = isCandidate ? candidateTotals : incumbentTotals;
+
+                totals[0] += simulator.getNet(t, seat);
+                totals[1] += simulator.getAdjustedNet(t, seat);
+                totals[2] += simulator.getCardLuck(t, seat);
+
+                if (isCandidate) {
+                    numCandidateSeats++;
+                }
+            }
+
+            for (int k = 0; k < 3; k++) {
+                samples[k][t] = (candidateTotals[k] / numCandidateSeats
+                        - incumbentTotals[k] / (numSeats - numCandidateSeats)) / numRounds;
+            }
+        }
+
+        return samples;
+    }
+
+    private static double mean(double[] samples) {
+        double total = 0;
+
+        for (double sample : samples) {
+            total += sample;
+        }
+
+        return total / samples.length;
+    }
+
+    // Standard error of the mean of the samples
+    private static double standardError(double[] samples) {
+        double mean = mean(samples);
+        double squares = 0;
+
+        for (double sample : samples) {
+            squares += (sample - mean) * (sample - mean);
+        }
+
+        return Math.sqrt(squares / (samples.length - 1) / samples.length);
+    }
+}